@@ -0,0 +1,88 @@
+package uk.gov.digital.ho.hocs.workflow;
+
+import uk.gov.digital.ho.hocs.workflow.api.dto.FieldDto;
+import uk.gov.digital.ho.hocs.workflow.api.dto.SchemaDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Schema shapes modelled on the larger stage forms: text fields broken up by accordions and expandable checkboxes,
+ * with a proportion of team, user and document fields that need resolving to display names.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {}
+
+    public static List<FieldDto> formFields(int count) {
+        List<FieldDto> fields = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            switch (i % 20) {
+                case 0:
+                    fields.add(field("Section" + i, "accordion", Map.of()));
+                    break;
+                case 5:
+                    fields.add(field("Expandable" + i, "expandable-checkbox", Map.of()));
+                    break;
+                case 8:
+                    fields.add(field("ExpandableEnd" + i, "expandable-end", Map.of()));
+                    break;
+                case 19:
+                    fields.add(field("SectionEnd" + i, "accordion-end", Map.of()));
+                    break;
+                default:
+                    fields.add(field("Field" + i, "text", Map.of()));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * One schema per stage; every tenth field is a team, user or document reference in rotation.
+     */
+    public static List<SchemaDto> stageSchemas(int stages, int fieldsPerStage) {
+        List<SchemaDto> schemas = new ArrayList<>(stages);
+        for (int stage = 0; stage < stages; stage++) {
+            List<FieldDto> fields = new ArrayList<>(fieldsPerStage);
+            for (int i = 0; i < fieldsPerStage; i++) {
+                String name = "Stage" + stage + "Field" + i;
+                switch (i % 30) {
+                    case 0:
+                        fields.add(field(name, "dropdown", Map.of("choices", "S_TEAMS")));
+                        break;
+                    case 10:
+                        fields.add(field(name, "dropdown", Map.of("choices", "USERS")));
+                        break;
+                    case 20:
+                        fields.add(field(name, "entity-list", Map.of("entity", "document")));
+                        break;
+                    default:
+                        fields.add(field(name, "text-area", Map.of()));
+                }
+            }
+            schemas.add(new SchemaDto(UUID.randomUUID(), "STAGE_" + stage, "FORM_" + stage, "Stage " + stage, "Continue", true, fields, List.of(), null));
+        }
+        return schemas;
+    }
+
+    /**
+     * Case data for the given schemas: UUIDs for the reference fields and free text for everything else.
+     */
+    public static Map<String, String> caseData(List<SchemaDto> schemas) {
+        Map<String, String> data = new HashMap<>();
+        for (SchemaDto schema : schemas) {
+            for (FieldDto field : schema.getFields()) {
+                boolean reference = field.getComponent().equals("dropdown") || field.getComponent().equals("entity-list");
+                data.put(field.getName(), reference ? UUID.randomUUID().toString() : "Some free text for " + field.getName());
+            }
+        }
+        return data;
+    }
+
+    private static FieldDto field(String name, String component, Map<String, Object> props) {
+        return new FieldDto(UUID.randomUUID(), name, name + " label", component, null, new HashMap<>(props), true, true);
+    }
+}
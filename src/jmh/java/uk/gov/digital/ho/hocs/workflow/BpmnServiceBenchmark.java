@@ -0,0 +1,36 @@
+package uk.gov.digital.ho.hocs.workflow;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BpmnServiceBenchmark {
+
+    @Param({"2", "10"})
+    private int pairCount;
+
+    private BpmnService bpmnService;
+    private String[] argPairs;
+
+    @Setup
+    public void setup() {
+        bpmnService = new BpmnService(null, null, null, null);
+        argPairs = new String[pairCount * 2];
+        for (int i = 0; i < pairCount; i++) {
+            argPairs[i * 2] = "Key" + i;
+            argPairs[i * 2 + 1] = "Value" + i;
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> parseArgPairs() {
+        return bpmnService.parseArgPairs(argPairs);
+    }
+}
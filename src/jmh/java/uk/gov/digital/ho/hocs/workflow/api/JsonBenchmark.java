@@ -0,0 +1,60 @@
+package uk.gov.digital.ho.hocs.workflow.api;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import uk.gov.digital.ho.hocs.workflow.BenchmarkFixtures;
+import uk.gov.digital.ho.hocs.workflow.api.dto.GetStageResponse;
+import uk.gov.digital.ho.hocs.workflow.api.dto.SchemaDto;
+import uk.gov.digital.ho.hocs.workflow.application.SpringConfiguration;
+import uk.gov.digital.ho.hocs.workflow.domain.model.forms.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Serialising the stage form returned to the frontend, and reading the schemas returned by the info service, with
+ * the application's own ObjectMapper configuration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"20", "200"})
+    private int fieldCount;
+
+    private ObjectMapper objectMapper;
+    private GetStageResponse stageResponse;
+    private String schemasJson;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = new SpringConfiguration(null, null).initialiseObjectMapper();
+
+        List<SchemaDto> schemas = BenchmarkFixtures.stageSchemas(1, fieldCount);
+        schemasJson = objectMapper.writeValueAsString(schemas);
+
+        SchemaDto schemaDto = schemas.get(0);
+        List<HocsFormField> fields = schemaDto.getFields().stream().map(HocsFormField::from).collect(Collectors.toList());
+        HocsSchema schema = new HocsSchema(schemaDto.getTitle(), schemaDto.getDefaultActionLabel(), HocsFormAccordion.loadFormAccordions(fields), List.of(), null);
+        stageResponse = new GetStageResponse(UUID.randomUUID(), "MIN/0123456/19", new HocsForm(schema, BenchmarkFixtures.caseData(schemas)));
+    }
+
+    @Benchmark
+    public String serialiseGetStageResponse() throws IOException {
+        return objectMapper.writeValueAsString(stageResponse);
+    }
+
+    @Benchmark
+    public List<SchemaDto> deserialiseSchemas() throws IOException {
+        return objectMapper.readValue(schemasJson, new TypeReference<List<SchemaDto>>() {
+        });
+    }
+}
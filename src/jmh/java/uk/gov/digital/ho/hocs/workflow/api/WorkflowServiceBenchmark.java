@@ -0,0 +1,75 @@
+package uk.gov.digital.ho.hocs.workflow.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import uk.gov.digital.ho.hocs.workflow.BenchmarkFixtures;
+import uk.gov.digital.ho.hocs.workflow.api.dto.SchemaDto;
+import uk.gov.digital.ho.hocs.workflow.client.documentclient.DocumentClient;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.InfoClient;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.UserDto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * convertDataToSchema against in-memory clients, so only the workflow service's own work is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowServiceBenchmark {
+
+    @Param({"5", "20"})
+    private int stageCount;
+
+    @Param({"60"})
+    private int fieldsPerStage;
+
+    private WorkflowService workflowService;
+    private List<SchemaDto> schemas;
+    private Map<String, String> caseData;
+
+    @Setup
+    public void setup() {
+        schemas = BenchmarkFixtures.stageSchemas(stageCount, fieldsPerStage);
+        caseData = BenchmarkFixtures.caseData(schemas);
+
+        InfoClient infoClient = new InfoClient(null, null, null) {
+            @Override
+            public Map<UUID, TeamDto> getTeams(Set<UUID> teamUUIDs) {
+                return resolve(teamUUIDs, uuid -> new TeamDto("Team " + uuid, uuid, true, Set.of()));
+            }
+
+            @Override
+            public Map<UUID, UserDto> getUsers(Set<UUID> userUUIDs) {
+                return resolve(userUUIDs, uuid -> new UserDto("user", "First", "Last", "user@example.com"));
+            }
+        };
+        DocumentClient documentClient = new DocumentClient(null, null) {
+            @Override
+            public Map<UUID, String> getDocumentNames(Set<UUID> documentUUIDs) {
+                return resolve(documentUUIDs, uuid -> "Document " + uuid);
+            }
+        };
+        workflowService = new WorkflowService(null, null, documentClient, infoClient, null, Runnable::run, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public Map<String, String> convertDataToSchema() {
+        return workflowService.convertDataToSchema(schemas, new HashMap<>(caseData));
+    }
+
+    private static <V> Map<UUID, V> resolve(Set<UUID> uuids, Function<UUID, V> stub) {
+        return uuids.stream().collect(Collectors.toMap(Function.identity(), stub));
+    }
+}
@@ -0,0 +1,32 @@
+package uk.gov.digital.ho.hocs.workflow.domain.model.forms;
+
+import org.openjdk.jmh.annotations.*;
+import uk.gov.digital.ho.hocs.workflow.BenchmarkFixtures;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HocsFormAccordionBenchmark {
+
+    @Param({"20", "200"})
+    private int fieldCount;
+
+    private List<HocsFormField> fields;
+
+    @Setup
+    public void setup() {
+        fields = BenchmarkFixtures.formFields(fieldCount).stream().map(HocsFormField::from).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<HocsFormField> loadFormAccordions() {
+        return HocsFormAccordion.loadFormAccordions(fields);
+    }
+}
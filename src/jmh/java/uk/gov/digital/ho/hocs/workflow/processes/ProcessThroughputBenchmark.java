@@ -0,0 +1,354 @@
+package uk.gov.digital.ho.hocs.workflow.processes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.camunda.bpm.engine.repository.DeploymentBuilder;
+import org.camunda.bpm.engine.task.Task;
+import org.mockito.stubbing.Answer;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import uk.gov.digital.ho.hocs.workflow.BpmnService;
+import uk.gov.digital.ho.hocs.workflow.client.camundaclient.CamundaClient;
+import uk.gov.digital.ho.hocs.workflow.client.camundaclient.StageTaskIndex;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Drives whole case lifecycles through the real BPMN processes, several cases at a time, and reports case
+ * throughput plus p50/p99 latency and database statements for every task transition. BpmnService is stubbed so
+ * only the engine is measured.
+ * <p>
+ * The engine runs on an in-memory H2 database. Pass -Pbenchmark.profile=postgres to run against the PostgreSQL
+ * instance used by the local docker-compose setup instead. Run it with {@code ./gradlew processBenchmark}; see the
+ * processBenchmark task for the other properties.
+ */
+@Slf4j
+public class ProcessThroughputBenchmark {
+
+    private static final String START = "start";
+
+    private final Settings settings;
+    private final Map<UUID, UUID> currentStages = new ConcurrentHashMap<>();
+    private final Map<String, Transition> transitions = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicInteger> outcomes = new ConcurrentSkipListMap<>();
+
+    private ProcessEngine processEngine;
+    private RuntimeService runtimeService;
+    private TaskService taskService;
+    private CamundaClient camundaClient;
+
+    private ProcessThroughputBenchmark(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ProcessThroughputBenchmark benchmark = new ProcessThroughputBenchmark(Settings.fromSystemProperties());
+        try {
+            benchmark.startEngine();
+            benchmark.run();
+        } finally {
+            benchmark.stopEngine();
+        }
+    }
+
+    private void startEngine() throws IOException {
+        PooledDataSource pool = new PooledDataSource(settings.jdbcDriver, settings.jdbcUrl, settings.jdbcUsername, settings.jdbcPassword);
+        pool.setPoolMaximumActiveConnections(settings.concurrency + 2);
+        pool.setPoolMaximumIdleConnections(settings.concurrency + 2);
+
+        ProcessEngineConfigurationImpl configuration = new StandaloneInMemProcessEngineConfiguration();
+        configuration.setDataSource(StatementCounter.wrap(pool));
+        configuration.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_TRUE);
+        configuration.setJobExecutorActivate(false);
+        configuration.setHistory(settings.history);
+        configuration.setBeans(Map.of("bpmnService", stubBpmnService()));
+        StageTaskIndex stageTaskIndex = new StageTaskIndex(settings.cases * 4L, TimeUnit.HOURS.toMillis(1), TimeUnit.SECONDS.toMillis(10), TimeUnit.SECONDS.toMillis(10));
+        configuration.setCustomPostBPMNParseListeners(new ArrayList<>(List.of(stageTaskIndex.parseListener())));
+        processEngine = configuration.buildProcessEngine();
+
+        DeploymentBuilder deployment = processEngine.getRepositoryService().createDeployment().name("process-benchmark");
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:processes/*.bpmn")) {
+            deployment.addInputStream(resource.getFilename(), resource.getInputStream());
+        }
+        deployment.deploy();
+
+        runtimeService = processEngine.getRuntimeService();
+        taskService = processEngine.getTaskService();
+        camundaClient = new CamundaClient(runtimeService, taskService, stageTaskIndex);
+    }
+
+    private void stopEngine() {
+        if (processEngine != null) {
+            processEngine.close();
+        }
+    }
+
+    /**
+     * Mocks.register is thread local, so the stub is registered as an engine bean to be visible to every worker.
+     * createStage records the stage it hands out so the driver knows which task to complete next.
+     */
+    private BpmnService stubBpmnService() {
+        BpmnService bpmnService = mock(BpmnService.class, withSettings().stubOnly());
+        Answer<String> createStage = invocation -> {
+            String caseUUID = invocation.getArgument(0);
+            String stageUUID = invocation.getArgument(1);
+            UUID resultStageUUID = stageUUID != null && !stageUUID.isEmpty() ? UUID.fromString(stageUUID) : UUID.randomUUID();
+            currentStages.put(UUID.fromString(caseUUID), resultStageUUID);
+            return resultStageUUID.toString();
+        };
+        when(bpmnService.createStage(any(), any(), any(), any(), any())).thenAnswer(createStage);
+        when(bpmnService.createStage(any(), any(), any(), any(), any(), any())).thenAnswer(createStage);
+        when(bpmnService.caseHasMember(any())).thenReturn(true);
+        return bpmnService;
+    }
+
+    private void run() throws Exception {
+        Map<String, Map<String, String>> answers = new LinkedHashMap<>();
+        for (String processKey : settings.processes) {
+            answers.put(processKey, loadAnswers(processKey));
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency);
+        List<Future<?>> cases = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int i = 0; i < settings.cases; i++) {
+            String processKey = settings.processes.get(i % settings.processes.size());
+            cases.add(workers.submit(() -> driveCase(processKey, answers.get(processKey))));
+        }
+        for (Future<?> future : cases) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        workers.shutdown();
+
+        report(elapsed);
+    }
+
+    private void driveCase(String processKey, Map<String, String> answers) {
+        UUID caseUUID = UUID.randomUUID();
+        Map<String, String> seed = new HashMap<>(answers);
+        seed.put("CaseUUID", caseUUID.toString());
+        seed.put("DateReceived", LocalDate.now().toString());
+        try {
+            measure(processKey + "/" + START, () -> camundaClient.startCase(caseUUID, processKey, seed));
+            for (int step = 0; step < settings.maxTransitions; step++) {
+                if (runtimeService.createProcessInstanceQuery().processInstanceBusinessKey(caseUUID.toString()).count() == 0) {
+                    outcome(processKey, "completed");
+                    return;
+                }
+                UUID stageUUID = currentStages.get(caseUUID);
+                Task task = stageUUID == null ? null : taskService.createTaskQuery()
+                        .processInstanceBusinessKey(stageUUID.toString())
+                        .singleResult();
+                if (task == null) {
+                    outcome(processKey, "stuck");
+                    return;
+                }
+                String label = task.getProcessDefinitionId().split(":")[0] + "/" + task.getTaskDefinitionKey();
+                measure(label, () -> camundaClient.completeTask(stageUUID, answers));
+            }
+            outcome(processKey, "exceeded-max-transitions");
+        } catch (RuntimeException e) {
+            outcome(processKey, "failed");
+            log.warn("Case {} ({}) failed: {}", caseUUID, processKey, e.getMessage());
+        } finally {
+            currentStages.remove(caseUUID);
+        }
+    }
+
+    private void measure(String label, Runnable transition) {
+        int statementsBefore = StatementCounter.count();
+        long started = System.nanoTime();
+        transition.run();
+        long elapsed = System.nanoTime() - started;
+        transitions.computeIfAbsent(label, k -> new Transition()).record(elapsed, StatementCounter.count() - statementsBefore);
+    }
+
+    private void outcome(String processKey, String outcome) {
+        outcomes.computeIfAbsent(processKey + "/" + outcome, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static Map<String, String> loadAnswers(String processKey) throws IOException {
+        Properties properties = PropertiesLoaderUtils.loadAllProperties("process-benchmark/" + processKey + ".properties");
+        Map<String, String> answers = new HashMap<>();
+        properties.stringPropertyNames().forEach(name -> answers.put(name, properties.getProperty(name)));
+        return answers;
+    }
+
+    private void report(long elapsedNanos) throws IOException {
+        double seconds = elapsedNanos / 1e9;
+        int completed = outcomes.entrySet().stream()
+                .filter(e -> e.getKey().endsWith("/completed"))
+                .mapToInt(e -> e.getValue().get())
+                .sum();
+        long transitionCount = transitions.values().stream().mapToLong(Transition::count).sum();
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("profile", settings.profile);
+        results.put("cases", settings.cases);
+        results.put("concurrency", settings.concurrency);
+        results.put("elapsedSeconds", seconds);
+        results.put("completedCasesPerSecond", completed / seconds);
+        results.put("transitionsPerSecond", transitionCount / seconds);
+        results.put("outcomes", outcomes);
+        Map<String, Object> perTransition = new LinkedHashMap<>();
+        transitions.forEach((label, transition) -> perTransition.put(label, transition.summary()));
+        results.put("transitions", perTransition);
+
+        log.info(String.format("Profile %s, %d cases, concurrency %d: %.1f s, %.1f completed cases/s, %.1f transitions/s",
+                settings.profile, settings.cases, settings.concurrency, seconds, completed / seconds, transitionCount / seconds));
+        outcomes.forEach((outcome, count) -> log.info(String.format("  %-40s %6d", outcome, count.get())));
+        log.info(String.format("%-60s %8s %10s %10s %12s", "transition", "count", "p50 ms", "p99 ms", "statements"));
+        transitions.forEach((label, transition) -> {
+            Map<String, Object> summary = transition.summary();
+            log.info(String.format("%-60s %8d %10.2f %10.2f %12.1f", label, summary.get("count"),
+                    summary.get("p50Millis"), summary.get("p99Millis"), summary.get("meanStatements")));
+        });
+
+        File output = new File(settings.output);
+        output.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, results);
+        log.info("Results written to {}", output.getAbsolutePath());
+    }
+
+    private static class Transition {
+        private final List<Long> durations = new ArrayList<>();
+        private long statements;
+
+        synchronized void record(long durationNanos, int statementCount) {
+            durations.add(durationNanos);
+            statements += statementCount;
+        }
+
+        synchronized long count() {
+            return durations.size();
+        }
+
+        synchronized Map<String, Object> summary() {
+            List<Long> sorted = new ArrayList<>(durations);
+            Collections.sort(sorted);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", sorted.size());
+            summary.put("p50Millis", percentile(sorted, 0.50) / 1e6);
+            summary.put("p99Millis", percentile(sorted, 0.99) / 1e6);
+            summary.put("meanStatements", sorted.isEmpty() ? 0.0 : (double) statements / sorted.size());
+            return summary;
+        }
+
+        private static long percentile(List<Long> sorted, double percentile) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+        }
+    }
+
+    /**
+     * Counts the JDBC statements executed on the calling thread. Each transition runs synchronously on its worker,
+     * so the difference either side of it is that transition's statement count.
+     */
+    private static class StatementCounter {
+        private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+        static int count() {
+            return COUNT.get()[0];
+        }
+
+        static DataSource wrap(DataSource dataSource) {
+            return proxy(DataSource.class, dataSource);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target) {
+            return (T) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+                if (Statement.class.isAssignableFrom(type) && isExecution(method)) {
+                    COUNT.get()[0]++;
+                }
+                Object result = invoke(target, method, args);
+                if (result instanceof Connection && method.getReturnType() == Connection.class) {
+                    return proxy(Connection.class, (Connection) result);
+                }
+                if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    return proxy((Class<Statement>) method.getReturnType(), (Statement) result);
+                }
+                return result;
+            });
+        }
+
+        private static boolean isExecution(Method method) {
+            String name = method.getName();
+            return name.equals("addBatch") || (name.startsWith("execute") && !name.equals("executeBatch"));
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static class Settings {
+        private String profile;
+        private int cases;
+        private int concurrency;
+        private int maxTransitions;
+        private List<String> processes;
+        private String history;
+        private String output;
+        private String jdbcDriver;
+        private String jdbcUrl;
+        private String jdbcUsername;
+        private String jdbcPassword;
+
+        static Settings fromSystemProperties() {
+            Settings settings = new Settings();
+            settings.profile = System.getProperty("benchmark.profile", "h2");
+            settings.cases = Integer.getInteger("benchmark.cases", 300);
+            settings.concurrency = Integer.getInteger("benchmark.concurrency", 8);
+            settings.maxTransitions = Integer.getInteger("benchmark.maxTransitions", 100);
+            settings.processes = List.of(System.getProperty("benchmark.processes", "MPAM,WCS,DCU_MIN").split(","));
+            settings.history = System.getProperty("benchmark.history", ProcessEngineConfiguration.HISTORY_NONE);
+            settings.output = System.getProperty("benchmark.output", "build/reports/process-benchmark/results.json");
+            if (settings.profile.equals("postgres")) {
+                settings.jdbcDriver = "org.postgresql.Driver";
+                settings.jdbcUrl = System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/postgres?currentSchema=workflow_benchmark");
+                settings.jdbcUsername = System.getProperty("benchmark.jdbc.username", "root");
+                settings.jdbcPassword = System.getProperty("benchmark.jdbc.password", "dev");
+            } else {
+                settings.jdbcDriver = "org.h2.Driver";
+                settings.jdbcUrl = "jdbc:h2:mem:process-benchmark;DB_CLOSE_DELAY=-1";
+                settings.jdbcUsername = "sa";
+                settings.jdbcPassword = "";
+            }
+            return settings;
+        }
+    }
+}
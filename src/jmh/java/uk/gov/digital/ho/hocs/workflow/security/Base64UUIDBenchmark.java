@@ -0,0 +1,34 @@
+package uk.gov.digital.ho.hocs.workflow.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Base64UUIDBenchmark {
+
+    private UUID uuid;
+    private String encoded;
+
+    @Setup
+    public void setup() {
+        uuid = UUID.randomUUID();
+        encoded = Base64UUID.UUIDToBase64String(uuid);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Base64UUID.UUIDToBase64String(uuid);
+    }
+
+    @Benchmark
+    public UUID decode() {
+        return Base64UUID.Base64StringToUUID(encoded);
+    }
+}
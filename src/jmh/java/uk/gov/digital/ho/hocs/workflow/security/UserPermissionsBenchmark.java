@@ -0,0 +1,94 @@
+package uk.gov.digital.ho.hocs.workflow.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.MDC;
+import uk.gov.digital.ho.hocs.workflow.application.RequestData;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.InfoClient;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.PermissionDto;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The security work done for one request to an @Authorised, @Allocated endpoint: the authorisation aspect's
+ * access level check plus the allocation aspect's admin and team checks. Compares decoding X-Auth-Groups on every
+ * call with sharing one decode through the request's UserSecurityContext.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPermissionsBenchmark {
+
+    private static final String[] CASE_TYPES = {"MIN", "TRO", "DTEN", "WCS", "MPAM", "DCU_MIN"};
+
+    @Param({"20", "200", "500"})
+    private int groupCount;
+
+    private UserPermissionsService userPermissionsService;
+    private UserSecurityContext userSecurityContext;
+
+    @Setup
+    public void setup() {
+        Set<TeamDto> teams = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            String caseType = CASE_TYPES[i % CASE_TYPES.length];
+            teams.add(new TeamDto("Team " + i, UUID.randomUUID(), true,
+                    Set.of(new PermissionDto(caseType, AccessLevel.READ), new PermissionDto(caseType, AccessLevel.OWNER))));
+        }
+        InfoClient infoClient = new InfoClient(null, null, null) {
+            @Override
+            public Set<TeamDto> refreshTeams() {
+                return teams;
+            }
+        };
+
+        String groups = teams.stream()
+                .limit(groupCount)
+                .map(team -> "/" + Base64UUID.UUIDToBase64String(team.getUuid()))
+                .collect(Collectors.joining(","));
+        MDC.put(RequestData.GROUP_HEADER, groups);
+        MDC.put(RequestData.USER_ID_HEADER, UUID.randomUUID().toString());
+
+        userSecurityContext = new UserSecurityContext();
+        userPermissionsService = new UserPermissionsService(new RequestData(), new TeamPermissionIndex(infoClient), userSecurityContext);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Benchmark
+    public void decodePerCall(Blackhole blackhole) {
+        securityChecks(blackhole);
+    }
+
+    @Benchmark
+    public void sharedRequestContext(Blackhole blackhole) {
+        userSecurityContext.preHandle(null, null, null);
+        try {
+            securityChecks(blackhole);
+        } finally {
+            userSecurityContext.afterCompletion(null, null, null, null);
+        }
+    }
+
+    @Benchmark
+    public Set<PermissionDto> getUserPermission() {
+        return userPermissionsService.getUserPermission();
+    }
+
+    private void securityChecks(Blackhole blackhole) {
+        blackhole.consume(userPermissionsService.getMaxAccessLevel("MIN"));
+        blackhole.consume(userPermissionsService.getCaseTypesIfUserTeamIsCaseTypeAdmin());
+        blackhole.consume(userPermissionsService.getUserTeams());
+    }
+}
@@ -0,0 +1,44 @@
+package uk.gov.digital.ho.hocs.workflow;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.camunda.bpm.engine.impl.context.BpmnExecutionContext;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.workflow.application.IdempotencyKey;
+
+/**
+ * Gives each BpmnService call made by the engine an idempotency scope built from the business key, process instance,
+ * activity and method. None of these change when the engine runs the activity again, whether a failed job is retried
+ * or a rolled back command is replayed, so the retry sends the same keys. Calls made outside the engine get no scope.
+ */
+@Aspect
+@Component
+public class BpmnIdempotencyAspect {
+
+    @Around("execution(public * uk.gov.digital.ho.hocs.workflow.BpmnService.*(..))")
+    public Object withIdempotencyScope(ProceedingJoinPoint joinPoint) throws Throwable {
+        String scope = scope(joinPoint.getSignature().getName());
+        if (scope == null) {
+            return joinPoint.proceed();
+        }
+        String previous = IdempotencyKey.enter(scope);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            IdempotencyKey.restore(previous);
+        }
+    }
+
+    static String scope(String operation) {
+        BpmnExecutionContext executionContext = Context.getBpmnExecutionContext();
+        if (executionContext == null || executionContext.getExecution() == null) {
+            return null;
+        }
+        ExecutionEntity execution = executionContext.getExecution();
+        return String.join("|", String.valueOf(execution.getBusinessKey()), execution.getProcessInstanceId(),
+                execution.getActivityId(), operation);
+    }
+}
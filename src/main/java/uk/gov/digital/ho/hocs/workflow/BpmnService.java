@@ -26,14 +26,17 @@ public class BpmnService {
     private final CaseworkClient caseworkClient;
     private final CamundaClient camundaClient;
     private final InfoClient infoClient;
+    private final CaseDataWriteBuffer caseDataWriteBuffer;
 
     @Autowired
     public BpmnService(CaseworkClient caseworkClient,
                        CamundaClient camundaClient,
-                       InfoClient infoClient) {
+                       InfoClient infoClient,
+                       CaseDataWriteBuffer caseDataWriteBuffer) {
         this.caseworkClient = caseworkClient;
         this.camundaClient = camundaClient;
         this.infoClient = infoClient;
+        this.caseDataWriteBuffer = caseDataWriteBuffer;
     }
 
     public String createStage(String caseUUIDString, String stageUUIDString, String stageTypeString, String allocationType, String allocationTeamString) {
@@ -54,6 +57,7 @@ public class BpmnService {
         }
 
         String resultStageUUID;
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         if (StringUtils.hasText(stageUUIDString)) {
             log.debug("Stage {} already exists for case {}, recreating stage {}", stageTypeString, caseUUIDString, stageUUIDString);
             recreateStage(caseUUIDString, stageUUIDString, stageTypeString, allocationType, teamUUID, userUUID);
@@ -69,21 +73,25 @@ public class BpmnService {
     }
 
     public void completeStage(String caseUUIDString, String stageUUIDString) {
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         caseworkClient.updateStageTeam(UUID.fromString(caseUUIDString), UUID.fromString(stageUUIDString), null, null);
         log.info("Completed Stage {} for Case {}", stageUUIDString, caseUUIDString);
     }
 
     public void completeCase(String caseUUIDString) {
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         caseworkClient.completeCase(UUID.fromString(caseUUIDString), true);
         log.info("Completed Case {}", caseUUIDString);
     }
 
     public void calculateTotals(String caseUUIDString, String stageUUIDString, String listName) {
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         caseworkClient.calculateTotals(UUID.fromString(caseUUIDString), UUID.fromString(stageUUIDString), listName);
         log.info("Calculated totals WCS for Case {}", caseUUIDString);
     }
 
     public void updateDeadline(String caseUUIDString, String stageUUIDString, String dateReceived) {
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         caseworkClient.updateDateReceived(UUID.fromString(caseUUIDString), UUID.fromString(stageUUIDString), LocalDate.parse(dateReceived));
     }
 
@@ -91,6 +99,7 @@ public class BpmnService {
         UUID caseUUID = UUID.fromString(caseUUIDString);
         UUID stageUUID = UUID.fromString(stageUUIDString);
         int days = Integer.parseInt(daysString);
+        caseDataWriteBuffer.flush(caseUUID);
         caseworkClient.updateDeadlineDays(caseUUID, stageUUID, days);
     }
 
@@ -98,6 +107,7 @@ public class BpmnService {
         UUID caseUUID = UUID.fromString(caseUUIDString);
         UUID stageUUID = UUID.fromString(stageUUIDString);
         int days = Integer.parseInt(daysString);
+        caseDataWriteBuffer.flush(caseUUID);
         caseworkClient.updateStageDeadline(caseUUID, stageUUID, stageType, days);
     }
 
@@ -111,10 +121,12 @@ public class BpmnService {
                 Map.Entry::getKey, entry -> Integer.parseInt(entry.getValue())
                 )
         );
+        caseDataWriteBuffer.flush(caseUUID);
         caseworkClient.updateDeadlineForStages(caseUUID, stageUUID, convertedStageTypeAndDaysMap);
     }
 
     public void updatePrimaryCorrespondent(String caseUUIDString, String stageUUIDString, String correspondentUUIDString) {
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         caseworkClient.updatePrimaryCorrespondent(UUID.fromString(caseUUIDString), UUID.fromString(stageUUIDString), UUID.fromString(correspondentUUIDString));
         log.info("Updated Primary Correspondent for Case {}", caseUUIDString);
     }
@@ -123,6 +135,7 @@ public class BpmnService {
         log.info("Checking Correspondents for Case {}", caseUUIDString);
         boolean memberPresent = false;
 
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         GetCorrespondentsResponse correspondents = caseworkClient.getCorrespondentsForCase(UUID.fromString(caseUUIDString));
 
         if (correspondents != null) {
@@ -144,6 +157,7 @@ public class BpmnService {
         UUID stageUUID = UUID.fromString(stageUUIDString);
         UUID topicUUID = UUID.fromString(topicUUIDString);
 
+        caseDataWriteBuffer.flush(caseUUID);
         caseworkClient.updatePrimaryTopic(caseUUID, stageUUID, topicUUID);
     }
 
@@ -161,7 +175,7 @@ public class BpmnService {
             log.warn("Avoiding assigning orphaned team {}", teamDto.getDisplayName());
         }
         camundaClient.updateTask(stageUUID, teamsForTopic);
-        caseworkClient.updateCase(caseUUID, stageUUID, teamsForTopic);
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, teamsForTopic);
 
         log.debug("######## Updated Primary Topic ########");
     }
@@ -177,7 +191,7 @@ public class BpmnService {
         teamsForTopic.put("DraftingTeamName", draftingTeam.getDisplayName());
 
         camundaClient.updateTask(stageUUID, teamsForTopic);
-        caseworkClient.updateCase(caseUUID, stageUUID, teamsForTopic);
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, teamsForTopic);
     }
 
     public void updateTeamSelection(String caseUUIDString, String stageUUIDString, String draftingUUIDString, String privateOfficeUUIDString) {
@@ -220,7 +234,7 @@ public class BpmnService {
 
         if (!teamsForTopic.isEmpty()) {
             camundaClient.updateTask(stageUUID, teamsForTopic);
-            caseworkClient.updateCase(caseUUID, stageUUID, teamsForTopic);
+            caseDataWriteBuffer.updateCase(caseUUID, stageUUID, teamsForTopic);
         }
 
         log.debug("######## Updated Team Selection ########");
@@ -241,7 +255,7 @@ public class BpmnService {
 
         if (!teamsForTopic.isEmpty()) {
             camundaClient.updateTask(stageUUID, teamsForTopic);
-            caseworkClient.updateCase(caseUUID, stageUUID, teamsForTopic);
+            caseDataWriteBuffer.updateCase(caseUUID, stageUUID, teamsForTopic);
         }
 
         log.debug("######## Updated Team Selection at PO ########");
@@ -251,9 +265,10 @@ public class BpmnService {
         UUID caseUUID = UUID.fromString(caseUUIDString);
         UUID stageUUID = UUID.fromString(stageUUIDString);
 
+        caseDataWriteBuffer.flush(caseUUID);
         Map<String, String> teamForText = caseworkClient.updateTeamByStageAndTexts(caseUUID, stageUUID, stageType, teamUUIDKey, teamNameKey, texts);
         camundaClient.updateTask(stageUUID, teamForText);
-        caseworkClient.updateCase(caseUUID, stageUUID, teamForText);
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, teamForText);
 
         log.debug("######## Updated Team For Stage And Text ########");
     }
@@ -265,7 +280,7 @@ public class BpmnService {
 
         if (!CollectionUtils.isEmpty(data)) {
             camundaClient.updateTask(stageUUID, data);
-            caseworkClient.updateCase(caseUUID, stageUUID, data);
+            caseDataWriteBuffer.updateCase(caseUUID, stageUUID, data);
         }
     }
 
@@ -276,12 +291,12 @@ public class BpmnService {
         Map<String, String> data = parseArgPairs(argPairs);
 
         if (!CollectionUtils.isEmpty(data)) {
-            caseworkClient.updateCase(caseUUID, stageUUID, data);
+            caseDataWriteBuffer.updateCase(caseUUID, stageUUID, data);
         }
 
     }
 
-    private Map<String, String> parseArgPairs(String... argPairs) {
+    Map<String, String> parseArgPairs(String... argPairs) {
         if (argPairs.length % 2 == 1) {
             throw new ApplicationExceptions.InvalidMethodArgumentException("Even number of arguments expected");
         }
@@ -306,18 +321,20 @@ public class BpmnService {
             log.info("Update {} keys to blank value", Arrays.toString(keys));
             Map<String, String> data = Arrays.stream(keys)
                     .collect(Collectors.toMap(p -> p, p -> ""));
-            caseworkClient.updateCase(caseUUID, stageUUID, data);
+            caseDataWriteBuffer.updateCase(caseUUID, stageUUID, data);
         }
     }
 
     public void updateAllocationNote(String caseUUIDString, String stageUUIDString, String allocationNote, String allocationNoteType) {
         log.debug("######## Save Allocation Note ########");
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         caseworkClient.createCaseNote(UUID.fromString(caseUUIDString), allocationNoteType, allocationNote);
         log.info("Adding Casenote to Case: {}", caseUUIDString);
     }
 
     public void createCaseNote(String caseUUIDString, String caseNote, String caseNoteType) {
         log.debug("######## Create Case Note ########");
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         caseworkClient.createCaseNote(UUID.fromString(caseUUIDString), caseNoteType, caseNote);
         log.info("Adding new Case note to Case: {}", caseUUIDString);
     }
@@ -325,6 +342,7 @@ public class BpmnService {
     public void createCaseConversionNote(String caseUUIDString, String stageUUIDString, String caseConversionNote) {
         log.debug("######## Create Case Conversion Note ########");
         String caseChangeNoteType = null;
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUIDString));
         String dataValueCaseRefType = caseworkClient.getDataValue(caseUUIDString, "RefType");
 
         if (!dataValueCaseRefType.isEmpty()) {
@@ -382,6 +400,7 @@ public class BpmnService {
 
     public void updateCount(String caseUUID, String variableName, int additive) {
 
+        caseDataWriteBuffer.flush(UUID.fromString(caseUUID));
         String dataValue = caseworkClient.getDataValue(caseUUID, variableName);
 
         int updatedValue;
@@ -399,6 +418,7 @@ public class BpmnService {
         UUID caseUUID = UUID.fromString(caseUUIDString);
         UUID stageUUID = UUID.fromString(stageUUIDString);
 
+        caseDataWriteBuffer.flush(caseUUID);
         caseworkClient.updateStageUser(caseUUID, stageUUID, null);
     }
 
@@ -0,0 +1,132 @@
+package uk.gov.digital.ho.hocs.workflow;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.workflow.application.IdempotencyKey;
+import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.CaseworkClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Collects the case data written by BPMN service tasks during one Camunda command and sends it to the casework
+ * service just before the transaction commits. Each case keeps its writes in the order they were made; consecutive
+ * writes to the same stage from the same idempotency scope are merged into one update. Each update is sent in the
+ * scope it was buffered in, so it carries the Idempotency-Key of the activity that made it wherever it is flushed.
+ * Outside a Camunda command every update is written straight through.
+ */
+@Slf4j
+@Component
+public class CaseDataWriteBuffer {
+
+    private static final ThreadLocal<Map<UUID, Deque<PendingWrite>>> PENDING = new ThreadLocal<>();
+
+    private final CaseworkClient caseworkClient;
+
+    @Autowired
+    public CaseDataWriteBuffer(CaseworkClient caseworkClient) {
+        this.caseworkClient = caseworkClient;
+    }
+
+    public void updateCase(UUID caseUUID, UUID stageUUID, Map<String, String> data) {
+        Map<UUID, Deque<PendingWrite>> pending = pendingWrites();
+        if (pending == null) {
+            caseworkClient.updateCase(caseUUID, stageUUID, data);
+            return;
+        }
+        String scope = IdempotencyKey.current();
+        Deque<PendingWrite> writes = pending.computeIfAbsent(caseUUID, k -> new ArrayDeque<>());
+        PendingWrite last = writes.peekLast();
+        if (last != null && last.stageUUID.equals(stageUUID) && Objects.equals(last.scope, scope)) {
+            last.data.putAll(data);
+        } else {
+            writes.addLast(new PendingWrite(stageUUID, scope, new LinkedHashMap<>(data)));
+        }
+        log.debug("Buffered {} case data values for Case {}", data.size(), caseUUID);
+    }
+
+    /**
+     * Writes anything buffered so far for the case, in the order it was buffered. Called before every casework call
+     * for the case that does not itself go through this buffer, so the casework service sees the writes in the order
+     * the process made them.
+     */
+    public void flush(UUID caseUUID) {
+        Map<UUID, Deque<PendingWrite>> pending = PENDING.get();
+        if (pending == null) {
+            return;
+        }
+        write(caseUUID, pending.remove(caseUUID));
+    }
+
+    /**
+     * Writes everything buffered so far, case by case.
+     */
+    public void flush() {
+        Map<UUID, Deque<PendingWrite>> pending = PENDING.get();
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<UUID, Deque<PendingWrite>>> cases = new ArrayList<>(pending.entrySet());
+        pending.clear();
+        for (Map.Entry<UUID, Deque<PendingWrite>> writes : cases) {
+            write(writes.getKey(), writes.getValue());
+        }
+    }
+
+    private void write(UUID caseUUID, Deque<PendingWrite> writes) {
+        if (writes == null) {
+            return;
+        }
+        for (PendingWrite write : writes) {
+            if (write.data.isEmpty()) {
+                continue;
+            }
+            String previous = IdempotencyKey.enter(write.scope);
+            try {
+                caseworkClient.updateCase(caseUUID, write.stageUUID, write.data);
+            } finally {
+                IdempotencyKey.restore(previous);
+            }
+        }
+    }
+
+    private Map<UUID, Deque<PendingWrite>> pendingWrites() {
+        Map<UUID, Deque<PendingWrite>> pending = PENDING.get();
+        if (pending != null) {
+            return pending;
+        }
+        CommandContext commandContext = Context.getCommandContext();
+        if (commandContext == null) {
+            return null;
+        }
+        pending = new LinkedHashMap<>();
+        PENDING.set(pending);
+        commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTING, context -> {
+            try {
+                flush();
+            } finally {
+                PENDING.remove();
+            }
+        });
+        commandContext.getTransactionContext().addTransactionListener(TransactionState.ROLLED_BACK, context -> PENDING.remove());
+        return pending;
+    }
+
+    @AllArgsConstructor
+    private static class PendingWrite {
+        private final UUID stageUUID;
+        private final String scope;
+        private final Map<String, String> data;
+    }
+}
@@ -3,13 +3,11 @@ package uk.gov.digital.ho.hocs.workflow;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
 @EnableScheduling
-@EnableRetry
 public class HocsWorkflowApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,67 @@
+package uk.gov.digital.ho.hocs.workflow.api;
+
+import lombok.Getter;
+import uk.gov.digital.ho.hocs.workflow.api.dto.BulkCaseResult;
+import uk.gov.digital.ho.hocs.workflow.api.dto.DocumentSummary;
+import uk.gov.digital.ho.hocs.workflow.api.dto.GetBulkCaseJobResponse;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Progress of one bulk case creation. Results are kept in the order the cases finished, so a client can poll with
+ * the number of results it has already seen and only receive the new ones.
+ */
+@Getter
+class BulkCaseJob {
+
+    private final UUID id;
+
+    private final UUID userUUID;
+
+    private final String instanceId;
+
+    private final int total;
+
+    private final List<BulkCaseResult> results = new CopyOnWriteArrayList<>();
+
+    private volatile boolean complete;
+
+    BulkCaseJob(UUID id, UUID userUUID, String instanceId, int total) {
+        this.id = id;
+        this.userUUID = userUUID;
+        this.instanceId = instanceId;
+        this.total = total;
+    }
+
+    void created(int index, DocumentSummary document, PreparedCase preparedCase) {
+        results.add(new BulkCaseResult(index, document.getDisplayName(), BulkCaseResult.CREATED,
+                preparedCase.getCaseUUID(), preparedCase.getReference(), null));
+    }
+
+    void failed(int index, DocumentSummary document, PreparedCase preparedCase, Throwable cause) {
+        results.add(new BulkCaseResult(index, document.getDisplayName(), BulkCaseResult.FAILED,
+                preparedCase != null ? preparedCase.getCaseUUID() : null,
+                preparedCase != null ? preparedCase.getReference() : null,
+                cause.getMessage()));
+    }
+
+    void complete() {
+        complete = true;
+    }
+
+    GetBulkCaseJobResponse toResponse(int from) {
+        boolean done = complete;
+        List<BulkCaseResult> snapshot = List.copyOf(results);
+        long failed = snapshot.stream().filter(result -> BulkCaseResult.FAILED.equals(result.getStatus())).count();
+        List<BulkCaseResult> page = snapshot.subList(Math.min(Math.max(from, 0), snapshot.size()), snapshot.size());
+        return new GetBulkCaseJobResponse(id,
+                instanceId,
+                done ? GetBulkCaseJobResponse.COMPLETE : GetBulkCaseJobResponse.RUNNING,
+                total,
+                snapshot.size() - (int) failed,
+                (int) failed,
+                page);
+    }
+}
@@ -0,0 +1,122 @@
+package uk.gov.digital.ho.hocs.workflow.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.digital.ho.hocs.workflow.api.dto.CreateBulkCaseJobResponse;
+import uk.gov.digital.ho.hocs.workflow.api.dto.DocumentSummary;
+import uk.gov.digital.ho.hocs.workflow.api.dto.GetBulkCaseJobResponse;
+import uk.gov.digital.ho.hocs.workflow.client.camundaclient.CamundaClient;
+import uk.gov.digital.ho.hocs.workflow.domain.exception.ApplicationExceptions;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * Creates one case per document in the background. Cases are created in the casework service and given their
+ * documents concurrently on the bulk case pool, which bounds how many are in flight, and each workflow is started in
+ * its own engine transaction as soon as its case is ready. Starting a workflow also creates stages in the casework
+ * service, which an engine rollback cannot undo, so cases are never started together or retried.
+ * <p>
+ * Jobs are held in memory by the instance that created them ({@code workflow.instance-id}) and are only visible there,
+ * so polls for a job must be routed to that instance. The owning instance is returned with the job.
+ */
+@Service
+@Slf4j
+public class BulkCaseService {
+
+    private final WorkflowService workflowService;
+    private final CamundaClient camundaClient;
+    private final Executor bulkCaseExecutor;
+    private final String instanceId;
+    private final Cache<UUID, BulkCaseJob> jobs;
+
+    @Autowired
+    public BulkCaseService(WorkflowService workflowService,
+                           CamundaClient camundaClient,
+                           @Qualifier("bulkCaseExecutor") Executor bulkCaseExecutor,
+                           @Value("${workflow.instance-id}") String instanceId,
+                           @Value("${workflow.bulk-case.job-retention:3600000}") long jobRetention) {
+        this.workflowService = workflowService;
+        this.camundaClient = camundaClient;
+        this.bulkCaseExecutor = bulkCaseExecutor;
+        this.instanceId = instanceId;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(jobRetention, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public CreateBulkCaseJobResponse createCases(String caseDataType, LocalDate dateReceived, List<DocumentSummary> documents, UUID userUUID) {
+        BulkCaseJob job = new BulkCaseJob(UUID.randomUUID(), userUUID, instanceId, documents.size());
+        jobs.put(job.getId(), job);
+        log.info("Creating {} {} cases as job {}", documents.size(), caseDataType, job.getId(), value(EVENT, BULK_CASE_JOB_STARTED));
+
+        List<CompletableFuture<Void>> items = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            int index = i;
+            DocumentSummary document = documents.get(i);
+            CompletableFuture<Void> item;
+            try {
+                item = CompletableFuture
+                        .supplyAsync(() -> workflowService.prepareCase(caseDataType, dateReceived, List.of(document), userUUID), bulkCaseExecutor)
+                        .handle((preparedCase, e) -> {
+                            if (e != null) {
+                                job.failed(index, document, null, unwrap(e));
+                            } else {
+                                start(job, caseDataType, index, document, preparedCase);
+                            }
+                            return null;
+                        });
+            } catch (RejectedExecutionException e) {
+                job.failed(index, document, null, e);
+                item = CompletableFuture.completedFuture(null);
+            }
+            items.add(item);
+        }
+
+        CompletableFuture.allOf(items.toArray(new CompletableFuture[0])).whenComplete((result, e) -> {
+            job.complete();
+            GetBulkCaseJobResponse summary = job.toResponse(job.getTotal());
+            log.info("Bulk case job {} created {} cases, {} failed", job.getId(), summary.getCreated(), summary.getFailed(),
+                    value(EVENT, BULK_CASE_JOB_COMPLETE));
+        });
+        return new CreateBulkCaseJobResponse(job.getId(), documents.size(), instanceId);
+    }
+
+    public GetBulkCaseJobResponse getJob(UUID jobId, int from, UUID userUUID) {
+        BulkCaseJob job = jobs.getIfPresent(jobId);
+        if (job == null || !job.getUserUUID().equals(userUUID)) {
+            throw new ApplicationExceptions.EntityNotFoundException("Bulk case job %s not found on instance %s", CASE_NOT_FOUND, jobId, instanceId);
+        }
+        return job.toResponse(from);
+    }
+
+    private void start(BulkCaseJob job, String caseDataType, int index, DocumentSummary document, PreparedCase preparedCase) {
+        try {
+            camundaClient.startCase(preparedCase.getCaseUUID(), caseDataType, preparedCase.getSeedData());
+            job.created(index, document, preparedCase);
+        } catch (RuntimeException e) {
+            log.warn("Failed to start case {} in bulk case job {}: {}", preparedCase.getCaseUUID(), job.getId(), e.getMessage(),
+                    value(EVENT, BULK_CASE_START_FAILED));
+            job.failed(index, document, preparedCase, e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,21 @@
+package uk.gov.digital.ho.hocs.workflow.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A case created in the casework service whose workflow has not been started yet.
+ */
+@AllArgsConstructor
+@Getter
+class PreparedCase {
+
+    private final UUID caseUUID;
+
+    private final String reference;
+
+    private final Map<String, String> seedData;
+}
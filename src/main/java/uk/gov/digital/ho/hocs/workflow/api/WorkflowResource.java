@@ -24,9 +24,12 @@ class WorkflowResource {
 
     private WorkflowService workflowService;
 
+    private BulkCaseService bulkCaseService;
+
     @Autowired
-    public WorkflowResource(WorkflowService workflowService) {
+    public WorkflowResource(WorkflowService workflowService, BulkCaseService bulkCaseService) {
         this.workflowService = workflowService;
+        this.bulkCaseService = bulkCaseService;
     }
 
     @Authorised(accessLevel = AccessLevel.OWNER)
@@ -44,6 +47,18 @@ class WorkflowResource {
         return ResponseEntity.ok(new CreateBulkCaseResponse(list.size()));
     }
 
+    @Authorised(accessLevel = AccessLevel.OWNER)
+    @PostMapping(value = "/case/bulk/job", consumes = APPLICATION_JSON_UTF8_VALUE, produces = APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<CreateBulkCaseJobResponse> createCaseBulkJob(@RequestBody CreateCaseRequest request, @RequestHeader(RequestData.USER_ID_HEADER) UUID userUUID) {
+        CreateBulkCaseJobResponse response = bulkCaseService.createCases(request.getType(), request.getDateReceived(), request.getDocuments(), userUUID);
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @GetMapping(value = "/case/bulk/job/{jobId}", produces = APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<GetBulkCaseJobResponse> getCaseBulkJob(@PathVariable UUID jobId, @RequestParam(value = "from", defaultValue = "0") int from, @RequestHeader(RequestData.USER_ID_HEADER) UUID userUUID) {
+        return ResponseEntity.ok(bulkCaseService.getJob(jobId, from, userUUID));
+    }
+
     @Allocated(allocatedTo = AllocationLevel.USER)
     @PostMapping(value = "/case/{caseUUID}/stage/{stageUUID}", produces = APPLICATION_JSON_UTF8_VALUE)
     public ResponseEntity<GetStageResponse> updateStageForward(@PathVariable UUID caseUUID, @PathVariable UUID stageUUID, @RequestBody AddCaseDataRequest request, @RequestHeader(RequestData.USER_ID_HEADER) UUID userUUID) {
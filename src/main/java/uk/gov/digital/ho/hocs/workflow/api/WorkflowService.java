@@ -1,12 +1,14 @@
 package uk.gov.digital.ho.hocs.workflow.api;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
 import uk.gov.digital.ho.hocs.workflow.api.dto.*;
 import uk.gov.digital.ho.hocs.workflow.client.camundaclient.CamundaClient;
+import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.AsyncCaseworkClient;
 import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.CaseworkClient;
 import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.dto.CreateCaseworkCaseResponse;
 import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.dto.GetAllStagesForCaseResponse;
@@ -22,6 +24,12 @@ import uk.gov.digital.ho.hocs.workflow.util.UuidUtils;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.toList;
@@ -34,9 +42,12 @@ import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.EVENT;
 public class WorkflowService {
 
     private final CaseworkClient caseworkClient;
+    private final AsyncCaseworkClient asyncCaseworkClient;
     private final DocumentClient documentClient;
     private final InfoClient infoClient;
     private final CamundaClient camundaClient;
+    private final Executor caseViewExecutor;
+    private final MeterRegistry meterRegistry;
 
     private static final String COMPONENT_ENTITY_LIST = "entity-list";
     private static final String COMPONENT_DROPDOWN = "dropdown";
@@ -48,18 +59,44 @@ public class WorkflowService {
 
     private static final String DOCUMENT_NOT_FOUND = "Document not found";
 
+    private static final String VIEW_ALL_STAGES = "all-stages";
+    private static final String VIEW_READ_ONLY = "read-only";
+    private static final String PHASE_CASE = "case";
+    private static final String PHASE_CASE_STAGES = "case-stages";
+    private static final String PHASE_FIELDS = "fields";
+    private static final String PHASE_SCHEMAS = "schemas";
+    private static final String PHASE_LOOKUPS = "lookups";
+
     @Autowired
     public WorkflowService(CaseworkClient caseworkClient,
+                           AsyncCaseworkClient asyncCaseworkClient,
                            DocumentClient documentClient,
                            InfoClient infoClient,
-                           CamundaClient camundaClient) {
+                           CamundaClient camundaClient,
+                           @Qualifier("caseViewExecutor") Executor caseViewExecutor,
+                           MeterRegistry meterRegistry) {
         this.caseworkClient = caseworkClient;
+        this.asyncCaseworkClient = asyncCaseworkClient;
         this.documentClient = documentClient;
         this.infoClient = infoClient;
         this.camundaClient = camundaClient;
+        this.caseViewExecutor = caseViewExecutor;
+        this.meterRegistry = meterRegistry;
     }
 
     public CreateCaseResponse createCase(String caseDataType, LocalDate dateReceived, List<DocumentSummary> documents, UUID userUUID) {
+        PreparedCase preparedCase = prepareCase(caseDataType, dateReceived, documents, userUUID);
+
+        // Start a new camunda workflow (caseUUID is the business key).
+        camundaClient.startCase(preparedCase.getCaseUUID(), caseDataType, preparedCase.getSeedData());
+
+        return new CreateCaseResponse(preparedCase.getCaseUUID(), preparedCase.getReference());
+    }
+
+    /**
+     * Creates the case in the casework service and adds its documents, returning what is needed to start its workflow.
+     */
+    PreparedCase prepareCase(String caseDataType, LocalDate dateReceived, List<DocumentSummary> documents, UUID userUUID) {
         // Create a case in the casework service in order to get a reference back to display to the user.
         Map<String, String> data = new HashMap<>();
         data.put(WorkflowConstants.DATE_RECEIVED, dateReceived.toString());
@@ -67,22 +104,18 @@ public class WorkflowService {
         CreateCaseworkCaseResponse caseResponse = caseworkClient.createCase(caseDataType, data, dateReceived);
         UUID caseUUID = caseResponse.getUuid();
 
-        if (caseUUID != null) {
-
-            // Add Documents to the case
-            createDocument(caseUUID, documents);
-
-            // Start a new camunda workflow (caseUUID is the business key).
-            Map<String, String> seedData = new HashMap<>();
-            seedData.put(WorkflowConstants.CASE_REFERENCE, caseResponse.getReference());
-            seedData.putAll(data);
-            camundaClient.startCase(caseUUID, caseDataType, seedData);
-
-        } else {
+        if (caseUUID == null) {
             log.error("Failed to start case, invalid caseUUID!, event: {}", value(EVENT, CASE_STARTED_FAILURE));
             throw new ApplicationExceptions.EntityCreationException("Failed to start case, invalid caseUUID!", CASE_STARTED_FAILURE);
         }
-        return new CreateCaseResponse(caseUUID, caseResponse.getReference());
+
+        // Add Documents to the case
+        createDocument(caseUUID, documents);
+
+        Map<String, String> seedData = new HashMap<>();
+        seedData.put(WorkflowConstants.CASE_REFERENCE, caseResponse.getReference());
+        seedData.putAll(data);
+        return new PreparedCase(caseUUID, caseResponse.getReference(), seedData);
     }
 
     public void createDocument(UUID caseUUID, List<DocumentSummary> documents) {
@@ -115,16 +148,16 @@ public class WorkflowService {
 
     public GetCaseResponse getAllCaseStages(UUID caseUUID) {
 
-        GetCaseworkCaseDataResponse inputResponse = caseworkClient.getFullCase(caseUUID);
+        CompletableFuture<GetCaseworkCaseDataResponse> caseFuture = timedAsync(VIEW_ALL_STAGES, PHASE_CASE,
+                () -> asyncCaseworkClient.getFullCase(caseUUID));
+        CompletableFuture<String> caseStagesFuture = timedAsync(VIEW_ALL_STAGES, PHASE_CASE_STAGES,
+                () -> asyncCaseworkClient.getAllStagesForCase(caseUUID)).thenApply(WorkflowService::toCaseStages);
 
-        GetAllStagesForCaseResponse allStagesForCase = caseworkClient.getAllStagesForCase(caseUUID);
+        GetCaseworkCaseDataResponse inputResponse = join(caseFuture);
+        String caseStages = join(caseStagesFuture);
 
-        String caseStages = allStagesForCase.getStages()
-                .stream()
-                .map(s -> s.getType())
-                .collect(Collectors.joining(","));
-
-        List<SchemaDto> schemaDtos = infoClient.getSchemasForCaseTypeAndStages(inputResponse.getType(), caseStages);
+        List<SchemaDto> schemaDtos = timed(VIEW_ALL_STAGES, PHASE_SCHEMAS,
+                () -> infoClient.getSchemasForCaseTypeAndStages(inputResponse.getType(), caseStages));
 
 
         Map<String, List<SchemaDto>> stageSchemas = schemaDtos
@@ -145,85 +178,157 @@ public class WorkflowService {
 
         HocsCaseSchema schema = new HocsCaseSchema("View Case", hocsFields);
 
-        Map<String, String> dataMap = convertDataToSchema(schemaDtos, inputResponse.getData());
+        Map<String, String> dataMap = timed(VIEW_ALL_STAGES, PHASE_LOOKUPS, () -> convertDataToSchema(schemaDtos, inputResponse.getData()));
 
         return new GetCaseResponse(inputResponse.getReference(), schema, dataMap);
     }
 
     public GetCaseDetailsResponse getReadOnlyCaseDetails(UUID caseUUID) {
-        GetCaseworkCaseDataResponse inputResponse = caseworkClient.getFullCase(caseUUID);
+        CompletableFuture<GetCaseworkCaseDataResponse> caseFuture = timedAsync(VIEW_READ_ONLY, PHASE_CASE,
+                () -> asyncCaseworkClient.getFullCase(caseUUID));
+        CompletableFuture<String> caseStagesFuture = timedAsync(VIEW_READ_ONLY, PHASE_CASE_STAGES,
+                () -> asyncCaseworkClient.getAllStagesForCase(caseUUID)).thenApply(WorkflowService::toCaseStages);
 
-        List<CaseDetailsFieldDto> fields = infoClient.getCaseDetailsFieldsByCaseType(inputResponse.getType());
-        List<HocsFormField> hocsFields = fields.stream().map(HocsFormField::from).collect(toList());
-        List<HocsFormField> fieldsToAdd = HocsFormAccordion.loadFormAccordions(hocsFields);
+        GetCaseworkCaseDataResponse inputResponse = join(caseFuture);
 
-        GetAllStagesForCaseResponse allStagesForCase = caseworkClient.getAllStagesForCase(caseUUID);
+        CompletableFuture<List<CaseDetailsFieldDto>> fieldsFuture = supplyAsync(
+                () -> timed(VIEW_READ_ONLY, PHASE_FIELDS, () -> infoClient.getCaseDetailsFieldsByCaseType(inputResponse.getType())));
+        CompletableFuture<List<SchemaDto>> schemasFuture = caseStagesFuture.thenApplyAsync(
+                caseStages -> timed(VIEW_READ_ONLY, PHASE_SCHEMAS, () -> infoClient.getSchemasForCaseTypeAndStages(inputResponse.getType(), caseStages)),
+                caseViewExecutor);
 
-        String caseStages = allStagesForCase.getStages()
-                .stream()
-                .map(s -> s.getType())
-                .collect(Collectors.joining(","));
+        List<SchemaDto> schemaDtos = join(schemasFuture);
+        List<CaseDetailsFieldDto> fields = join(fieldsFuture);
 
-        List<SchemaDto> schemaDtos = infoClient.getSchemasForCaseTypeAndStages(inputResponse.getType(), caseStages);
+        List<HocsFormField> hocsFields = fields.stream().map(HocsFormField::from).collect(toList());
+        List<HocsFormField> fieldsToAdd = HocsFormAccordion.loadFormAccordions(hocsFields);
 
         HocsSchema hocsSchema = new HocsSchema(inputResponse.getReference(), null, fieldsToAdd, null, null);
 
-        Map<String, String> dataMappings = convertDataToSchema(schemaDtos, inputResponse.getData());
+        Map<String, String> dataMappings = timed(VIEW_READ_ONLY, PHASE_LOOKUPS, () -> convertDataToSchema(schemaDtos, inputResponse.getData()));
 
         return new GetCaseDetailsResponse(hocsSchema, dataMappings);
 
     }
 
     public Map<String, String> convertDataToSchema(List<SchemaDto> schemaDtos, Map<String, String> dataMap) {
+        // Collect the UUIDs for each entity type first so every type is resolved with one batched call.
+        Map<String, UUID> teamFields = new LinkedHashMap<>();
+        Map<String, UUID> userFields = new LinkedHashMap<>();
+        Map<String, UUID> documentFields = new LinkedHashMap<>();
         for (SchemaDto schemaDto : schemaDtos) {
             for (FieldDto fieldDto : schemaDto.getFields()) {
                 String keyString = fieldDto.getName();
+                if (teamFields.containsKey(keyString) || userFields.containsKey(keyString) || documentFields.containsKey(keyString)) {
+                    continue;
+                }
                 String uuidString = dataMap.getOrDefault(keyString, null);
                 if (UuidUtils.isUUID(uuidString)) {
-                    if (fieldDto.getComponent().equals(COMPONENT_DROPDOWN)) {
-                        final Object choicesProperty = fieldDto.getProps().getOrDefault(CHOICES_PROPERTY, null);
-                        if (choicesProperty != null) {
-                            String choices = choicesProperty.toString();
-                            if (choices.contains(CONTENT_TYPE_TEAMS)) {
-                                TeamDto teamDto = infoClient.getTeam(UUID.fromString(uuidString));
-                                if (teamDto != null) {
-                                    dataMap.put(keyString, teamDto.getDisplayName());
-                                }
-                            } else if (choices.contains(CONTENT_TYPE_USERS)) {
-                                final UserDto user = infoClient.getUser(UUID.fromString(uuidString));
-                                if (user != null) {
-                                    dataMap.put(keyString, user.displayFormat());
-                                }
-                            }
-                        }
-                    } else if (fieldDto.getComponent().equals(COMPONENT_ENTITY_LIST)) {
-                        final Object entityProperty = fieldDto.getProps().getOrDefault(ENTITY_PROPERTY, null);
-                        if (entityProperty != null) {
-                            if (entityProperty.equals(ENTITY_TYPE_DOCUMENT)) {
-                                dataMap.put(keyString, fetchDocumentName(UUID.fromString(uuidString)));
-                            }
-                        }
+                    Map<String, UUID> fields = fieldsToResolve(fieldDto, teamFields, userFields, documentFields);
+                    if (fields != null) {
+                        fields.put(keyString, UUID.fromString(uuidString));
                     }
                 }
             }
         }
+
+        CompletableFuture<Map<UUID, TeamDto>> teams = resolve(teamFields, infoClient::getTeams);
+        CompletableFuture<Map<UUID, UserDto>> users = resolve(userFields, infoClient::getUsers);
+        CompletableFuture<Map<UUID, String>> documentNames = resolve(documentFields, documentClient::getDocumentNames);
+        join(CompletableFuture.allOf(teams, users, documentNames).exceptionally(e -> null));
+
+        Map<UUID, TeamDto> teamsByUUID = join(teams);
+        Map<UUID, UserDto> usersByUUID = join(users);
+        Map<UUID, String> documentNamesByUUID = join(documentNames);
+        teamFields.forEach((keyString, teamUUID) -> {
+            TeamDto teamDto = teamsByUUID.get(teamUUID);
+            if (teamDto != null) {
+                dataMap.put(keyString, teamDto.getDisplayName());
+            }
+        });
+        userFields.forEach((keyString, userUUID) -> {
+            UserDto user = usersByUUID.get(userUUID);
+            if (user != null) {
+                dataMap.put(keyString, user.displayFormat());
+            }
+        });
+        documentFields.forEach((keyString, documentUUID) -> dataMap.put(keyString, documentNamesByUUID.getOrDefault(documentUUID, DOCUMENT_NOT_FOUND)));
         return dataMap;
     }
 
-    private String fetchDocumentName(UUID documentUUID) {
+    private static Map<String, UUID> fieldsToResolve(FieldDto fieldDto,
+                                                     Map<String, UUID> teamFields,
+                                                     Map<String, UUID> userFields,
+                                                     Map<String, UUID> documentFields) {
+        if (fieldDto.getComponent().equals(COMPONENT_DROPDOWN)) {
+            final Object choicesProperty = fieldDto.getProps().getOrDefault(CHOICES_PROPERTY, null);
+            if (choicesProperty != null) {
+                String choices = choicesProperty.toString();
+                if (choices.contains(CONTENT_TYPE_TEAMS)) {
+                    return teamFields;
+                } else if (choices.contains(CONTENT_TYPE_USERS)) {
+                    return userFields;
+                }
+            }
+        } else if (fieldDto.getComponent().equals(COMPONENT_ENTITY_LIST)) {
+            final Object entityProperty = fieldDto.getProps().getOrDefault(ENTITY_PROPERTY, null);
+            if (entityProperty != null && entityProperty.equals(ENTITY_TYPE_DOCUMENT)) {
+                return documentFields;
+            }
+        }
+        return null;
+    }
 
-        try {
-            return documentClient.getDocumentName(documentUUID);
-        } catch (HttpClientErrorException exception) {
+    private <V> CompletableFuture<Map<UUID, V>> resolve(Map<String, UUID> fields, Function<Set<UUID>, Map<UUID, V>> batchLookup) {
+        if (fields.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        Set<UUID> uuids = new HashSet<>(fields.values());
+        return supplyAsync(() -> batchLookup.apply(uuids));
+    }
 
-            if (HttpStatus.NOT_FOUND.equals(exception.getStatusCode())) {
-                log.warn("Document name not found for document {}", documentUUID);
-                return DOCUMENT_NOT_FOUND;
+    private static String toCaseStages(GetAllStagesForCaseResponse allStagesForCase) {
+        return allStagesForCase.getStages()
+                .stream()
+                .map(s -> s.getType())
+                .collect(Collectors.joining(","));
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, caseViewExecutor);
+    }
+
+    /**
+     * Waits for a lookup and rethrows its failure as it would have been thrown had the call been made inline.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
-            throw exception;
+            throw e;
         }
+    }
 
+    private <T> T timed(String view, String phase, Supplier<T> supplier) {
+        return caseViewTimer(view, phase).record(supplier);
+    }
+
+    private <T> CompletableFuture<T> timedAsync(String view, String phase, Supplier<CompletableFuture<T>> supplier) {
+        Timer timer = caseViewTimer(view, phase);
+        long start = System.nanoTime();
+        return supplier.get().whenComplete((result, error) -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
 
+    private Timer caseViewTimer(String view, String phase) {
+        return Timer.builder("workflow.case.view")
+                .description("Time spent in each phase of building the case view screens")
+                .tag("view", view)
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     private static List<HocsFormField> schemasToFormField(List<SchemaDto> schemaDtos) {
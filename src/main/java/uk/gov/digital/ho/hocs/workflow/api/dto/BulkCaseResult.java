@@ -0,0 +1,36 @@
+package uk.gov.digital.ho.hocs.workflow.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@AllArgsConstructor()
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCaseResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+
+    @JsonProperty("index")
+    private final int index;
+
+    @JsonProperty("displayName")
+    private final String displayName;
+
+    @JsonProperty("status")
+    private final String status;
+
+    @JsonProperty("uuid")
+    private final UUID uuid;
+
+    @JsonProperty("reference")
+    private final String reference;
+
+    @JsonProperty("error")
+    private final String error;
+
+}
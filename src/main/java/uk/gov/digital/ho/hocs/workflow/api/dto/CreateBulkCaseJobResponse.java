@@ -0,0 +1,22 @@
+package uk.gov.digital.ho.hocs.workflow.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@AllArgsConstructor()
+@Getter
+public class CreateBulkCaseJobResponse {
+
+    @JsonProperty("jobId")
+    private final UUID jobId;
+
+    @JsonProperty("count")
+    private final int count;
+
+    @JsonProperty("instance")
+    private final String instance;
+
+}
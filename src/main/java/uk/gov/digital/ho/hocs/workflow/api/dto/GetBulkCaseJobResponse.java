@@ -0,0 +1,38 @@
+package uk.gov.digital.ho.hocs.workflow.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+@AllArgsConstructor()
+@Getter
+public class GetBulkCaseJobResponse {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETE = "COMPLETE";
+
+    @JsonProperty("jobId")
+    private final UUID jobId;
+
+    @JsonProperty("instance")
+    private final String instance;
+
+    @JsonProperty("status")
+    private final String status;
+
+    @JsonProperty("total")
+    private final int total;
+
+    @JsonProperty("created")
+    private final int created;
+
+    @JsonProperty("failed")
+    private final int failed;
+
+    @JsonProperty("results")
+    private final List<BulkCaseResult> results;
+
+}
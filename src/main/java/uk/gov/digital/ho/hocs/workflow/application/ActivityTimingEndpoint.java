@@ -0,0 +1,71 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Lists the activities timed by {@link ActivityTimingParseListener}, slowest first. By default they are ordered by
+ * total time, which shows where submits spend their time; ?orderBy=mean orders them by the time a single run takes.
+ */
+@Component
+@Endpoint(id = "activitytimings")
+public class ActivityTimingEndpoint {
+
+    private final MeterRegistry meterRegistry;
+    private final int defaultLimit;
+
+    @Autowired
+    public ActivityTimingEndpoint(MeterRegistry meterRegistry,
+                                  @Value("${camunda.activity-timing.top:20}") int defaultLimit) {
+        this.meterRegistry = meterRegistry;
+        this.defaultLimit = defaultLimit;
+    }
+
+    @ReadOperation
+    public List<ActivityTiming> slowest(@Nullable Integer limit, @Nullable String orderBy) {
+        Comparator<ActivityTiming> order = "mean".equals(orderBy)
+                ? Comparator.comparingDouble(ActivityTiming::getMeanMillis)
+                : Comparator.comparingDouble(ActivityTiming::getTotalMillis);
+        return meterRegistry.find(ActivityTimingParseListener.METER).timers().stream()
+                .filter(timer -> timer.count() > 0)
+                .map(ActivityTimingEndpoint::toTiming)
+                .sorted(order.reversed())
+                .limit(limit != null ? limit : defaultLimit)
+                .collect(Collectors.toList());
+    }
+
+    private static ActivityTiming toTiming(Timer timer) {
+        return new ActivityTiming(timer.getId().getTag("process"),
+                timer.getId().getTag("activity"),
+                timer.getId().getTag("type"),
+                timer.count(),
+                timer.totalTime(TimeUnit.MILLISECONDS),
+                timer.mean(TimeUnit.MILLISECONDS),
+                timer.max(TimeUnit.MILLISECONDS));
+    }
+
+    @AllArgsConstructor
+    @Getter
+    public static class ActivityTiming {
+        private final String process;
+        private final String activity;
+        private final String type;
+        private final long count;
+        private final double totalMillis;
+        private final double meanMillis;
+        private final double maxMillis;
+    }
+}
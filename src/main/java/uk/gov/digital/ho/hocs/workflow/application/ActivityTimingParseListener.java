@@ -0,0 +1,141 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.ExecutionListener;
+import org.camunda.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.camunda.bpm.engine.impl.pvm.process.ScopeImpl;
+import org.camunda.bpm.engine.impl.util.xml.Element;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every activity that runs without waiting, from its first start listener to its last end listener, as
+ * camunda.activity.duration tagged with the process definition key, activity ID and activity type. User tasks, receive
+ * tasks, catch events, call activities and sub processes are left out, as their time is mostly spent waiting.
+ * {@link ActivityTimingEndpoint} lists the slowest of them.
+ */
+@Component
+public class ActivityTimingParseListener extends AbstractBpmnParseListener {
+
+    static final String METER = "camunda.activity.duration";
+
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Long> started;
+
+    @Autowired
+    public ActivityTimingParseListener(@Value("${camunda.activity-timing.enabled:true}") boolean enabled,
+                                       MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+        this.started = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void parseStartEvent(Element startEventElement, ScopeImpl scope, ActivityImpl startEventActivity) {
+        instrument(startEventElement, startEventActivity);
+    }
+
+    @Override
+    public void parseExclusiveGateway(Element exclusiveGwElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(exclusiveGwElement, activity);
+    }
+
+    @Override
+    public void parseInclusiveGateway(Element inclusiveGwElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(inclusiveGwElement, activity);
+    }
+
+    @Override
+    public void parseScriptTask(Element scriptTaskElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(scriptTaskElement, activity);
+    }
+
+    @Override
+    public void parseServiceTask(Element serviceTaskElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(serviceTaskElement, activity);
+    }
+
+    @Override
+    public void parseBusinessRuleTask(Element businessRuleTaskElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(businessRuleTaskElement, activity);
+    }
+
+    @Override
+    public void parseTask(Element taskElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(taskElement, activity);
+    }
+
+    @Override
+    public void parseManualTask(Element manualTaskElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(manualTaskElement, activity);
+    }
+
+    @Override
+    public void parseSendTask(Element sendTaskElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(sendTaskElement, activity);
+    }
+
+    @Override
+    public void parseIntermediateThrowEvent(Element intermediateEventElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(intermediateEventElement, activity);
+    }
+
+    @Override
+    public void parseEndEvent(Element endEventElement, ScopeImpl scope, ActivityImpl activity) {
+        instrument(endEventElement, activity);
+    }
+
+    private void instrument(Element element, ActivityImpl activity) {
+        if (!enabled) {
+            return;
+        }
+        String processDefinitionKey = ((ProcessDefinitionEntity) activity.getProcessDefinition()).getKey();
+        String activityId = activity.getId();
+        String activityType = element.getTagName();
+        activity.addListener(ExecutionListener.EVENTNAME_START,
+                (ExecutionListener) execution -> onActivityStarted(execution, activityId), 0);
+        activity.addListener(ExecutionListener.EVENTNAME_END,
+                (ExecutionListener) execution -> onActivityEnded(execution, processDefinitionKey, activityId, activityType));
+    }
+
+    void onActivityStarted(DelegateExecution execution, String activityId) {
+        started.put(key(execution, activityId), System.nanoTime());
+    }
+
+    void onActivityEnded(DelegateExecution execution, String processDefinitionKey, String activityId, String activityType) {
+        String key = key(execution, activityId);
+        Long startedAt = started.getIfPresent(key);
+        if (startedAt == null) {
+            return;
+        }
+        started.invalidate(key);
+        Timer.builder(METER)
+                .description("Time from an activity starting to it ending")
+                .tag("process", processDefinitionKey)
+                .tag("activity", activityId)
+                .tag("type", activityType)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private static String key(DelegateExecution execution, String activityId) {
+        return execution.getId() + ":" + activityId;
+    }
+}
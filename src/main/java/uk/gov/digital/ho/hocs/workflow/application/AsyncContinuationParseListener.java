@@ -0,0 +1,170 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.ExecutionListener;
+import org.camunda.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.camunda.bpm.engine.impl.bpmn.parser.BpmnParse;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.camunda.bpm.engine.impl.pvm.process.ScopeImpl;
+import org.camunda.bpm.engine.impl.pvm.process.TransitionImpl;
+import org.camunda.bpm.engine.impl.util.xml.Element;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * Makes the service tasks selected by camunda.async-continuation.* asyncBefore, so completing a user task commits
+ * and returns to the user once the flow reaches one of them and the job executor runs the rest of the chain.
+ * Tasks are selected by activity ID ("PROCESS_KEY:ActivityId" or "ActivityId") or by part of their expression,
+ * e.g. "bpmnService.createCaseNote". Only select tasks that run after the next screen has been set.
+ * <p>
+ * The caller's forwarded headers and the time the continuation was scheduled are saved as execution variables when the
+ * flow reaches the task, so they are committed with the job and available to whichever instance runs it, however
+ * much later. The variables are removed when the continuation starts, and the wait is recorded as
+ * camunda.async.continuation.latency. A job executor thread runs several jobs in turn, so each continuation replaces
+ * the thread's MDC with its own request data, and the MDC is emptied again when the job's transaction ends.
+ */
+@Slf4j
+@Component
+public class AsyncContinuationParseListener extends AbstractBpmnParseListener {
+
+    private static final String SELECTED = "asyncContinuationSelected";
+    private static final String REQUEST_DATA_VARIABLE = "asyncContinuationRequestData:";
+    private static final String SCHEDULED_AT_VARIABLE = "asyncContinuationScheduledAt:";
+    private static final TypeReference<Map<String, String>> REQUEST_DATA_TYPE = new TypeReference<Map<String, String>>() {
+    };
+
+    private final boolean enabled;
+    private final Set<String> activities;
+    private final List<String> expressions;
+    private final boolean exclusive;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public AsyncContinuationParseListener(@Value("${camunda.async-continuation.enabled:false}") boolean enabled,
+                                          @Value("${camunda.async-continuation.activities:}") String[] activities,
+                                          @Value("${camunda.async-continuation.expressions:}") String[] expressions,
+                                          @Value("${camunda.async-continuation.exclusive:true}") boolean exclusive,
+                                          MeterRegistry meterRegistry,
+                                          ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.activities = Arrays.stream(activities).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toSet());
+        this.expressions = Arrays.stream(expressions).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+        this.exclusive = exclusive;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void parseServiceTask(Element serviceTaskElement, ScopeImpl scope, ActivityImpl activity) {
+        if (!enabled || activity.isAsyncBefore() || !isSelected(serviceTaskElement, activity)) {
+            return;
+        }
+        activity.setAsyncBefore(true, exclusive);
+        activity.setProperty(SELECTED, true);
+        activity.addListener(ExecutionListener.EVENTNAME_START, (ExecutionListener) this::onContinuationStarted);
+        log.info("Service task {} in {} will continue asynchronously", activity.getId(), processKey(activity),
+                value(EVENT, ASYNC_CONTINUATION_CONFIGURED));
+    }
+
+    @Override
+    public void parseSequenceFlow(Element sequenceFlowElement, ScopeImpl scope, TransitionImpl transition) {
+        if (!enabled || transition.getDestination().getProperty(SELECTED) == null) {
+            return;
+        }
+        String activityId = transition.getDestination().getId();
+        transition.addListener(ExecutionListener.EVENTNAME_TAKE,
+                (ExecutionListener) execution -> onContinuationScheduled(execution, activityId));
+    }
+
+    private boolean isSelected(Element serviceTaskElement, ActivityImpl activity) {
+        if (activities.contains(activity.getId()) || activities.contains(processKey(activity) + ":" + activity.getId())) {
+            return true;
+        }
+        String expression = serviceTaskElement.attributeNS(BpmnParse.CAMUNDA_BPMN_EXTENSIONS_NS, "expression");
+        return expression != null && expressions.stream().anyMatch(expression::contains);
+    }
+
+    void onContinuationScheduled(DelegateExecution execution, String activityId) {
+        execution.setVariableLocal(SCHEDULED_AT_VARIABLE + activityId, System.currentTimeMillis());
+        Map<String, String> requestData = MDC.getCopyOfContextMap();
+        if (requestData != null && !requestData.isEmpty()) {
+            try {
+                execution.setVariableLocal(REQUEST_DATA_VARIABLE + activityId, objectMapper.writeValueAsString(requestData));
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to save request data for continuation {}: {}", activityId, e.getMessage(), value(EVENT, ASYNC_CONTINUATION_REQUEST_DATA_FAILED));
+            }
+        }
+    }
+
+    void onContinuationStarted(DelegateExecution execution) {
+        String activityId = execution.getCurrentActivityId();
+        Object scheduledAt = execution.getVariable(SCHEDULED_AT_VARIABLE + activityId);
+        Object requestData = execution.getVariable(REQUEST_DATA_VARIABLE + activityId);
+        if (Context.getJobExecutorContext() != null) {
+            restoreRequestData(activityId, requestData);
+        }
+        if (scheduledAt == null) {
+            return;
+        }
+        execution.removeVariable(SCHEDULED_AT_VARIABLE + activityId);
+        if (requestData != null) {
+            execution.removeVariable(REQUEST_DATA_VARIABLE + activityId);
+        }
+        Timer.builder("camunda.async.continuation.latency")
+                .description("Time from scheduling an async continuation to the job executor starting it")
+                .tag("activity", activityId)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Math.max(System.currentTimeMillis() - (Long) scheduledAt, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private void restoreRequestData(String activityId, Object requestData) {
+        MDC.clear();
+        if (requestData != null) {
+            try {
+                MDC.setContextMap(objectMapper.readValue((String) requestData, REQUEST_DATA_TYPE));
+            } catch (IOException e) {
+                log.warn("Failed to restore request data for continuation {}: {}", activityId, e.getMessage(), value(EVENT, ASYNC_CONTINUATION_REQUEST_DATA_FAILED));
+            }
+        }
+        CommandContext commandContext = Context.getCommandContext();
+        if (commandContext != null) {
+            TransactionListener clearRequestData = context -> MDC.clear();
+            commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, clearRequestData);
+            commandContext.getTransactionContext().addTransactionListener(TransactionState.ROLLED_BACK, clearRequestData);
+        }
+    }
+
+    private static String processKey(ActivityImpl activity) {
+        return ((ProcessDefinitionEntity) activity.getProcessDefinition()).getKey();
+    }
+}
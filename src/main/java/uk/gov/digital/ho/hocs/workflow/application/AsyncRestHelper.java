@@ -0,0 +1,209 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * Non-blocking counterpart of {@link RestHelper}. No thread waits on the response: calls return a future completed
+ * by the WebClient's event loop, and retries are scheduled rather than slept for.
+ * <p>
+ * Everything else is as RestHelper does it. Calls go through {@link DownstreamGuard}, are retried with the same
+ * backoff and rules, and fail with the same RestTemplate exceptions. The auth, correlation and Idempotency-Key headers
+ * are taken from the calling thread when the call is made, so every attempt sends the same ones whichever thread it
+ * runs on. Attempts and retries are recorded as downstream.requests and downstream.requests.retries.
+ */
+@Slf4j
+@Component
+public class AsyncRestHelper {
+
+    private final WebClient webClient;
+
+    private final String basicAuth;
+
+    private final RequestData requestData;
+
+    private final DownstreamGuard downstreamGuard;
+
+    private final int maxAttempts;
+
+    private final long initialInterval;
+
+    private final long maxInterval;
+
+    private final Duration readTimeout;
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public AsyncRestHelper(@Qualifier("downstreamWebClient") WebClient webClient,
+                           @Value("${hocs.basicauth}") String basicAuth,
+                           RequestData requestData,
+                           DownstreamGuard downstreamGuard,
+                           @Value("${retry.maxAttempts}") int maxAttempts,
+                           @Value("${retry.initial-interval:200}") long initialInterval,
+                           @Value("${retry.max-interval:2000}") long maxInterval,
+                           @Value("${http.client.read-timeout:10000}") long readTimeout,
+                           MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.basicAuth = basicAuth;
+        this.requestData = requestData;
+        this.downstreamGuard = downstreamGuard;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialInterval = initialInterval;
+        this.maxInterval = maxInterval;
+        this.readTimeout = Duration.ofMillis(readTimeout);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T, R> CompletableFuture<R> post(String serviceBaseURL, String url, T request, Class<R> responseType) {
+        log.info("AsyncRestHelper making POST request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_POST));
+        HttpHeaders headers = createWriteHeaders(HttpMethod.POST, url);
+        return withRetry(serviceBaseURL, url, HttpMethod.POST,
+                () -> exchange(HttpMethod.POST, serviceBaseURL, url, headers, request).bodyToMono(responseType));
+    }
+
+    public <T, R> CompletableFuture<R> put(String serviceBaseURL, String url, T request, Class<R> responseType) {
+        log.info("AsyncRestHelper making PUT request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_PUT));
+        HttpHeaders headers = createWriteHeaders(HttpMethod.PUT, url);
+        return withRetry(serviceBaseURL, url, HttpMethod.PUT,
+                () -> exchange(HttpMethod.PUT, serviceBaseURL, url, headers, request).bodyToMono(responseType));
+    }
+
+    public <R> CompletableFuture<R> get(String serviceBaseURL, String url, Class<R> responseType) {
+        log.info("AsyncRestHelper making GET request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_GET));
+        HttpHeaders headers = createAuthHeaders();
+        return withRetry(serviceBaseURL, url, HttpMethod.GET,
+                () -> exchange(HttpMethod.GET, serviceBaseURL, url, headers, null).bodyToMono(responseType));
+    }
+
+    public <R> CompletableFuture<R> get(String serviceBaseURL, String url, ParameterizedTypeReference<R> responseType) {
+        log.info("AsyncRestHelper making GET request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_GET));
+        HttpHeaders headers = createAuthHeaders();
+        return withRetry(serviceBaseURL, url, HttpMethod.GET,
+                () -> exchange(HttpMethod.GET, serviceBaseURL, url, headers, null).bodyToMono(responseType));
+    }
+
+    private WebClient.ResponseSpec exchange(HttpMethod method, String serviceBaseURL, String url, HttpHeaders headers, Object request) {
+        WebClient.RequestBodySpec spec = webClient.method(method)
+                .uri(String.format("%s%s", serviceBaseURL, url))
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        if (request != null) {
+            spec.syncBody(request);
+        }
+        return spec.retrieve()
+                .onStatus(HttpStatus::is4xxClientError, response -> toException(response, false))
+                .onStatus(HttpStatus::is5xxServerError, response -> toException(response, true));
+    }
+
+    private <R> CompletableFuture<R> withRetry(String serviceBaseURL, String url, HttpMethod method, Supplier<Mono<R>> exchange) {
+        return attempt(serviceBaseURL, url, method, exchange, downstreamGuard.nameFor(serviceBaseURL), RestHelper.uriTemplate(url), 1);
+    }
+
+    private <R> CompletableFuture<R> attempt(String serviceBaseURL, String url, HttpMethod method, Supplier<Mono<R>> exchange,
+                                             String downstream, String uri, int attempt) {
+        long start = System.nanoTime();
+        return downstreamGuard.callAsync(serviceBaseURL, () -> exchange.get()
+                .timeout(readTimeout)
+                .onErrorMap(AsyncRestHelper::toRestClientException)
+                .toFuture())
+                .handle((result, error) -> {
+                    if (error == null) {
+                        RestHelper.recordAttempt(meterRegistry, downstream, method, uri, attempt, "SUCCESS", start);
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (!(cause instanceof RuntimeException)) {
+                        return CompletableFuture.<R>failedFuture(cause);
+                    }
+                    RuntimeException e = (RuntimeException) cause;
+                    RestHelper.recordAttempt(meterRegistry, downstream, method, uri, attempt, RestHelper.outcome(e), start);
+                    if (attempt >= maxAttempts || !RestHelper.isRetryable(e, method != HttpMethod.POST)) {
+                        return CompletableFuture.<R>failedFuture(e);
+                    }
+                    long delay = RestHelper.backoff(attempt, initialInterval, maxInterval);
+                    log.warn("AsyncRestHelper attempt {} to {}{} failed, retrying in {}ms: {}", attempt, serviceBaseURL, url, delay, e.getMessage(),
+                            value(EVENT, REST_HELPER_RETRY));
+                    RestHelper.countRetry(meterRegistry, downstream, method, uri);
+                    return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> attempt(serviceBaseURL, url, method, exchange, downstream, uri, attempt + 1));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private static Mono<? extends Throwable> toException(ClientResponse response, boolean serverError) {
+        return response.bodyToMono(String.class)
+                .defaultIfEmpty("")
+                .map(body -> serverError
+                        ? new HttpServerErrorException(response.statusCode(), body)
+                        : new HttpClientErrorException(response.statusCode(), body));
+    }
+
+    /**
+     * Maps WebClient errors onto the exceptions RestTemplate throws for the same failures, so that they are classed
+     * and retried the same way.
+     */
+    static Throwable toRestClientException(Throwable error) {
+        if (error instanceof RestClientException || error instanceof Error) {
+            return error;
+        } else if (error instanceof IOException) {
+            return new ResourceAccessException(String.format("I/O error: %s", error.getMessage()), (IOException) error);
+        } else if (error instanceof TimeoutException) {
+            return new ResourceAccessException(String.format("I/O error: %s", error.getMessage()), new SocketTimeoutException(error.getMessage()));
+        }
+        return new RestClientException(error.getMessage(), error);
+    }
+
+    private HttpHeaders createAuthHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.add(AUTHORIZATION, getBasicAuth());
+        headers.add(RequestData.GROUP_HEADER, requestData.groups());
+        headers.add(RequestData.USER_ID_HEADER, requestData.userId());
+        headers.add(RequestData.CORRELATION_ID_HEADER, requestData.correlationId());
+        return headers;
+    }
+
+    private HttpHeaders createWriteHeaders(HttpMethod method, String url) {
+        HttpHeaders headers = createAuthHeaders();
+        String idempotencyKey = IdempotencyKey.forRequest(method, url);
+        if (idempotencyKey != null) {
+            headers.add(IdempotencyKey.HEADER, idempotencyKey);
+        }
+        return headers;
+    }
+
+    private String getBasicAuth() { return String.format("Basic %s", Base64.getEncoder().encodeToString(basicAuth.getBytes(StandardCharsets.UTF_8))); }
+
+}
@@ -0,0 +1,46 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.env.PropertyResolver;
+
+/**
+ * How one {@link PolicyCache} is sized and expired, read from cache.&lt;cache name&gt;.* and falling back to
+ * cache.default.*. Times are in milliseconds and 0 turns the feature off.
+ * <ul>
+ * <li>max-size: entries kept, or max-weight: collection elements kept</li>
+ * <li>expire-after-write: how long an entry is served, spread by plus or minus expiry-jitter (a fraction) so
+ * entries written together do not all expire together</li>
+ * <li>refresh-after-write: age after which a read reloads the entry in the background, still serving the old one</li>
+ * <li>negative-ttl: how long a null or empty result is kept</li>
+ * <li>stale-if-error: how long after expiring an entry is still served if reloading it fails</li>
+ * </ul>
+ */
+@AllArgsConstructor
+@Getter
+public class CachePolicy {
+
+    private final long maxSize;
+    private final long maxWeight;
+    private final long expireAfterWrite;
+    private final double expiryJitter;
+    private final long refreshAfterWrite;
+    private final long negativeTtl;
+    private final long staleIfError;
+
+    public static CachePolicy resolve(PropertyResolver properties, String cacheName) {
+        return new CachePolicy(
+                property(properties, cacheName, "max-size", Long.class, 1000L),
+                property(properties, cacheName, "max-weight", Long.class, 0L),
+                property(properties, cacheName, "expire-after-write", Long.class, 3600000L),
+                property(properties, cacheName, "expiry-jitter", Double.class, 0.1),
+                property(properties, cacheName, "refresh-after-write", Long.class, 0L),
+                property(properties, cacheName, "negative-ttl", Long.class, 0L),
+                property(properties, cacheName, "stale-if-error", Long.class, 0L));
+    }
+
+    private static <T> T property(PropertyResolver properties, String cacheName, String name, Class<T> type, T defaultValue) {
+        return properties.getProperty("cache." + cacheName + "." + name, type,
+                properties.getProperty("cache.default." + name, type, defaultValue));
+    }
+}
@@ -1,10 +1,21 @@
 package uk.gov.digital.ho.hocs.workflow.application;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.bpmn.parser.BpmnParseListener;
 import org.camunda.bpm.engine.impl.persistence.StrongUuidGenerator;
 import org.camunda.bpm.engine.spring.ProcessEngineFactoryBean;
 import org.camunda.bpm.engine.spring.SpringProcessEngineConfiguration;
 import org.camunda.bpm.engine.spring.SpringProcessEngineServicesConfiguration;
+import org.camunda.bpm.engine.spring.components.jobexecutor.SpringJobExecutor;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,30 +23,90 @@ import org.springframework.context.annotation.Import;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
+import uk.gov.digital.ho.hocs.workflow.client.camundaclient.StageTaskIndex;
 
 import javax.sql.DataSource;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 @Import( SpringProcessEngineServicesConfiguration.class )
 public class CamundaProcessEngineConfiguration {
 
+  private static final String SKIP_SCHEMA_OPERATIONS = "skip";
+
   @Value("${camunda.bpm.history-level:none}")
   private String historyLevel;
 
+  @Value("${camunda.database.schema-update:true}")
+  private String databaseSchemaUpdate;
+
+  @Value("${camunda.deployment.parse-definitions:BACKGROUND}")
+  private DeploymentAwareProcessEngineConfiguration.DefinitionParsing definitionParsing;
+
+  @Value("${camunda.deployment-cache.process-definitions.max-size:200}")
+  private int processDefinitionCacheSize;
+
+  @Value("${camunda.deployment-cache.bpmn-models.max-size:200}")
+  private int bpmnModelCacheSize;
+
+  @Value("${camunda.deployment-cache.other.max-size:50}")
+  private int otherDeploymentCacheSize;
+
+  @Value("${camunda.job-executor.core-pool-size:3}")
+  private int jobExecutorCorePoolSize;
+
+  @Value("${camunda.job-executor.max-pool-size:10}")
+  private int jobExecutorMaxPoolSize;
+
+  @Value("${camunda.job-executor.queue-capacity:3}")
+  private int jobExecutorQueueCapacity;
+
+  @Value("${camunda.job-executor.max-jobs-per-acquisition:3}")
+  private int maxJobsPerAcquisition;
+
+  @Value("${camunda.job-executor.wait-time:5000}")
+  private int jobAcquisitionWaitTime;
+
+  @Value("${camunda.job-executor.max-wait:60000}")
+  private long jobAcquisitionMaxWait;
+
+  @Value("${camunda.job-executor.lock-time:300000}")
+  private int jobLockTime;
+
   @Autowired
   private DataSource dataSource;
 
   @Autowired
   private ResourcePatternResolver resourceLoader;
 
+  @Autowired
+  private StageTaskIndex stageTaskIndex;
+
+  @Autowired
+  private AsyncContinuationParseListener asyncContinuationParseListener;
+
+  @Autowired
+  private ActivityTimingParseListener activityTimingParseListener;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   @Bean
   public SpringProcessEngineConfiguration processEngineConfiguration() throws IOException {
-    SpringProcessEngineConfiguration config = new SpringProcessEngineConfiguration();
+    DeploymentAwareProcessEngineConfiguration config = new DeploymentAwareProcessEngineConfiguration();
 
     config.setDataSource(dataSource);
-    config.setDatabaseSchemaUpdate("true");
+    // "true" creates or upgrades the schema, "false" only checks its version and "skip" leaves it to the migrations
+    if (SKIP_SCHEMA_OPERATIONS.equals(databaseSchemaUpdate)) {
+      config.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_FALSE);
+      config.setSchemaOperationsCommand(commandContext -> null);
+    } else {
+      config.setDatabaseSchemaUpdate(databaseSchemaUpdate);
+    }
 
     config.setTransactionManager(transactionManager());
 
@@ -43,15 +114,77 @@ public class CamundaProcessEngineConfiguration {
     config.setIdGenerator(new StrongUuidGenerator());
 
     config.setJobExecutorActivate(true);
+    config.setJobExecutor(jobExecutor());
     config.setMetricsEnabled(false);
 
-    // deploy all processes from folder 'processes'
+    config.setCacheFactory(new DeploymentCacheFactory(processDefinitionCacheSize, bpmnModelCacheSize, otherDeploymentCacheSize, meterRegistry));
+
+    List<BpmnParseListener> parseListeners = new ArrayList<>(List.of(stageTaskIndex.parseListener()));
+    if (asyncContinuationParseListener.isEnabled()) {
+      parseListeners.add(asyncContinuationParseListener);
+    }
+    if (activityTimingParseListener.isEnabled()) {
+      parseListeners.add(activityTimingParseListener);
+    }
+    config.setCustomPostBPMNParseListeners(parseListeners);
+
+    // deploy all processes from folder 'processes' if they have changed since the last deployment
     Resource[] resources = resourceLoader.getResources("classpath:/processes/*");
     config.setDeploymentResources(resources);
+    config.setDefinitionParsing(definitionParsing);
 
     return config;
   }
 
+  @Bean
+  public SpringJobExecutor jobExecutor() {
+    SpringJobExecutor jobExecutor = new SpringJobExecutor();
+    jobExecutor.setTaskExecutor(jobExecutorTaskExecutor());
+    jobExecutor.setMaxJobsPerAcquisition(maxJobsPerAcquisition);
+    jobExecutor.setWaitTimeInMillis(jobAcquisitionWaitTime);
+    jobExecutor.setMaxWait(jobAcquisitionMaxWait);
+    jobExecutor.setLockTimeInMillis(jobLockTime);
+    return jobExecutor;
+  }
+
+  /**
+   * Runs the acquired jobs. Rejected batches are handed back to the job executor to acquire again, so the queue is
+   * kept short and the pool size bounds how many jobs run at once. A batch can hold several jobs, so
+   * AsyncContinuationParseListener sets and clears the MDC for each job; emptying it around the whole batch as well
+   * keeps anything left behind from reaching the next batch.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor jobExecutorTaskExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(jobExecutorCorePoolSize);
+    executor.setMaxPoolSize(jobExecutorMaxPoolSize);
+    executor.setQueueCapacity(jobExecutorQueueCapacity);
+    executor.setThreadNamePrefix("camunda-job-");
+    executor.setTaskDecorator(task -> () -> {
+      MDC.clear();
+      try {
+        task.run();
+      } finally {
+        MDC.clear();
+      }
+    });
+    return executor;
+  }
+
+  @Bean
+  public MeterBinder camundaJobMetrics(ManagementService managementService,
+                                       @Qualifier("jobExecutorTaskExecutor") ThreadPoolTaskExecutor jobExecutorTaskExecutor) {
+    return registry -> {
+      new ExecutorServiceMetrics(jobExecutorTaskExecutor.getThreadPoolExecutor(), "camundaJobExecutor", Tags.empty()).bindTo(registry);
+      Gauge.builder("camunda.jobs.executable", managementService, ms -> ms.createJobQuery().executable().count())
+              .description("Jobs waiting to be acquired by the job executor")
+              .register(registry);
+      Gauge.builder("camunda.jobs.failed", managementService, ms -> ms.createJobQuery().noRetriesLeft().count())
+              .description("Jobs with no retries left")
+              .register(registry);
+    };
+  }
+
   @Bean
   public PlatformTransactionManager transactionManager() {
     return new DataSourceTransactionManager(dataSource);
@@ -0,0 +1,140 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.repository.Deployment;
+import org.camunda.bpm.engine.repository.DeploymentBuilder;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.engine.spring.SpringProcessEngineConfiguration;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * Deploys the process resources only when they differ from the latest deployment. Every deployment keeps the same
+ * name, so duplicate filtering compares against the previous one and only changed definitions get a new version.
+ * Each deployment also carries a SHA-256 fingerprint of every resource name and its content as an extra resource, so
+ * an unchanged restart reads one deployment and one small resource instead of uploading every definition.
+ * <p>
+ * camunda.deployment.parse-definitions decides when the latest version of each definition is parsed into the
+ * deployment cache, along with its BPMN model: on first use (LAZY), during startup (STARTUP) or on a background
+ * thread once the application is ready (BACKGROUND, see DeploymentCachePreloader).
+ */
+@Slf4j
+public class DeploymentAwareProcessEngineConfiguration extends SpringProcessEngineConfiguration {
+
+    static final String FINGERPRINT_RESOURCE = "hocs-workflow.fingerprint";
+
+    public enum DefinitionParsing {
+        LAZY, STARTUP, BACKGROUND
+    }
+
+    private DefinitionParsing definitionParsing = DefinitionParsing.LAZY;
+
+    public void setDefinitionParsing(DefinitionParsing definitionParsing) {
+        this.definitionParsing = definitionParsing;
+    }
+
+    @Override
+    protected void autoDeployResources(ProcessEngine processEngine) {
+        if (deploymentResources == null || deploymentResources.length == 0) {
+            return;
+        }
+        RepositoryService repositoryService = processEngine.getRepositoryService();
+        Map<String, byte[]> resources = readResources(deploymentResources);
+        String fingerprint = fingerprint(resources);
+
+        List<Deployment> latest = repositoryService.createDeploymentQuery()
+                .deploymentName(deploymentName)
+                .orderByDeploymentTime().desc()
+                .listPage(0, 1);
+        if (!latest.isEmpty() && fingerprint.equals(deployedFingerprint(repositoryService, latest.get(0)))) {
+            log.info("Process resources unchanged since deployment {}, skipping deployment", latest.get(0).getId(),
+                    value(EVENT, PROCESS_DEPLOYMENT_SKIPPED));
+        } else {
+            DeploymentBuilder deploymentBuilder = repositoryService.createDeployment()
+                    .enableDuplicateFiltering(true)
+                    .name(deploymentName);
+            resources.forEach((resourceName, content) -> deploymentBuilder.addInputStream(resourceName, new ByteArrayInputStream(content)));
+            deploymentBuilder.addString(FINGERPRINT_RESOURCE, fingerprint);
+            Deployment deployment = deploymentBuilder.deploy();
+            log.info("Deployed {} process resources as {}", resources.size(), deployment.getId(),
+                    value(EVENT, PROCESS_DEPLOYMENT_COMPLETE));
+        }
+
+        if (definitionParsing == DefinitionParsing.STARTUP) {
+            parseLatestDefinitions(repositoryService);
+        }
+    }
+
+    /**
+     * Reads the fingerprint stored with a deployment, or null for a deployment made before fingerprints were kept.
+     */
+    static String deployedFingerprint(RepositoryService repositoryService, Deployment deployment) {
+        if (!repositoryService.getDeploymentResourceNames(deployment.getId()).contains(FINGERPRINT_RESOURCE)) {
+            return null;
+        }
+        try (InputStream inputStream = repositoryService.getResourceAsStream(deployment.getId(), FINGERPRINT_RESOURCE)) {
+            return StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ProcessEngineException("Could not read the fingerprint of deployment " + deployment.getId(), e);
+        }
+    }
+
+    static void parseLatestDefinitions(RepositoryService repositoryService) {
+        List<ProcessDefinition> definitions = repositoryService.createProcessDefinitionQuery().latestVersion().list();
+        for (ProcessDefinition definition : definitions) {
+            repositoryService.getProcessDefinition(definition.getId());
+            repositoryService.getBpmnModelInstance(definition.getId());
+        }
+        log.info("Parsed {} process definitions", definitions.size(), value(EVENT, PROCESS_DEFINITIONS_PARSED));
+    }
+
+    static Map<String, byte[]> readResources(Resource[] resources) {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        Resource[] sorted = resources.clone();
+        Arrays.sort(sorted, Comparator.comparing(Resource::getFilename));
+        for (Resource resource : sorted) {
+            try (InputStream inputStream = resource.getInputStream()) {
+                contents.put(resource.getFilename(), StreamUtils.copyToByteArray(inputStream));
+            } catch (IOException e) {
+                throw new ProcessEngineException("Could not read process resource " + resource.getDescription(), e);
+            }
+        }
+        return contents;
+    }
+
+    static String fingerprint(Map<String, byte[]> resources) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            resources.forEach((resourceName, content) -> {
+                digest.update(resourceName.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(content);
+            });
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.camunda.bpm.engine.impl.cache.CacheFactory;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.commons.utils.cache.Cache;
+
+import java.util.Set;
+
+/**
+ * Builds the engine's deployment caches on Caffeine so each is bounded and reports hits, misses and evictions as
+ * cache.* metrics. The engine asks for all of its deployment caches with one capacity, so each cache works out what
+ * it holds from the first value put into it and is then sized as a process definition, BPMN model or other cache.
+ * Evictions run on the calling thread; these caches are small and written rarely.
+ */
+public class DeploymentCacheFactory implements CacheFactory {
+
+    private final int processDefinitionsMaxSize;
+    private final int bpmnModelsMaxSize;
+    private final int otherMaxSize;
+    private final MeterRegistry meterRegistry;
+
+    public DeploymentCacheFactory(int processDefinitionsMaxSize, int bpmnModelsMaxSize, int otherMaxSize, MeterRegistry meterRegistry) {
+        this.processDefinitionsMaxSize = processDefinitionsMaxSize;
+        this.bpmnModelsMaxSize = bpmnModelsMaxSize;
+        this.otherMaxSize = otherMaxSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T> Cache<String, T> createCache(int maxNumberOfElementsInCache) {
+        return new ClassifyingCache<>();
+    }
+
+    private class ClassifyingCache<T> implements Cache<String, T> {
+
+        private volatile com.github.benmanes.caffeine.cache.Cache<String, T> cache;
+
+        @Override
+        public T get(String key) {
+            com.github.benmanes.caffeine.cache.Cache<String, T> current = cache;
+            return current != null ? current.getIfPresent(key) : null;
+        }
+
+        @Override
+        public void put(String key, T value) {
+            cacheFor(value).put(key, value);
+        }
+
+        @Override
+        public void remove(String key) {
+            com.github.benmanes.caffeine.cache.Cache<String, T> current = cache;
+            if (current != null) {
+                current.invalidate(key);
+            }
+        }
+
+        @Override
+        public void clear() {
+            com.github.benmanes.caffeine.cache.Cache<String, T> current = cache;
+            if (current != null) {
+                current.invalidateAll();
+            }
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public Set<String> keySet() {
+            com.github.benmanes.caffeine.cache.Cache<String, T> current = cache;
+            return current != null ? current.asMap().keySet() : Set.of();
+        }
+
+        @Override
+        public int size() {
+            com.github.benmanes.caffeine.cache.Cache<String, T> current = cache;
+            return current != null ? (int) current.estimatedSize() : 0;
+        }
+
+        private com.github.benmanes.caffeine.cache.Cache<String, T> cacheFor(T value) {
+            com.github.benmanes.caffeine.cache.Cache<String, T> current = cache;
+            return current != null ? current : create(value);
+        }
+
+        private synchronized com.github.benmanes.caffeine.cache.Cache<String, T> create(T value) {
+            if (cache == null) {
+                String name;
+                int maxSize;
+                if (value instanceof ProcessDefinitionEntity) {
+                    name = "camunda.process-definitions";
+                    maxSize = processDefinitionsMaxSize;
+                } else if (value instanceof BpmnModelInstance) {
+                    name = "camunda.bpmn-models";
+                    maxSize = bpmnModelsMaxSize;
+                } else {
+                    name = "camunda." + value.getClass().getSimpleName();
+                    maxSize = otherMaxSize;
+                }
+                com.github.benmanes.caffeine.cache.Cache<String, T> created = Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .executor(Runnable::run)
+                        .recordStats()
+                        .build();
+                CaffeineCacheMetrics.monitor(meterRegistry, created, name, Tags.empty());
+                cache = created;
+            }
+            return cache;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.RepositoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * Parses the latest version of every process definition, and its BPMN model, into the deployment caches once the
+ * application is ready, when camunda.deployment.parse-definitions is BACKGROUND. It runs in the background, so it
+ * does not hold up startup; until it finishes a definition that has not been loaded yet is parsed on first use.
+ */
+@Slf4j
+@Component
+public class DeploymentCachePreloader {
+
+    private final RepositoryService repositoryService;
+
+    private final boolean preload;
+
+    @Autowired
+    public DeploymentCachePreloader(RepositoryService repositoryService,
+                                    @Value("${camunda.deployment.parse-definitions:BACKGROUND}") DeploymentAwareProcessEngineConfiguration.DefinitionParsing definitionParsing) {
+        this.repositoryService = repositoryService;
+        this.preload = definitionParsing == DeploymentAwareProcessEngineConfiguration.DefinitionParsing.BACKGROUND;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (!preload) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                DeploymentAwareProcessEngineConfiguration.parseLatestDefinitions(repositoryService);
+            } catch (RuntimeException e) {
+                log.warn("Failed to preload process definitions: {}", e.getMessage(), value(EVENT, CACHE_PRIME_FAILED));
+            }
+        }, "deployment-cache-preload");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,306 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * A circuit breaker and a bulkhead for each downstream service RestHelper and AsyncRestHelper call.
+ * <p>
+ * A downstream's circuit opens after a run of consecutive failures (IO errors and 5xx responses) and rejects calls
+ * until open-duration has passed. One trial call is then let through, and the circuit closes again if it succeeds.
+ * The bulkhead caps the calls in flight to each downstream, by default at its connection pool size. A slow service
+ * therefore holds at most that many request threads, and other callers are turned away after max-wait instead of
+ * queueing behind it. Rejected calls fail with {@link CallRejectedException}, a 503. Async calls share the same
+ * circuit and bulkhead, but never wait for a bulkhead permit.
+ * <p>
+ * Each downstream is identified by its base URL, so the case, info and document services must not share one.
+ * <p>
+ * Circuit state and transitions are exported as downstream.circuit.state and downstream.circuit.transitions.
+ * Rejections are counted as downstream.calls.rejected, tagged with the reason.
+ */
+@Slf4j
+@Component
+public class DownstreamGuard {
+
+    private static final String DEFAULT_NAME = "default";
+
+    private final Map<String, String> names;
+    private final Map<String, Integer> maxConcurrent;
+    private final long bulkheadMaxWait;
+    private final int failureThreshold;
+    private final long openDuration;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final Map<String, Downstream> downstreams = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DownstreamGuard(@Value("${hocs.case-service}") String caseService,
+                           @Value("${hocs.info-service}") String infoService,
+                           @Value("${hocs.document-service}") String documentService,
+                           @Value("${downstream.case-service.bulkhead.max-concurrent:${http.client.pool.case-service.max-per-route:100}}") int caseServiceMaxConcurrent,
+                           @Value("${downstream.info-service.bulkhead.max-concurrent:${http.client.pool.info-service.max-per-route:50}}") int infoServiceMaxConcurrent,
+                           @Value("${downstream.document-service.bulkhead.max-concurrent:${http.client.pool.document-service.max-per-route:50}}") int documentServiceMaxConcurrent,
+                           @Value("${downstream.bulkhead.max-wait:100}") long bulkheadMaxWait,
+                           @Value("${downstream.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                           @Value("${downstream.circuit-breaker.open-duration:10000}") long openDuration,
+                           MeterRegistry meterRegistry) {
+        this(names(caseService, infoService, documentService),
+                Map.of("case-service", caseServiceMaxConcurrent, "info-service", infoServiceMaxConcurrent, "document-service", documentServiceMaxConcurrent),
+                bulkheadMaxWait, failureThreshold, openDuration, meterRegistry, System::currentTimeMillis);
+    }
+
+    DownstreamGuard(Map<String, String> names, Map<String, Integer> maxConcurrent, long bulkheadMaxWait, int failureThreshold,
+                    long openDuration, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.names = names;
+        this.maxConcurrent = maxConcurrent;
+        this.bulkheadMaxWait = bulkheadMaxWait;
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.openDuration = openDuration;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Calls are told apart by base URL, so each downstream must have its own. Two sharing one would share a circuit
+     * breaker and bulkhead under one name, so that fails at startup instead.
+     */
+    static Map<String, String> names(String caseService, String infoService, String documentService) {
+        Map<String, String> names = new HashMap<>();
+        addName(names, caseService, "case-service");
+        addName(names, infoService, "info-service");
+        addName(names, documentService, "document-service");
+        return names;
+    }
+
+    private static void addName(Map<String, String> names, String serviceBaseURL, String name) {
+        String existing = names.putIfAbsent(serviceBaseURL, name);
+        if (existing != null) {
+            throw new IllegalStateException(String.format("%s and %s have the same base URL %s; each downstream needs its own",
+                    existing, name, serviceBaseURL));
+        }
+    }
+
+    /**
+     * Makes one call to the downstream at serviceBaseURL, if its circuit and bulkhead allow it.
+     */
+    public <R> R call(String serviceBaseURL, Supplier<R> call) {
+        Downstream downstream = downstreams.computeIfAbsent(nameFor(serviceBaseURL), this::createDownstream);
+        downstream.acquirePermission();
+        if (!downstream.tryEnterBulkhead()) {
+            downstream.releasePermission();
+            throw downstream.reject("bulkhead_full");
+        }
+        boolean recorded = false;
+        try {
+            R result = call.get();
+            recorded = true;
+            downstream.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            recorded = true;
+            if (isFailure(e)) {
+                downstream.onFailure();
+            } else {
+                downstream.onSuccess();
+            }
+            throw e;
+        } finally {
+            if (!recorded) {
+                // An Error says nothing about the downstream; let the next call be the trial instead.
+                downstream.releasePermission();
+            }
+            downstream.leaveBulkhead();
+        }
+    }
+
+    /**
+     * Starts one call to the downstream at serviceBaseURL, if its circuit and bulkhead allow it. The call holds its
+     * bulkhead permit until the returned future completes, and its outcome is recorded against the circuit then.
+     */
+    public <R> CompletableFuture<R> callAsync(String serviceBaseURL, Supplier<CompletableFuture<R>> call) {
+        Downstream downstream = downstreams.computeIfAbsent(nameFor(serviceBaseURL), this::createDownstream);
+        try {
+            downstream.acquirePermission();
+        } catch (CallRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!downstream.bulkhead.tryAcquire()) {
+            downstream.releasePermission();
+            return CompletableFuture.failedFuture(downstream.reject("bulkhead_full"));
+        }
+        CompletableFuture<R> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            downstream.onComplete(e);
+            downstream.leaveBulkhead();
+            return CompletableFuture.failedFuture(e);
+        } catch (Error e) {
+            downstream.onComplete(e);
+            downstream.leaveBulkhead();
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            downstream.onComplete(error instanceof CompletionException ? error.getCause() : error);
+            downstream.leaveBulkhead();
+        });
+    }
+
+    static boolean isFailure(RuntimeException e) {
+        return e instanceof ResourceAccessException || e instanceof HttpServerErrorException;
+    }
+
+    String nameFor(String serviceBaseURL) {
+        String name = names.get(serviceBaseURL);
+        if (name != null) {
+            return name;
+        }
+        String host = URI.create(serviceBaseURL).getHost();
+        return host != null ? host : DEFAULT_NAME;
+    }
+
+    private Downstream createDownstream(String name) {
+        Downstream downstream = new Downstream(name, maxConcurrent.getOrDefault(name, 50));
+        Gauge.builder("downstream.circuit.state", downstream, d -> d.state.ordinal())
+                .description("Circuit state: 0 closed, 1 half open, 2 open")
+                .tag("downstream", name)
+                .register(meterRegistry);
+        Gauge.builder("downstream.bulkhead.available", downstream.bulkhead, Semaphore::availablePermits)
+                .description("Calls that can still be made to the downstream before the bulkhead rejects them")
+                .tag("downstream", name)
+                .register(meterRegistry);
+        return downstream;
+    }
+
+    enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private class Downstream {
+
+        private final String name;
+        private final Semaphore bulkhead;
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialInFlight;
+
+        private Downstream(String name, int maxConcurrent) {
+            this.name = name;
+            this.bulkhead = new Semaphore(maxConcurrent);
+        }
+
+        synchronized void acquirePermission() {
+            if (state == State.OPEN && clock.getAsLong() - openedAt >= openDuration) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+                throw reject("circuit_open");
+            }
+            if (state == State.HALF_OPEN) {
+                trialInFlight = true;
+            }
+        }
+
+        synchronized void releasePermission() {
+            if (state == State.HALF_OPEN) {
+                trialInFlight = false;
+            }
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            if (state == State.HALF_OPEN) {
+                trialInFlight = false;
+                transitionTo(State.CLOSED);
+            }
+        }
+
+        synchronized void onFailure() {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                trialInFlight = false;
+                openedAt = clock.getAsLong();
+                transitionTo(State.OPEN);
+            }
+        }
+
+        void onComplete(Throwable error) {
+            if (error == null) {
+                onSuccess();
+            } else if (!(error instanceof RuntimeException)) {
+                // An Error says nothing about the downstream; let the next call be the trial instead.
+                releasePermission();
+            } else if (isFailure((RuntimeException) error)) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+        }
+
+        boolean tryEnterBulkhead() {
+            try {
+                return bulkhead.tryAcquire(bulkheadMaxWait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        void leaveBulkhead() {
+            bulkhead.release();
+        }
+
+        CallRejectedException reject(String reason) {
+            Counter.builder("downstream.calls.rejected")
+                    .tag("downstream", name)
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("Rejected call to {}: {}", name, reason, value(EVENT, DOWNSTREAM_CALL_REJECTED));
+            return new CallRejectedException(String.format("%s unavailable: %s", name, reason));
+        }
+
+        private void transitionTo(State next) {
+            log.warn("Circuit for {} changed from {} to {}", name, state, next, value(EVENT, DOWNSTREAM_CIRCUIT_STATE_CHANGED));
+            Counter.builder("downstream.circuit.transitions")
+                    .tag("downstream", name)
+                    .tag("from", state.name().toLowerCase())
+                    .tag("to", next.name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+            state = next;
+        }
+    }
+
+    public static class CallRejectedException extends HttpServerErrorException {
+
+        public CallRejectedException(String message) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, message);
+        }
+    }
+}
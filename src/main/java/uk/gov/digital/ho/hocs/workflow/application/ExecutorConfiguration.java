@@ -0,0 +1,151 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bounded pool used to run independent downstream lookups concurrently. When the queue is full the caller runs the
+ * task itself, so a busy pool slows requests down rather than failing them.
+ * <p>
+ * Bulk case creation has its own pool so a large upload cannot starve case views. Its pool size bounds how many cases
+ * are created at once, and documents beyond its queue are rejected and reported as failed. Streamed migrations run on
+ * the migration pool, which is fed no faster than it can work and only exists with the migration profile.
+ * <p>
+ * Cache entries due a refresh are reloaded on a small pool of their own. A refresh that does not fit is dropped, and
+ * the next read of the entry tries again.
+ */
+@Configuration
+public class ExecutorConfiguration {
+
+    @Value("${workflow.case-view.executor.core-size:16}")
+    private int coreSize;
+
+    @Value("${workflow.case-view.executor.max-size:32}")
+    private int maxSize;
+
+    @Value("${workflow.case-view.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${workflow.bulk-case.executor.size:8}")
+    private int bulkCaseSize;
+
+    @Value("${workflow.bulk-case.executor.queue-capacity:2000}")
+    private int bulkCaseQueueCapacity;
+
+    @Value("${migration.stream.workers:8}")
+    private int migrationWorkers;
+
+    @Value("${cache.refresh.executor.size:2}")
+    private int cacheRefreshSize;
+
+    @Value("${cache.refresh.executor.queue-capacity:100}")
+    private int cacheRefreshQueueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor caseViewExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("case-view-");
+        executor.setTaskDecorator(copyRequestData());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    public MeterBinder caseViewExecutorMetrics(@Qualifier("caseViewExecutor") ThreadPoolTaskExecutor caseViewExecutor) {
+        return registry -> new ExecutorServiceMetrics(caseViewExecutor.getThreadPoolExecutor(), "caseView", Tags.empty()).bindTo(registry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor bulkCaseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bulkCaseSize);
+        executor.setMaxPoolSize(bulkCaseSize);
+        executor.setQueueCapacity(bulkCaseQueueCapacity);
+        executor.setThreadNamePrefix("bulk-case-");
+        executor.setTaskDecorator(copyRequestData());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    public MeterBinder bulkCaseExecutorMetrics(@Qualifier("bulkCaseExecutor") ThreadPoolTaskExecutor bulkCaseExecutor) {
+        return registry -> new ExecutorServiceMetrics(bulkCaseExecutor.getThreadPoolExecutor(), "bulkCase", Tags.empty()).bindTo(registry);
+    }
+
+    @Bean
+    @Profile("migration")
+    public ThreadPoolTaskExecutor migrationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(migrationWorkers);
+        executor.setMaxPoolSize(migrationWorkers);
+        executor.setThreadNamePrefix("migration-");
+        executor.setTaskDecorator(copyRequestData());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    @Profile("migration")
+    public MeterBinder migrationExecutorMetrics(@Qualifier("migrationExecutor") ThreadPoolTaskExecutor migrationExecutor) {
+        return registry -> new ExecutorServiceMetrics(migrationExecutor.getThreadPoolExecutor(), "migration", Tags.empty()).bindTo(registry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cacheRefreshSize);
+        executor.setMaxPoolSize(cacheRefreshSize);
+        executor.setQueueCapacity(cacheRefreshQueueCapacity);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setTaskDecorator(copyRequestData());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    @Bean
+    public MeterBinder cacheRefreshExecutorMetrics(@Qualifier("cacheRefreshExecutor") ThreadPoolTaskExecutor cacheRefreshExecutor) {
+        return registry -> new ExecutorServiceMetrics(cacheRefreshExecutor.getThreadPoolExecutor(), "cacheRefresh", Tags.empty()).bindTo(registry);
+    }
+
+    /**
+     * RestHelper reads the forwarded auth headers from the MDC, so worker threads need the submitting thread's copy.
+     */
+    static TaskDecorator copyRequestData() {
+        return task -> {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            return () -> {
+                Map<String, String> previous = MDC.getCopyOfContextMap();
+                if (context != null) {
+                    MDC.setContextMap(context);
+                } else {
+                    MDC.clear();
+                }
+                try {
+                    task.run();
+                } finally {
+                    if (previous != null) {
+                        MDC.setContextMap(previous);
+                    } else {
+                        MDC.clear();
+                    }
+                }
+            };
+        };
+    }
+}
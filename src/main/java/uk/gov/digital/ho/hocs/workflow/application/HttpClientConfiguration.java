@@ -0,0 +1,191 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * One pooled, keep-alive HTTP client shared by RestHelper. Each downstream service gets its own
+ * route in the pool so a slow service can only ever hold its own connections.
+ * <p>
+ * AsyncRestHelper uses a separate non-blocking WebClient with the same connect timeout and total connection limit.
+ * <p>
+ * The pool limits connections per host and port, so downstreams configured on the same host and port share one
+ * route. Their limits are added together for that route, and a warning is logged at startup; DownstreamGuard's
+ * bulkheads still keep each service to its own share.
+ */
+@Slf4j
+@Configuration
+public class HttpClientConfiguration {
+
+    @Value("${hocs.case-service}")
+    private String caseService;
+
+    @Value("${hocs.info-service}")
+    private String infoService;
+
+    @Value("${hocs.document-service}")
+    private String documentService;
+
+    @Value("${http.client.pool.max-total:200}")
+    private int maxTotal;
+
+    @Value("${http.client.pool.case-service.max-per-route:100}")
+    private int caseServiceMaxPerRoute;
+
+    @Value("${http.client.pool.info-service.max-per-route:50}")
+    private int infoServiceMaxPerRoute;
+
+    @Value("${http.client.pool.document-service.max-per-route:50}")
+    private int documentServiceMaxPerRoute;
+
+    @Value("${http.client.pool.idle-timeout:30000}")
+    private long idleTimeout;
+
+    @Value("${http.client.pool.time-to-live:300000}")
+    private long timeToLive;
+
+    @Value("${http.client.pool.validate-after-inactivity:2000}")
+    private int validateAfterInactivity;
+
+    @Value("${http.client.connect-timeout:2000}")
+    private int connectTimeout;
+
+    @Value("${http.client.read-timeout:10000}")
+    private int readTimeout;
+
+    @Value("${http.client.connection-request-timeout:2000}")
+    private int connectionRequestTimeout;
+
+    @Bean
+    public PoolingHttpClientConnectionManager httpClientConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(timeToLive, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(Math.min(caseServiceMaxPerRoute, maxTotal));
+        connectionManager.setValidateAfterInactivity(validateAfterInactivity);
+        routes().forEach((route, limit) -> connectionManager.setMaxPerRoute(route, Math.min(limit.maxPerRoute, maxTotal)));
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpClientConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(httpClientConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public WebClient downstreamWebClient(WebClient.Builder webClientBuilder) {
+        HttpClient httpClient = HttpClient.create(ConnectionProvider.fixed("downstream", maxTotal))
+                .tcpConfiguration(tcpClient -> tcpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout));
+        return webClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+
+    @Bean
+    public MeterBinder httpClientPoolMetrics(PoolingHttpClientConnectionManager httpClientConnectionManager) {
+        return registry -> {
+            Gauge.builder("http.client.pool.total.max", httpClientConnectionManager, cm -> cm.getTotalStats().getMax())
+                    .description("Maximum connections across all downstream pools")
+                    .register(registry);
+
+            routes().forEach((route, limit) -> {
+                String downstream = limit.downstreams;
+                registerRouteGauge(registry, httpClientConnectionManager, route, downstream, "leased", PoolStats::getLeased);
+                registerRouteGauge(registry, httpClientConnectionManager, route, downstream, "available", PoolStats::getAvailable);
+                registerRouteGauge(registry, httpClientConnectionManager, route, downstream, "pending", PoolStats::getPending);
+                registerRouteGauge(registry, httpClientConnectionManager, route, downstream, "max", PoolStats::getMax);
+            });
+        };
+    }
+
+    private Map<HttpRoute, RouteLimit> routes() {
+        Map<String, String> baseUrls = new LinkedHashMap<>();
+        baseUrls.put("case-service", caseService);
+        baseUrls.put("info-service", infoService);
+        baseUrls.put("document-service", documentService);
+        Map<String, Integer> maxPerRoute = Map.of(
+                "case-service", caseServiceMaxPerRoute,
+                "info-service", infoServiceMaxPerRoute,
+                "document-service", documentServiceMaxPerRoute);
+        return routes(baseUrls, maxPerRoute);
+    }
+
+    /**
+     * Groups the downstreams by the pool route they resolve to, adding up the limits of any that share one.
+     */
+    static Map<HttpRoute, RouteLimit> routes(Map<String, String> baseUrls, Map<String, Integer> maxPerRoute) {
+        Map<HttpRoute, RouteLimit> routes = new LinkedHashMap<>();
+        baseUrls.forEach((downstream, baseUrl) -> routes.merge(routeFor(baseUrl),
+                new RouteLimit(downstream, maxPerRoute.get(downstream)),
+                (existing, added) -> {
+                    log.warn("{} and {} share the connection pool route {}, which will allow {} connections",
+                            existing.downstreams, added.downstreams, baseUrl, existing.maxPerRoute + added.maxPerRoute,
+                            value(EVENT, HTTP_CLIENT_ROUTE_SHARED));
+                    return new RouteLimit(existing.downstreams + "+" + added.downstreams, existing.maxPerRoute + added.maxPerRoute);
+                }));
+        return routes;
+    }
+
+    private static void registerRouteGauge(MeterRegistry registry,
+                                           PoolingHttpClientConnectionManager connectionManager,
+                                           HttpRoute route,
+                                           String downstream,
+                                           String stat,
+                                           ToIntFunction<PoolStats> value) {
+        Gauge.builder("http.client.pool." + stat, connectionManager, cm -> value.applyAsInt(cm.getStats(route)))
+                .tag("downstream", downstream)
+                .register(registry);
+    }
+
+    static HttpRoute routeFor(String baseUrl) {
+        URI uri = URI.create(baseUrl);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+    }
+
+    static class RouteLimit {
+        final String downstreams;
+        final int maxPerRoute;
+
+        RouteLimit(String downstreams, int maxPerRoute) {
+            this.downstreams = downstreams;
+            this.maxPerRoute = maxPerRoute;
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import org.springframework.http.HttpMethod;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Holds the idempotency scope of the work running on the current thread. RestHelper turns it into an
+ * Idempotency-Key header on each POST and PUT, so a write replayed by a retry or a re-executed job carries the same
+ * key as the first attempt and can be deduplicated downstream.
+ * <p>
+ * The key is a name-based UUID of the scope, the HTTP method and the URL. Different writes made by the same scope
+ * therefore get different keys.
+ */
+public final class IdempotencyKey {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final ThreadLocal<String> SCOPE = new ThreadLocal<>();
+
+    private IdempotencyKey() {
+    }
+
+    /**
+     * Starts a scope on the current thread and returns the one it replaces, to be passed to {@link #restore}.
+     */
+    public static String enter(String scope) {
+        String previous = SCOPE.get();
+        SCOPE.set(scope);
+        return previous;
+    }
+
+    /**
+     * The scope of the current thread, or null outside one.
+     */
+    public static String current() {
+        return SCOPE.get();
+    }
+
+    public static void restore(String previous) {
+        if (previous != null) {
+            SCOPE.set(previous);
+        } else {
+            SCOPE.remove();
+        }
+    }
+
+    public static String forRequest(HttpMethod method, String url) {
+        String scope = SCOPE.get();
+        if (scope == null) {
+            return null;
+        }
+        return UUID.nameUUIDFromBytes(String.join("|", scope, method.name(), url).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
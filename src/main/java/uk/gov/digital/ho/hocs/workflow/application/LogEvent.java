@@ -32,7 +32,22 @@ public enum LogEvent {
     REST_HELPER_GET_FORBIDDEN,
     REST_HELPER_GET_NOT_FOUND,
     REST_HELPER_GET_BAD_REQUEST,
+    REST_HELPER_RETRY,
+    HTTP_CLIENT_ROUTE_SHARED,
+    DOWNSTREAM_CALL_REJECTED,
+    DOWNSTREAM_CIRCUIT_STATE_CHANGED,
+    CACHE_STALE_SERVED,
+    CACHE_REFRESH_FAILED,
     CACHE_PRIME_FAILED,
+    TEAM_PERMISSION_INDEX_REFRESHED,
+    ASYNC_CONTINUATION_CONFIGURED,
+    ASYNC_CONTINUATION_REQUEST_DATA_FAILED,
+    PROCESS_DEPLOYMENT_SKIPPED,
+    PROCESS_DEPLOYMENT_COMPLETE,
+    PROCESS_DEFINITIONS_PARSED,
+    BULK_CASE_JOB_STARTED,
+    BULK_CASE_JOB_COMPLETE,
+    BULK_CASE_START_FAILED,
     MIGRATION_EVENT;
     public static final String EVENT = "event_id";
     public static final String EXCEPTION = "exception";
@@ -0,0 +1,311 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * A Caffeine backed Spring cache that follows a {@link CachePolicy}. Entries are kept past their expiry for the
+ * stale-if-error window, but only {@link #get(Object, Callable)} serves them, and only when reloading fails. That is
+ * also the only path that refreshes ahead, as it is the only one given a loader; use @Cacheable(sync = true).
+ * <p>
+ * Hits, misses, evictions and load times go to the Caffeine stats, which {@link PolicyCacheManager} exports as the
+ * usual cache.* metrics. Stale entries served are counted as cache.stale.served.
+ * <p>
+ * Only one load of a key runs at a time. Concurrent misses wait for its result rather than each calling the
+ * downstream, and share its failure too. They are counted as cache.loads.coalesced, and those waiting right now as
+ * cache.loads.waiting.
+ */
+@Slf4j
+public class PolicyCache implements Cache {
+
+    private final String name;
+    private final CachePolicy policy;
+    private final Executor refreshExecutor;
+    private final LongSupplier clock;
+    private final StatsCounter stats = new ConcurrentStatsCounter();
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Entry> store;
+    private final Counter staleServed;
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    PolicyCache(String name, CachePolicy policy, Executor refreshExecutor, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.name = name;
+        this.policy = policy;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if (policy.getMaxWeight() > 0) {
+            builder.maximumWeight(policy.getMaxWeight())
+                    .weigher((Object key, Object entry) -> ((Entry) entry).weight());
+        } else {
+            builder.maximumSize(policy.getMaxSize());
+        }
+        this.store = builder
+                .expireAfter(new EntryExpiry())
+                .recordStats(() -> stats)
+                .build();
+        this.staleServed = Counter.builder("cache.stale.served")
+                .description("Expired entries served because reloading them failed")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("cache.loads.coalesced")
+                .description("Misses that waited for a load already running instead of loading the entry again")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("cache.loads.waiting", waiting, AtomicInteger::get)
+                .description("Callers currently waiting for another caller's load")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Entry entry = fresh(key);
+        return entry != null ? new SimpleValueWrapper(entry.value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Entry entry = fresh(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.value != null && type != null && !type.isInstance(entry.value)) {
+            throw new IllegalStateException(String.format("Cached value is not of required type [%s]: %s", type.getName(), entry.value));
+        }
+        return (T) entry.value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = store.asMap().get(key);
+        long now = clock.getAsLong();
+        if (entry != null && now < entry.freshUntil) {
+            stats.recordHits(1);
+            if (shouldRefresh(entry, now)) {
+                refresh(key, entry, valueLoader);
+            }
+            return (T) entry.value;
+        }
+        stats.recordMisses(1);
+        try {
+            return (T) loadOnce(key, valueLoader);
+        } catch (ValueRetrievalException e) {
+            if (entry != null && entry.value != null && now < entry.keepUntil) {
+                log.warn("Serving stale {} entry for {} as reloading it failed: {}", name, key, e.getCause().getMessage(),
+                        value(EVENT, CACHE_STALE_SERVED));
+                staleServed.increment();
+                return (T) entry.value;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        long now = clock.getAsLong();
+        boolean negative = isNegative(value);
+        long ttl = negative ? policy.getNegativeTtl() : jittered(policy.getExpireAfterWrite());
+        if (ttl <= 0) {
+            store.invalidate(key);
+            return;
+        }
+        long keep = negative ? ttl : ttl + policy.getStaleIfError();
+        store.put(key, new Entry(value, now, now + ttl, now + keep));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing == null) {
+            put(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        store.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        store.invalidateAll();
+    }
+
+    private Entry fresh(Object key) {
+        Entry entry = store.asMap().get(key);
+        if (entry != null && clock.getAsLong() < entry.freshUntil) {
+            stats.recordHits(1);
+            return entry;
+        }
+        stats.recordMisses(1);
+        return null;
+    }
+
+    /**
+     * Loads the key unless a load of it is already running, in which case this waits for that load's result.
+     */
+    private Object loadOnce(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            Entry latest = store.asMap().get(key);
+            Object value = latest != null && clock.getAsLong() < latest.freshUntil ? latest.value : load(key, valueLoader);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> running) {
+        coalesced.increment();
+        waiting.incrementAndGet();
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        stats.recordLoadSuccess(System.nanoTime() - start);
+        put(key, value);
+        return value;
+    }
+
+    private boolean shouldRefresh(Entry entry, long now) {
+        return policy.getRefreshAfterWrite() > 0
+                && entry.value != null
+                && now - entry.writtenAt >= policy.getRefreshAfterWrite()
+                && entry.refreshing.compareAndSet(false, true);
+    }
+
+    private void refresh(Object key, Entry entry, Callable<?> valueLoader) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(key, valueLoader);
+                } catch (ValueRetrievalException e) {
+                    log.warn("Failed to refresh {} entry for {}: {}", name, key, e.getCause().getMessage(),
+                            value(EVENT, CACHE_REFRESH_FAILED));
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private long jittered(long ttl) {
+        if (ttl <= 0 || policy.getExpiryJitter() <= 0) {
+            return ttl;
+        }
+        long spread = (long) (ttl * policy.getExpiryJitter());
+        return ttl - spread + ThreadLocalRandom.current().nextLong(2 * spread + 1);
+    }
+
+    static boolean isNegative(Object value) {
+        return value == null
+                || (value instanceof Collection && ((Collection<?>) value).isEmpty())
+                || (value instanceof Map && ((Map<?, ?>) value).isEmpty());
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long writtenAt;
+        private final long freshUntil;
+        private final long keepUntil;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(Object value, long writtenAt, long freshUntil, long keepUntil) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+            this.freshUntil = freshUntil;
+            this.keepUntil = keepUntil;
+        }
+
+        private int weight() {
+            if (value instanceof Collection) {
+                return Math.max(((Collection<?>) value).size(), 1);
+            } else if (value instanceof Map) {
+                return Math.max(((Map<?, ?>) value).size(), 1);
+            }
+            return 1;
+        }
+    }
+
+    private class EntryExpiry implements Expiry<Object, Entry> {
+
+        @Override
+        public long expireAfterCreate(Object key, Entry entry, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(entry.keepUntil - clock.getAsLong(), 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
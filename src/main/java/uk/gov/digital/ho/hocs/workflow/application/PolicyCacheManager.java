@@ -0,0 +1,57 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates each cache on first use with its own {@link CachePolicy}, replacing the single spring.cache.caffeine.spec
+ * every cache used to share. Each cache's stats are exported as cache.* metrics tagged with its name.
+ */
+@Component
+public class PolicyCacheManager implements CacheManager {
+
+    private final Environment environment;
+    private final Executor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PolicyCache> caches = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PolicyCacheManager(Environment environment,
+                              @Qualifier("cacheRefreshExecutor") Executor refreshExecutor,
+                              MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private PolicyCache createCache(String name) {
+        PolicyCache cache = new PolicyCache(name, CachePolicy.resolve(environment, name), refreshExecutor, meterRegistry,
+                System::currentTimeMillis);
+        CaffeineCacheMetrics.monitor(meterRegistry,
+                (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache(), name, Tags.empty());
+        return cache;
+    }
+}
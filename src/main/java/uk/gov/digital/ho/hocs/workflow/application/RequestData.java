@@ -8,6 +8,7 @@ import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
@@ -21,6 +22,8 @@ public class RequestData implements HandlerInterceptor {
 
     private static final String ANONYMOUS = "anonymous";
 
+    public static final String SERVICE_USER = "hocs-workflow";
+
     public static Processor transferHeadersToMDC() {
         return ex -> {
             MDC.put(CORRELATION_ID_HEADER, ex.getIn().getHeader(CORRELATION_ID_HEADER, String.class));
@@ -29,6 +32,28 @@ public class RequestData implements HandlerInterceptor {
         };
     }
 
+    /**
+     * Runs work that no caller asked for, such as a scheduled refresh, as this service: with its own correlation id
+     * and the service user in place of a caller's headers. The thread's previous context is put back afterwards.
+     */
+    public static void runAsService(Runnable work) {
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        MDC.clear();
+        MDC.put(CORRELATION_ID_HEADER, UUID.randomUUID().toString());
+        MDC.put(USER_ID_HEADER, SERVICE_USER);
+        MDC.put(USERNAME_HEADER, SERVICE_USER);
+        MDC.put(GROUP_HEADER, "/ANONYMOUS/ANONYMOUS");
+        try {
+            work.run();
+        } finally {
+            if (previous != null) {
+                MDC.setContextMap(previous);
+            } else {
+                MDC.clear();
+            }
+        }
+    }
+
     private static boolean isNullOrEmpty(String value) {
         return value == null || value.equals("");
     }
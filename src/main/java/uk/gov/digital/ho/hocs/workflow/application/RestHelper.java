@@ -1,22 +1,47 @@
 package uk.gov.digital.ho.hocs.workflow.application;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.ConnectException;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static net.logstash.logback.argument.StructuredArguments.value;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
 
+/**
+ * Blocking calls to the downstream services, made through {@link DownstreamGuard} so each downstream has its own
+ * circuit breaker and bulkhead.
+ * <p>
+ * Failed attempts are retried up to retry.maxAttempts times, backing off exponentially with jitter from
+ * retry.initial-interval up to retry.max-interval. GETs and PUTs are retried on IO errors and 5xx responses. POSTs
+ * create things here (cases, stages, notes, documents), so they are only retried when the connection could not be
+ * made and the request was never sent. Rejected calls and 4xx responses are not retried.
+ * <p>
+ * POSTs and PUTs made within an {@link IdempotencyKey} scope carry an Idempotency-Key header, the same on every attempt.
+ * <p>
+ * Every attempt is timed as downstream.requests, tagged with the downstream, method, URL template, outcome and attempt
+ * number, and each retry is counted as downstream.requests.retries. The formatted URL is only ever logged.
+ */
 @Slf4j
 @Component
 public class RestHelper {
@@ -27,39 +52,176 @@ public class RestHelper {
 
     private RequestData requestData;
 
+    private DownstreamGuard downstreamGuard;
+
+    private int maxAttempts;
+
+    private long initialInterval;
+
+    private long maxInterval;
+
+    private MeterRegistry meterRegistry;
+
     @Autowired
-    public RestHelper(RestTemplate restTemplate, @Value("${hocs.basicauth}") String basicAuth, RequestData requestData) {
+    public RestHelper(RestTemplate restTemplate,
+                      @Value("${hocs.basicauth}") String basicAuth,
+                      RequestData requestData,
+                      DownstreamGuard downstreamGuard,
+                      @Value("${retry.maxAttempts}") int maxAttempts,
+                      @Value("${retry.initial-interval:200}") long initialInterval,
+                      @Value("${retry.max-interval:2000}") long maxInterval,
+                      MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
         this.basicAuth = basicAuth;
         this.requestData = requestData;
+        this.downstreamGuard = downstreamGuard;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialInterval = initialInterval;
+        this.maxInterval = maxInterval;
+        this.meterRegistry = meterRegistry;
     }
 
-    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
     public <T,R> R post(String serviceBaseURL, String url, T request, Class<R> responseType) {
-        log.info("RestHelper making POST request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_POST));
-        ResponseEntity<R> response = restTemplate.exchange(String.format("%s%s", serviceBaseURL, url), HttpMethod.POST, new HttpEntity<>(request, createAuthHeaders()), responseType);
-        return response.getBody();
+        return withRetry(serviceBaseURL, url, HttpMethod.POST, () -> {
+            log.info("RestHelper making POST request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_POST));
+            ResponseEntity<R> response = restTemplate.exchange(String.format("%s%s", serviceBaseURL, url), HttpMethod.POST, new HttpEntity<>(request, createWriteHeaders(HttpMethod.POST, url)), responseType);
+            return response.getBody();
+        });
     }
 
-    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
     public <T,R> R put(String serviceBaseURL, String url, T request, Class<R> responseType) {
-        log.info("RestHelper making PUT request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_PUT));
-        ResponseEntity<R> response = restTemplate.exchange(String.format("%s%s", serviceBaseURL, url), HttpMethod.PUT, new HttpEntity<>(request, createAuthHeaders()), responseType);
-        return response.getBody();
+        return withRetry(serviceBaseURL, url, HttpMethod.PUT, () -> {
+            log.info("RestHelper making PUT request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_PUT));
+            ResponseEntity<R> response = restTemplate.exchange(String.format("%s%s", serviceBaseURL, url), HttpMethod.PUT, new HttpEntity<>(request, createWriteHeaders(HttpMethod.PUT, url)), responseType);
+            return response.getBody();
+        });
     }
 
-    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
     public <R> R get(String serviceBaseURL, String url, Class<R> responseType) {
-        log.info("RestHelper making GET request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_GET));
-        ResponseEntity<R> response = restTemplate.exchange(String.format("%s%s", serviceBaseURL, url), HttpMethod.GET, new HttpEntity<>(null, createAuthHeaders()), responseType);
-        return response.getBody();
+        return withRetry(serviceBaseURL, url, HttpMethod.GET, () -> {
+            log.info("RestHelper making GET request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_GET));
+            ResponseEntity<R> response = restTemplate.exchange(String.format("%s%s", serviceBaseURL, url), HttpMethod.GET, new HttpEntity<>(null, createAuthHeaders()), responseType);
+            return response.getBody();
+        });
     }
 
-    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
     public <R> R get(String serviceBaseURL, String url, ParameterizedTypeReference<R> responseType) {
-        log.info("RestHelper making GET request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_GET));
-        ResponseEntity<R> response = restTemplate.exchange(String.format("%s%s", serviceBaseURL, url), HttpMethod.GET, new HttpEntity<>(null, createAuthHeaders()), responseType);
-        return response.getBody();
+        return withRetry(serviceBaseURL, url, HttpMethod.GET, () -> {
+            log.info("RestHelper making GET request to {}{}", serviceBaseURL, url, value(EVENT, REST_HELPER_GET));
+            ResponseEntity<R> response = restTemplate.exchange(String.format("%s%s", serviceBaseURL, url), HttpMethod.GET, new HttpEntity<>(null, createAuthHeaders()), responseType);
+            return response.getBody();
+        });
+    }
+
+    private <R> R withRetry(String serviceBaseURL, String url, HttpMethod method, Supplier<R> exchange) {
+        String downstream = downstreamGuard.nameFor(serviceBaseURL);
+        String uri = uriTemplate(url);
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                R result = downstreamGuard.call(serviceBaseURL, exchange);
+                recordAttempt(meterRegistry, downstream, method, uri, attempt, "SUCCESS", start);
+                return result;
+            } catch (RuntimeException e) {
+                recordAttempt(meterRegistry, downstream, method, uri, attempt, outcome(e), start);
+                if (attempt >= maxAttempts || !isRetryable(e, method != HttpMethod.POST)) {
+                    throw e;
+                }
+                long delay = backoff(attempt);
+                log.warn("RestHelper attempt {} to {}{} failed, retrying in {}ms: {}", attempt, serviceBaseURL, url, delay, e.getMessage(),
+                        value(EVENT, REST_HELPER_RETRY));
+                countRetry(meterRegistry, downstream, method, uri);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    static void recordAttempt(MeterRegistry meterRegistry, String downstream, HttpMethod method, String uri, int attempt,
+                              String outcome, long start) {
+        Timer.builder("downstream.requests")
+                .description("Calls made to the downstream services, per attempt")
+                .tag("downstream", downstream)
+                .tag("method", method.name())
+                .tag("uri", uri)
+                .tag("outcome", outcome)
+                .tag("attempt", String.valueOf(attempt))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    static void countRetry(MeterRegistry meterRegistry, String downstream, HttpMethod method, String uri) {
+        Counter.builder("downstream.requests.retries")
+                .tag("downstream", downstream)
+                .tag("method", method.name())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    static String outcome(RuntimeException e) {
+        if (e instanceof DownstreamGuard.CallRejectedException) {
+            return "REJECTED";
+        } else if (e instanceof HttpClientErrorException) {
+            return "CLIENT_ERROR";
+        } else if (e instanceof HttpServerErrorException) {
+            return "SERVER_ERROR";
+        } else if (e instanceof ResourceAccessException) {
+            return "IO_ERROR";
+        }
+        return "UNKNOWN";
+    }
+
+    /**
+     * Turns a formatted URL back into its template, e.g. /case/{}/stage/{}/data, so it can be used as a tag. Path
+     * literals in the downstream APIs all start with a lower case letter and contain no digits; any other segment,
+     * and every query parameter value, is taken to be a value.
+     */
+    static String uriTemplate(String url) {
+        int queryStart = url.indexOf('?');
+        String path = queryStart >= 0 ? url.substring(0, queryStart) : url;
+        String template = Arrays.stream(path.split("/", -1))
+                .map(segment -> isPathValue(segment) ? "{}" : segment)
+                .collect(Collectors.joining("/"));
+        if (queryStart >= 0) {
+            template += "?" + Arrays.stream(url.substring(queryStart + 1).split("&"))
+                    .map(parameter -> parameter.contains("=") ? parameter.substring(0, parameter.indexOf('=')) + "={}" : parameter)
+                    .collect(Collectors.joining("&"));
+        }
+        return template;
+    }
+
+    private static boolean isPathValue(String segment) {
+        return !segment.isEmpty()
+                && (!Character.isLowerCase(segment.charAt(0)) || segment.chars().anyMatch(Character::isDigit));
+    }
+
+    static boolean isRetryable(RuntimeException e, boolean idempotent) {
+        if (e instanceof DownstreamGuard.CallRejectedException) {
+            return false;
+        }
+        if (idempotent) {
+            return DownstreamGuard.isFailure(e);
+        }
+        return e instanceof ResourceAccessException && (e.getCause() instanceof ConnectException || e.getCause() instanceof ConnectTimeoutException);
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": at least half the exponential delay, plus a random share of the rest.
+     */
+    long backoff(int attempt) {
+        return backoff(attempt, initialInterval, maxInterval);
+    }
+
+    static long backoff(int attempt, long initialInterval, long maxInterval) {
+        long exponential = Math.min(maxInterval, initialInterval << Math.min(attempt - 1, 30));
+        long half = exponential / 2;
+        return half + ThreadLocalRandom.current().nextLong(exponential - half + 1);
     }
 
     private HttpHeaders createAuthHeaders() {
@@ -72,6 +234,15 @@ public class RestHelper {
         return headers;
     }
 
+    private HttpHeaders createWriteHeaders(HttpMethod method, String url) {
+        HttpHeaders headers = createAuthHeaders();
+        String idempotencyKey = IdempotencyKey.forRequest(method, url);
+        if (idempotencyKey != null) {
+            headers.add(IdempotencyKey.HEADER, idempotencyKey);
+        }
+        return headers;
+    }
+
     private String getBasicAuth() { return String.format("Basic %s", Base64.getEncoder().encodeToString(basicAuth.getBytes(Charset.forName("UTF-8")))); }
 
 }
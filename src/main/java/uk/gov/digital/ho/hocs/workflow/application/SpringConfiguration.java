@@ -4,25 +4,37 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.CaseSnapshotCache;
+import uk.gov.digital.ho.hocs.workflow.security.UserSecurityContext;
 
 import java.text.SimpleDateFormat;
 
 @Configuration
 public class SpringConfiguration implements WebMvcConfigurer {
 
+    private final CaseSnapshotCache caseSnapshotCache;
+    private final UserSecurityContext userSecurityContext;
+
+    public SpringConfiguration(CaseSnapshotCache caseSnapshotCache, UserSecurityContext userSecurityContext) {
+        this.caseSnapshotCache = caseSnapshotCache;
+        this.userSecurityContext = userSecurityContext;
+    }
+
     @Bean
     public RequestData createRequestData() {
         return new RequestData();
     }
 
     @Bean
-    public RestTemplate createRestTemplate() {
-        return new RestTemplate();
+    public RestTemplate createRestTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
     }
 
     @Bean
@@ -40,5 +52,7 @@ public class SpringConfiguration implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(createRequestData());
+        registry.addInterceptor(caseSnapshotCache);
+        registry.addInterceptor(userSecurityContext);
     }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package uk.gov.digital.ho.hocs.workflow.client.camundaclient;
 import lombok.extern.slf4j.Slf4j;
 import org.camunda.bpm.engine.RuntimeService;
 import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.exception.NotFoundException;
+import org.camunda.bpm.engine.exception.NullValueException;
 import org.camunda.bpm.engine.runtime.ProcessInstance;
 import org.camunda.bpm.engine.runtime.VariableInstance;
 import org.camunda.bpm.engine.task.Task;
@@ -11,8 +13,11 @@ import org.springframework.stereotype.Component;
 import uk.gov.digital.ho.hocs.workflow.domain.exception.ApplicationExceptions;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static net.logstash.logback.argument.StructuredArguments.value;
 import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
@@ -21,13 +26,19 @@ import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
 @Component
 public class CamundaClient {
 
+    private static final String SCREEN = "screen";
+    private static final String STAGE_PROCESS = "STAGE";
+    private static final String STAGE_UUID = "StageUUID";
+
     private final RuntimeService runtimeService;
     private final TaskService taskService;
+    private final StageTaskIndex stageTaskIndex;
 
     @Autowired
-    public CamundaClient(RuntimeService runtimeService, TaskService taskService) {
+    public CamundaClient(RuntimeService runtimeService, TaskService taskService, StageTaskIndex stageTaskIndex) {
         this.runtimeService = runtimeService;
         this.taskService = taskService;
+        this.stageTaskIndex = stageTaskIndex;
     }
 
     public void startCase(UUID caseUUID, String caseDataType, Map<String,String> data) {
@@ -41,43 +52,84 @@ public class CamundaClient {
     }
 
     /**
-     * This currently only supports sequential stages in BPMN diagrams,
-     * to support parallel stages we need expect multiple Task objects back from the task service
-     * (we can't call .singleResult() like we do now)
-     * We then need a way to determine which stage we are allocating (using stageUUID?)
+     * Completes the active task of the stage's workflow. Tasks are looked up per stage UUID, so several stages of
+     * the same case can be active at once.
      */
     public void completeTask(UUID key, Map<String,String> data) {
-        String taskId = getTaskIdByBusinessKey(key);
-        taskService.complete(taskId, new HashMap<>(data));
+        withTask(key, taskId -> taskService.complete(taskId, new HashMap<>(data)));
         log.info("Completed task for key: '{}'", key, value(EVENT, TASK_COMPLETED));
     }
 
     public void updateTask(UUID key, Map<String,String> data) {
-        String taskId = getTaskIdByBusinessKey(key);
-        taskService.setVariables(taskId, new HashMap<>(data));
+        withTask(key, taskId -> taskService.setVariables(taskId, new HashMap<>(data)));
         log.info("Updated task for key: '{}'", key, value(EVENT, TASK_COMPLETED));
     }
 
 
+    /**
+     * Reads the screen captured with the stage's current task, falling back to the engine when the index has no
+     * fresh screen for it.
+     */
     public String getStageScreenName(UUID stageUUID) {
-        String screenName = getPropertyByBusinessKey(stageUUID, "screen");
+        String screenName = getScreenByBusinessKey(stageUUID);
         log.info("Got current stage for bpmn Stage: '{}' Screen: '{}'", stageUUID, screenName, value(EVENT, CURRENT_STAGE_RETRIEVED));
         return screenName == null || screenName.equals("null") ? "FINISH" : screenName;
     }
 
+    /**
+     * Returns the UUID of the stage the case is waiting in, read from its STAGE process, or null when the case is not
+     * in exactly one stage.
+     */
+    public UUID getActiveStageUUID(UUID caseUUID) {
+        List<ProcessInstance> stages = runtimeService.createProcessInstanceQuery()
+                .processInstanceBusinessKey(caseUUID.toString())
+                .processDefinitionKey(STAGE_PROCESS)
+                .list();
+        if (stages.size() != 1) {
+            return null;
+        }
+        Object stageUUID = runtimeService.getVariable(stages.get(0).getId(), STAGE_UUID);
+        return stageUUID != null ? UUID.fromString(stageUUID.toString()) : null;
+    }
+
+    private void withTask(UUID businessKey, Consumer<String> action) {
+        StageTaskIndex.StageEntry entry = stageTaskIndex.get(businessKey);
+        String taskId = entry != null ? entry.activeTaskId() : null;
+        if (taskId != null) {
+            try {
+                action.accept(taskId);
+                return;
+            } catch (NotFoundException | NullValueException e) {
+                if (taskService.createTaskQuery().taskId(taskId).count() > 0) {
+                    throw e;
+                }
+                log.warn("Indexed task {} for key: '{}' no longer exists, querying for it", taskId, businessKey);
+                stageTaskIndex.evict(businessKey);
+            }
+        }
+        action.accept(getTaskIdByBusinessKey(businessKey));
+    }
+
     private String getTaskIdByBusinessKey(UUID businessKey) {
-        Task task = taskService.createTaskQuery()
+        List<Task> tasks = taskService.createTaskQuery()
                 .processInstanceBusinessKey(businessKey.toString())
-                .singleResult();
+                .orderByTaskCreateTime().asc()
+                .list();
 
-        if(task != null) {
-            return task.getId();
+        if(!tasks.isEmpty()) {
+            stageTaskIndex.put(businessKey, tasks.get(0).getProcessInstanceId(), tasks.stream().map(Task::getId).collect(Collectors.toList()));
+            return tasks.get(0).getId();
         } else {
         throw new ApplicationExceptions.EntityNotFoundException(String.format("No tasks returned %s", businessKey), TASK_RETRIEVAL_FAILURE);
         }
     }
 
     private String getProcessIdByBusinessKey(UUID businessKey) {
+        StageTaskIndex.StageEntry entry = stageTaskIndex.get(businessKey);
+        if (entry != null) {
+            return entry.getProcessInstanceId();
+        }
+
         ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
                 .processInstanceBusinessKey(businessKey.toString())
                 .singleResult();
@@ -89,19 +141,42 @@ public class CamundaClient {
         }
     }
 
-    private String getPropertyByBusinessKey(UUID businessKey, String key) {
+    private String getScreenByBusinessKey(UUID businessKey) {
+        StageTaskIndex.StageEntry entry = stageTaskIndex.get(businessKey);
+        if (entry != null && entry.isEnded()) {
+            return null;
+        }
+        if (entry != null && entry.currentScreen() != null) {
+            return entry.currentScreen();
+        }
 
         String processInstanceId = getProcessIdByBusinessKey(businessKey);
+        if (processInstanceId == null) {
+            return null;
+        }
 
-        VariableInstance instance = runtimeService.createVariableInstanceQuery()
-                .processInstanceIdIn(processInstanceId)
-                .variableName(key)
-                .singleResult();
+        VariableInstance instance = getScreenVariable(processInstanceId);
+        if (instance == null && entry != null) {
+            // The indexed process may have ended on another instance, which can also have reused the stage UUID.
+            log.debug("No screen for indexed process {} of key: '{}', querying for the process", processInstanceId, businessKey);
+            stageTaskIndex.evict(businessKey);
+            processInstanceId = getProcessIdByBusinessKey(businessKey);
+            instance = processInstanceId != null ? getScreenVariable(processInstanceId) : null;
+        }
 
         if (instance != null) {
-            return (String) instance.getValue();
+            String screenName = (String) instance.getValue();
+            stageTaskIndex.putScreen(businessKey, processInstanceId, screenName);
+            return screenName;
         } else {
             return null;
         }
     }
+
+    private VariableInstance getScreenVariable(String processInstanceId) {
+        return runtimeService.createVariableInstanceQuery()
+                .processInstanceIdIn(processInstanceId)
+                .variableName(SCREEN)
+                .singleResult();
+    }
 }
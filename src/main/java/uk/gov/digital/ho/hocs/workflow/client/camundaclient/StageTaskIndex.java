@@ -0,0 +1,210 @@
+package uk.gov.digital.ho.hocs.workflow.client.camundaclient;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.DelegateTask;
+import org.camunda.bpm.engine.delegate.ExecutionListener;
+import org.camunda.bpm.engine.delegate.TaskListener;
+import org.camunda.bpm.engine.impl.bpmn.behavior.UserTaskActivityBehavior;
+import org.camunda.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.camunda.bpm.engine.impl.bpmn.parser.BpmnParseListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.camunda.bpm.engine.impl.pvm.process.ScopeImpl;
+import org.camunda.bpm.engine.impl.task.TaskDefinition;
+import org.camunda.bpm.engine.impl.util.xml.Element;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps a stage UUID, the business key of the stage's workflow process, to that process instance, its active
+ * user tasks and the screen they show, so CamundaClient can find a stage's task without a business key query. It
+ * is kept current by listeners added to every user task and process as the BPMN is parsed, and changes are only
+ * applied once the engine transaction commits. Tasks this node has not seen (e.g. created on another instance) are not indexed,
+ * and callers fall back to querying for them.
+ * <p>
+ * Entries for live stages expire after they stop being read. Entries for ended stages expire a short, fixed time
+ * after the stage ended however often they are read, as the stage UUID can be reused by a process started on
+ * another instance.
+ */
+@Slf4j
+@Component
+public class StageTaskIndex {
+
+    private static final String SCREEN = "screen";
+
+    private final Cache<String, StageEntry> stages;
+
+    private final long screenTtl;
+
+    @Autowired
+    public StageTaskIndex(@Value("${camunda.stage-index.max-size:50000}") long maxSize,
+                          @Value("${camunda.stage-index.expire-after-access:43200000}") long expireAfterAccess,
+                          @Value("${camunda.stage-index.screen-ttl:10000}") long screenTtl,
+                          @Value("${camunda.stage-index.ended-ttl:10000}") long endedTtl) {
+        this.screenTtl = screenTtl;
+        this.stages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new StageExpiry(TimeUnit.MILLISECONDS.toNanos(expireAfterAccess), TimeUnit.MILLISECONDS.toNanos(endedTtl)))
+                .build();
+    }
+
+    public BpmnParseListener parseListener() {
+        return new AbstractBpmnParseListener() {
+            @Override
+            public void parseUserTask(Element userTaskElement, ScopeImpl scope, ActivityImpl activity) {
+                TaskDefinition taskDefinition = ((UserTaskActivityBehavior) activity.getActivityBehavior()).getTaskDefinition();
+                taskDefinition.addTaskListener(TaskListener.EVENTNAME_CREATE, StageTaskIndex.this::onTaskCreated);
+                taskDefinition.addTaskListener(TaskListener.EVENTNAME_COMPLETE, StageTaskIndex.this::onTaskEnded);
+                taskDefinition.addTaskListener(TaskListener.EVENTNAME_DELETE, StageTaskIndex.this::onTaskEnded);
+            }
+
+            @Override
+            public void parseProcess(Element processElement, ProcessDefinitionEntity processDefinition) {
+                processDefinition.addListener(ExecutionListener.EVENTNAME_END, (ExecutionListener) StageTaskIndex.this::onProcessEnded);
+            }
+        };
+    }
+
+    StageEntry get(UUID stageUUID) {
+        return stages.getIfPresent(stageUUID.toString());
+    }
+
+    void put(UUID stageUUID, String processInstanceId, List<String> taskIds) {
+        stages.put(stageUUID.toString(), new StageEntry(processInstanceId, List.copyOf(taskIds), null, 0));
+    }
+
+    /**
+     * Caches a screen name read from the engine for a short time, keeping any tasks already indexed for the same
+     * process instance.
+     */
+    void putScreen(UUID stageUUID, String processInstanceId, String screen) {
+        long screenExpiresAt = System.currentTimeMillis() + screenTtl;
+        stages.asMap().compute(stageUUID.toString(), (key, entry) -> {
+            List<String> taskIds = entry != null && processInstanceId.equals(entry.getProcessInstanceId()) ? entry.getTaskIds() : List.of();
+            return new StageEntry(processInstanceId, taskIds, screen, screenExpiresAt);
+        });
+    }
+
+    void evict(UUID stageUUID) {
+        stages.invalidate(stageUUID.toString());
+    }
+
+    void onTaskCreated(DelegateTask task) {
+        String businessKey = task.getExecution().getProcessBusinessKey();
+        String processInstanceId = task.getProcessInstanceId();
+        String taskId = task.getId();
+        if (businessKey == null) {
+            return;
+        }
+        Object screen = task.getVariable(SCREEN);
+        long screenExpiresAt = System.currentTimeMillis() + screenTtl;
+        afterCommit(() -> stages.asMap().compute(businessKey, (key, entry) -> {
+            List<String> taskIds = new ArrayList<>();
+            if (entry != null && processInstanceId.equals(entry.getProcessInstanceId())) {
+                taskIds.addAll(entry.getTaskIds());
+            }
+            taskIds.add(taskId);
+            return new StageEntry(processInstanceId, List.copyOf(taskIds), screen != null ? screen.toString() : null, screenExpiresAt);
+        }));
+    }
+
+    void onTaskEnded(DelegateTask task) {
+        String businessKey = task.getExecution().getProcessBusinessKey();
+        String taskId = task.getId();
+        if (businessKey == null) {
+            return;
+        }
+        afterCommit(() -> stages.asMap().computeIfPresent(businessKey, (key, entry) -> {
+            List<String> taskIds = new ArrayList<>(entry.getTaskIds());
+            taskIds.remove(taskId);
+            return new StageEntry(entry.getProcessInstanceId(), List.copyOf(taskIds), null, 0);
+        }));
+    }
+
+    void onProcessEnded(DelegateExecution execution) {
+        String businessKey = execution.getProcessBusinessKey();
+        String processInstanceId = execution.getProcessInstanceId();
+        if (businessKey == null) {
+            return;
+        }
+        afterCommit(() -> stages.asMap().computeIfPresent(businessKey, (key, entry) ->
+                processInstanceId.equals(entry.getProcessInstanceId()) ? StageEntry.ENDED : entry));
+    }
+
+    private static void afterCommit(Runnable change) {
+        CommandContext commandContext = Context.getCommandContext();
+        if (commandContext == null) {
+            change.run();
+            return;
+        }
+        commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, context -> change.run());
+    }
+
+    /**
+     * Expires live stages after they were last read and ended stages a fixed time after they ended.
+     */
+    @AllArgsConstructor
+    private static class StageExpiry implements Expiry<String, StageEntry> {
+        private final long expireAfterAccessNanos;
+        private final long endedTtlNanos;
+
+        @Override
+        public long expireAfterCreate(String key, StageEntry entry, long currentTime) {
+            return entry.isEnded() ? endedTtlNanos : expireAfterAccessNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, StageEntry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, StageEntry entry, long currentTime, long currentDuration) {
+            return entry.isEnded() ? currentDuration : expireAfterAccessNanos;
+        }
+    }
+
+    /**
+     * The stage's process instance, its active task IDs (oldest first) and the screen captured when the latest
+     * task was created. The screen is dropped when a task completes and expires after the screen TTL, so another
+     * node moving the stage on is picked up quickly. A stage whose process has ended is kept as {@link #ENDED} for
+     * the ended TTL so a final screen lookup needs no query.
+     */
+    @AllArgsConstructor
+    @Getter
+    static class StageEntry {
+        static final StageEntry ENDED = new StageEntry(null, List.of(), null, 0);
+
+        private final String processInstanceId;
+        private final List<String> taskIds;
+        private final String screen;
+        private final long screenExpiresAt;
+
+        boolean isEnded() {
+            return processInstanceId == null;
+        }
+
+        String activeTaskId() {
+            return taskIds.isEmpty() ? null : taskIds.get(0);
+        }
+
+        String currentScreen() {
+            return System.currentTimeMillis() < screenExpiresAt ? screen : null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package uk.gov.digital.ho.hocs.workflow.client.caseworkclient;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.workflow.application.AsyncRestHelper;
+import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.dto.GetAllStagesForCaseResponse;
+import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.dto.GetCaseworkCaseDataResponse;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variants of the {@link CaseworkClient} reads that the case views make side by side.
+ */
+@Slf4j
+@Component
+public class AsyncCaseworkClient {
+
+    private final AsyncRestHelper asyncRestHelper;
+    private final String serviceBaseURL;
+
+    @Autowired
+    public AsyncCaseworkClient(AsyncRestHelper asyncRestHelper,
+                               @Value("${hocs.case-service}") String caseService) {
+        this.asyncRestHelper = asyncRestHelper;
+        this.serviceBaseURL = caseService;
+    }
+
+    public CompletableFuture<GetCaseworkCaseDataResponse> getFullCase(UUID caseUUID) {
+        return asyncRestHelper.get(serviceBaseURL, String.format("/case/%s/?full=true", caseUUID), GetCaseworkCaseDataResponse.class)
+                .thenApply(response -> {
+                    log.info("Got Full Case: {}", caseUUID);
+                    return response;
+                });
+    }
+
+    public CompletableFuture<GetAllStagesForCaseResponse> getAllStagesForCase(UUID caseUUID) {
+        return asyncRestHelper.get(serviceBaseURL, String.format("/stage/case/%s", caseUUID), GetAllStagesForCaseResponse.class)
+                .thenApply(response -> {
+                    log.info("Got all stages for case: {}", caseUUID);
+                    return response;
+                });
+    }
+}
@@ -0,0 +1,142 @@
+package uk.gov.digital.ho.hocs.workflow.client.caseworkclient;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.dto.GetCaseworkCaseDataResponse;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Memoises case reads for the lifetime of one HTTP request, or of one Camunda transaction when no request is in
+ * progress (e.g. the job executor). Outside either scope every call goes straight through to the loader.
+ * <p>
+ * Snapshots hold their own read-only copy of the case data and every caller gets a fresh copy, so changes a caller
+ * makes to what it was given never leak into the snapshot or into another caller's view.
+ */
+@Slf4j
+@Component
+public class CaseSnapshotCache implements HandlerInterceptor {
+
+    private static final ThreadLocal<Map<UUID, CaseSnapshot>> SNAPSHOTS = new ThreadLocal<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SNAPSHOTS.set(new HashMap<>());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SNAPSHOTS.remove();
+    }
+
+    GetCaseworkCaseDataResponse getCase(UUID caseUUID, Supplier<GetCaseworkCaseDataResponse> loader) {
+        CaseSnapshot snapshot = snapshotFor(caseUUID);
+        if (snapshot == null) {
+            return loader.get();
+        }
+        if (snapshot.caseData == null) {
+            snapshot.caseData = withData(loader.get(), null, true);
+        } else {
+            log.debug("Reusing case snapshot for Case: {}", caseUUID);
+        }
+        return withData(snapshot.caseData, null, false);
+    }
+
+    String getDataValue(UUID caseUUID, String variableName, Supplier<String> loader) {
+        CaseSnapshot snapshot = snapshotFor(caseUUID);
+        if (snapshot == null) {
+            return loader.get();
+        }
+        if (snapshot.dataValues.containsKey(variableName)) {
+            return snapshot.dataValues.get(variableName);
+        }
+        if (snapshot.caseData != null && snapshot.caseData.getData() != null && snapshot.caseData.getData().containsKey(variableName)) {
+            return snapshot.caseData.getData().get(variableName);
+        }
+        String value = loader.get();
+        snapshot.dataValues.put(variableName, value);
+        return value;
+    }
+
+    void patch(UUID caseUUID, Map<String, String> data) {
+        Map<UUID, CaseSnapshot> snapshots = SNAPSHOTS.get();
+        if (snapshots == null || data == null) {
+            return;
+        }
+        CaseSnapshot snapshot = snapshots.get(caseUUID);
+        if (snapshot != null) {
+            snapshot.dataValues.putAll(data);
+            if (snapshot.caseData != null && snapshot.caseData.getData() != null) {
+                snapshot.caseData = withData(snapshot.caseData, data, true);
+            }
+        }
+    }
+
+    void invalidate(UUID caseUUID) {
+        Map<UUID, CaseSnapshot> snapshots = SNAPSHOTS.get();
+        if (snapshots != null) {
+            snapshots.remove(caseUUID);
+        }
+    }
+
+    private CaseSnapshot snapshotFor(UUID caseUUID) {
+        Map<UUID, CaseSnapshot> snapshots = SNAPSHOTS.get();
+        if (snapshots == null) {
+            snapshots = bindToCommandContext();
+        }
+        if (snapshots == null) {
+            return null;
+        }
+        return snapshots.computeIfAbsent(caseUUID, k -> new CaseSnapshot());
+    }
+
+    private static Map<UUID, CaseSnapshot> bindToCommandContext() {
+        CommandContext commandContext = Context.getCommandContext();
+        if (commandContext == null) {
+            return null;
+        }
+        Map<UUID, CaseSnapshot> snapshots = new HashMap<>();
+        SNAPSHOTS.set(snapshots);
+        TransactionListener clearSnapshots = context -> SNAPSHOTS.remove();
+        commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, clearSnapshots);
+        commandContext.getTransactionContext().addTransactionListener(TransactionState.ROLLED_BACK, clearSnapshots);
+        return snapshots;
+    }
+
+    private static GetCaseworkCaseDataResponse withData(GetCaseworkCaseDataResponse caseData, Map<String, String> patch, boolean readOnly) {
+        if (caseData == null) {
+            return null;
+        }
+        Map<String, String> data = null;
+        if (caseData.getData() != null) {
+            data = new HashMap<>(caseData.getData());
+            if (patch != null) {
+                data.putAll(patch);
+            }
+            if (readOnly) {
+                data = Collections.unmodifiableMap(data);
+            }
+        }
+        return new GetCaseworkCaseDataResponse(caseData.getUuid(), caseData.getCreated(), caseData.getType(),
+                caseData.getReference(), data, caseData.getCaseDeadline(), caseData.getDateReceived(),
+                caseData.getPrimaryTopicUUID(), caseData.getPrimaryTopic(), caseData.getPrimaryCorrespondentUUID(),
+                caseData.getPrimaryCorrespondent());
+    }
+
+    private static class CaseSnapshot {
+        private GetCaseworkCaseDataResponse caseData;
+        private final Map<String, String> dataValues = new HashMap<>();
+    }
+}
@@ -8,6 +8,7 @@ import uk.gov.digital.ho.hocs.workflow.application.RestHelper;
 import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.dto.*;
 
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -22,12 +23,15 @@ public class CaseworkClient {
 
     private final RestHelper restHelper;
     private final String serviceBaseURL;
+    private final CaseSnapshotCache caseSnapshotCache;
 
     @Autowired
     public CaseworkClient(RestHelper restHelper,
-                          @Value("${hocs.case-service}") String caseService) {
+                          @Value("${hocs.case-service}") String caseService,
+                          CaseSnapshotCache caseSnapshotCache) {
         this.restHelper = restHelper;
         this.serviceBaseURL = caseService;
+        this.caseSnapshotCache = caseSnapshotCache;
     }
 
     public CreateCaseworkCaseResponse createCase(String caseDataType, Map<String, String> data, LocalDate dateReceived) {
@@ -40,54 +44,64 @@ public class CaseworkClient {
     public void updateCase(UUID caseUUID, UUID stageUUID, Map<String, String> data) {
         UpdateCaseworkCaseDataRequest request = new UpdateCaseworkCaseDataRequest(data);
         restHelper.put(serviceBaseURL, String.format("/case/%s/stage/%s/data", caseUUID, stageUUID), request, Void.class);
+        caseSnapshotCache.patch(caseUUID, data);
         log.info("Set Case Data for Case {}", caseUUID);
     }
 
     public void completeCase(UUID caseUUID, boolean completed) {
         restHelper.put(serviceBaseURL, String.format("/case/%s/complete", caseUUID), completed, Void.class);
+        caseSnapshotCache.invalidate(caseUUID);
         log.info("Completed Case {}", caseUUID);
     }
 
     public Map<String, String> calculateTotals(UUID caseUUID, UUID stageUUID, String listName) {
         Map<String, String> totals = restHelper.put(serviceBaseURL, String.format("/case/%s/stage/%s/calculateTotals", caseUUID, stageUUID), listName, Map.class);
+        caseSnapshotCache.invalidate(caseUUID);
         log.info("Calculate totals for List {} for Case {}", listName, caseUUID);
         return totals;
     }
 
     public void updateDateReceived(UUID caseUUID, UUID stageUUID, LocalDate dateReceived) {
         restHelper.put(serviceBaseURL, String.format("/case/%s/stage/%s/dateReceived", caseUUID, stageUUID), dateReceived, Void.class);
+        caseSnapshotCache.invalidate(caseUUID);
         log.info("Set Date Received for Case {}", caseUUID);
     }
 
     public void updateDeadlineDays(UUID caseUUID, UUID stageUUID, int days){
         restHelper.put(serviceBaseURL, String.format("/case/%s/stage/%s/deadline", caseUUID, stageUUID), days, Void.class);
+        caseSnapshotCache.invalidate(caseUUID);
         log.info("Set Date Received for Case {} to {} days", caseUUID, days);
     }
 
     public void updateStageDeadline(UUID caseUUID, UUID stageUUID, String stageType, int days){
         UpdateStageDeadlineRequest updateStageDeadlineRequest = new UpdateStageDeadlineRequest(stageType, days);
         restHelper.put(serviceBaseURL, String.format("/case/%s/stage/%s/stageDeadline", caseUUID, stageUUID), updateStageDeadlineRequest, Void.class);
+        caseSnapshotCache.invalidate(caseUUID);
         log.info("Set Date Received for Case {} to {} days", caseUUID, days);
     }
 
     public void updateDeadlineForStages(UUID caseUUID, UUID stageUUID, Map<String, Integer> stageTypeAndDaysMap){
         UpdateDeadlineForStagesRequest updateDeadlineForStagesRequest = new UpdateDeadlineForStagesRequest(stageTypeAndDaysMap);
         restHelper.put(serviceBaseURL, String.format("/case/%s/stage/%s/stageDeadlines", caseUUID, stageUUID), updateDeadlineForStagesRequest, Void.class);
+        caseSnapshotCache.invalidate(caseUUID);
         log.info("Received {} stage deadline dates to be set for case {}", stageTypeAndDaysMap.size(), caseUUID);
     }
 
     public void updatePrimaryCorrespondent(UUID caseUUID, UUID stageUUID, UUID primaryCorrespondent) {
         restHelper.put(serviceBaseURL, String.format("/case/%s/stage/%s/primaryCorrespondent", caseUUID, stageUUID), primaryCorrespondent, Void.class);
+        caseSnapshotCache.invalidate(caseUUID);
         log.info("Set Primary Correspondent for Case {}", caseUUID);
     }
 
     public void updatePrimaryTopic(UUID caseUUID, UUID stageUUID, UUID primaryTopic) {
         restHelper.put(serviceBaseURL, String.format("/case/%s/stage/%s/primaryTopic", caseUUID, stageUUID), primaryTopic, Void.class);
+        caseSnapshotCache.invalidate(caseUUID);
         log.info("Set Primary Topic for Case {}", caseUUID);
     }
 
     public GetCaseworkCaseDataResponse getCase(UUID caseUUID) {
-        GetCaseworkCaseDataResponse response = restHelper.get(serviceBaseURL, String.format("/case/%s", caseUUID), GetCaseworkCaseDataResponse.class);
+        GetCaseworkCaseDataResponse response = caseSnapshotCache.getCase(caseUUID,
+                () -> restHelper.get(serviceBaseURL, String.format("/case/%s", caseUUID), GetCaseworkCaseDataResponse.class));
         log.info("Got Case: {}", caseUUID);
         return response;
     }
@@ -128,6 +142,7 @@ public class CaseworkClient {
     public Map<String, String> updateTeamByStageAndTexts(UUID caseUUID, UUID stageUUID, String stageType, String teamUUIDKey, String teamNameKey, String[] texts) {
         UpdateCaseworkTeamStageTextRequest request = new UpdateCaseworkTeamStageTextRequest(caseUUID, stageUUID, stageType, teamUUIDKey, teamNameKey, texts);
         UpdateCaseworkTeamStageTextResponse response = restHelper.put(serviceBaseURL, String.format("/case/%s/stage/%s/teamTexts", caseUUID, stageUUID), request, UpdateCaseworkTeamStageTextResponse.class);
+        caseSnapshotCache.invalidate(caseUUID);
         log.info("Updated Team {} on Stage: {} for Case {}", teamNameKey, stageUUID, caseUUID);
         return response.getTeamMap();
     }
@@ -166,13 +181,15 @@ public class CaseworkClient {
     }
 
     public String getDataValue(String caseUUID, String variableName) {
-        String response = restHelper.get(serviceBaseURL, String.format("/case/%s/data/%s", caseUUID, variableName), String.class);
+        String response = caseSnapshotCache.getDataValue(UUID.fromString(caseUUID), variableName,
+                () -> restHelper.get(serviceBaseURL, String.format("/case/%s/data/%s", caseUUID, variableName), String.class));
         log.info("Got {} value: {} for Case: {}", variableName, response, caseUUID);
         return response;
     }
 
     public void updateDataValue(String caseUUID, String variableName, String value) {
         restHelper.put(serviceBaseURL, String.format("/case/%s/data/%s", caseUUID, variableName), value, Void.class);
+        caseSnapshotCache.patch(UUID.fromString(caseUUID), Collections.singletonMap(variableName, value));
         log.info("Updated {} value: {} for Case: {}", variableName, value, caseUUID);
     }
 }
@@ -3,10 +3,15 @@ package uk.gov.digital.ho.hocs.workflow.client.documentclient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import uk.gov.digital.ho.hocs.workflow.application.RestHelper;
 import uk.gov.digital.ho.hocs.workflow.client.documentclient.dto.CreateCaseworkDocumentRequest;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static net.logstash.logback.argument.StructuredArguments.value;
@@ -37,4 +42,23 @@ public class DocumentClient {
         log.info("Get Document Name: {} for UUID {}", response, documentUUID);
         return response;
     }
+
+    /**
+     * Resolves several document names, one call per document. Documents that cannot be found are left out of the
+     * result.
+     */
+    public Map<UUID, String> getDocumentNames(Set<UUID> documentUUIDs) {
+        Map<UUID, String> names = new HashMap<>();
+        for (UUID documentUUID : documentUUIDs) {
+            try {
+                names.put(documentUUID, getDocumentName(documentUUID));
+            } catch (HttpClientErrorException exception) {
+                if (!HttpStatus.NOT_FOUND.equals(exception.getStatusCode())) {
+                    throw exception;
+                }
+                log.warn("Document name not found for document {}", documentUUID);
+            }
+        }
+        return names;
+    }
 }
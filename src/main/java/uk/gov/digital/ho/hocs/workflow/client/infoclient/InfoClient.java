@@ -3,7 +3,11 @@ package uk.gov.digital.ho.hocs.workflow.client.infoclient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.SimpleKey;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import uk.gov.digital.ho.hocs.workflow.api.dto.CaseDataType;
@@ -13,9 +17,14 @@ import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.CaseDetailsFieldDto
 import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
 import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.UserDto;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static net.logstash.logback.argument.StructuredArguments.value;
 import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
@@ -26,83 +35,143 @@ public class InfoClient {
 
     private final RestHelper restHelper;
     private final String serviceBaseURL;
+    private final CacheManager cacheManager;
 
     @Autowired
-    public InfoClient(RestHelper restHelper, @Value("${hocs.info-service}") String infoService) {
+    public InfoClient(RestHelper restHelper, @Value("${hocs.info-service}") String infoService, CacheManager cacheManager) {
         this.restHelper = restHelper;
         this.serviceBaseURL = infoService;
+        this.cacheManager = cacheManager;
     }
 
-    @Cacheable(value = "InfoClientGetCaseTypeByShortCode", unless = "#result == null", key = "#shortCode")
+    @Cacheable(value = "InfoClientGetCaseTypeByShortCode", key = "#shortCode", sync = true)
     public CaseDataType getCaseTypeByShortCode(String shortCode) {
         CaseDataType caseDataType = restHelper.get(serviceBaseURL, String.format("/caseType/shortCode/%s", shortCode), CaseDataType.class);
         log.info("Got CaseDataType {} for Short code {}", caseDataType.getDisplayCode(), shortCode, value(EVENT, INFO_CLIENT_GET_CASE_TYPE_SHORT_SUCCESS));
         return caseDataType;
     }
 
-    @Cacheable(value = "InfoClientGetSchemasForCaseTypeAndStages", unless = "#result.size() == 0")
+    /**
+     * Gets the schemas for each of the comma separated stage types, cached per (case type, stage type). The stage
+     * types not yet cached are fetched together in one call.
+     */
     public List<SchemaDto> getSchemasForCaseTypeAndStages(String caseType, String caseStages) {
-        List<SchemaDto> response = restHelper.get(
-                serviceBaseURL,
-                String.format("/schema/caseType/%s?stages=%s", caseType, caseStages),
-                new ParameterizedTypeReference<List<SchemaDto>>() {
-                }
-        );
-        log.info("Got {} schemas", response.size(), value(EVENT, INFO_CLIENT_GET_SCHEMAS_SUCCESS));
-        return response;
+        StageSchemas stageSchemas = new StageSchemas(cacheManager.getCache(StageSchemas.CACHE_NAME), caseType, caseStages,
+                stageTypes -> restHelper.get(
+                        serviceBaseURL,
+                        String.format("/schema/caseType/%s?stages=%s", caseType, String.join(",", stageTypes)),
+                        new ParameterizedTypeReference<List<SchemaDto>>() {
+                        }
+                ));
+        List<SchemaDto> schemas = stageSchemas.load();
+        log.info("Got {} schemas, fetching {} stage types", schemas.size(), stageSchemas.misses().size(), value(EVENT, INFO_CLIENT_GET_SCHEMAS_SUCCESS));
+        return schemas;
     }
 
-    @Cacheable(value = "InfoClientGetSchema", unless = "#result == null", key = "#type")
+    @Cacheable(value = "InfoClientGetSchema", key = "#type", sync = true)
     public SchemaDto getSchema(String type) {
         SchemaDto response = restHelper.get(serviceBaseURL, String.format("/schema/%s", type), SchemaDto.class);
         log.info("Got Form {}", type, value(EVENT, INFO_CLIENT_GET_FORM_SUCCESS));
         return response;
     }
 
-    @Cacheable(value = "InfoClientGetTeams", unless = "#result.size() == 0")
+    @Cacheable(value = "InfoClientGetTeams", sync = true)
     public Set<TeamDto> getTeams() {
-        Set<TeamDto> teams = restHelper.get(serviceBaseURL, "/team", new ParameterizedTypeReference<Set<TeamDto>>() {
-        });
-        log.info("Got {} teams", teams.size(), value(EVENT, INFO_CLIENT_GET_TEAMS_SUCCESS));
-        return teams;
+        return fetchAllTeams();
     }
 
-    @Cacheable(value = "InfoClientGetTeam", unless = "#result == null", key = "#teamUUID")
+    @CachePut(value = "InfoClientGetTeams", unless = "#result.size() == 0")
+    public Set<TeamDto> refreshTeams() {
+        return fetchAllTeams();
+    }
+
+    @Cacheable(value = "InfoClientGetTeam", key = "#teamUUID", sync = true)
     public TeamDto getTeam(UUID teamUUID) {
         TeamDto response = restHelper.get(serviceBaseURL, String.format("/team/%s", teamUUID), TeamDto.class);
         log.info("Got Team teamUUID {}", response.getUuid(), value(EVENT, INFO_CLIENT_GET_TEAM_SUCCESS));
         return response;
     }
 
-    @Cacheable(value = "InfoClientGetTeamForStageType", unless = "#result == null", key = "#stageType")
+    /**
+     * Resolves several teams at once. Teams already in the InfoClientGetTeam cache are used as they are; any others
+     * come from a single call for all teams, which also warms the per-team cache. A single miss is loaded on its own
+     * through the cache, so concurrent misses for the same team share one call.
+     */
+    public Map<UUID, TeamDto> getTeams(Set<UUID> teamUUIDs) {
+        Map<UUID, TeamDto> teams = new HashMap<>();
+        Cache teamCache = cacheManager.getCache("InfoClientGetTeam");
+        Set<UUID> misses = readCached(teamCache, teamUUIDs, uuid -> uuid, teams);
+
+        if (misses.size() > 1) {
+            for (TeamDto team : getAllTeams()) {
+                putCached(teamCache, team.getUuid(), team);
+                if (misses.remove(team.getUuid())) {
+                    teams.put(team.getUuid(), team);
+                }
+            }
+        }
+        // Anything left (a single miss, or a team no longer listed) is loaded individually through the cache.
+        for (UUID teamUUID : misses) {
+            Supplier<TeamDto> loader = () -> restHelper.get(serviceBaseURL, String.format("/team/%s", teamUUID), TeamDto.class);
+            TeamDto team = teamCache != null ? loadCached(teamCache, teamUUID, loader) : loader.get();
+            if (team != null) {
+                teams.put(teamUUID, team);
+            }
+        }
+        log.info("Got {} of {} teams", teams.size(), teamUUIDs.size(), value(EVENT, INFO_CLIENT_GET_TEAMS_SUCCESS));
+        return teams;
+    }
+
+    @Cacheable(value = "InfoClientGetTeamForStageType", key = "#stageType", sync = true)
     public UUID getTeamForStageType(String stageType) {
         TeamDto response = restHelper.get(serviceBaseURL, String.format("/stageType/%s/team", stageType), TeamDto.class);
         log.info("Got Team teamUUID {} for Stage {}", response.getUuid(), stageType, value(EVENT, INFO_CLIENT_GET_TEAM_FOR_STAGE_SUCCESS));
         return response.getUuid();
     }
 
-    @Cacheable(value = "InfoClientGetTeamForTopicAndStage", unless = "#result == null", key = "{ #caseUUID, #topicUUID, #stageType}")
+    @Cacheable(value = "InfoClientGetTeamForTopicAndStage", key = "{ #caseUUID, #topicUUID, #stageType}", sync = true)
     public TeamDto getTeamForTopicAndStage(UUID caseUUID, UUID topicUUID, String stageType) {
         TeamDto response = restHelper.get(serviceBaseURL, String.format("/team/case/%s/topic/%s/stage/%s", caseUUID, topicUUID, stageType), TeamDto.class);
         log.info("Got Team teamUUID {} for Topic {} and Stage {}", response.getUuid(), topicUUID, stageType, value(EVENT, INFO_CLIENT_GET_TEAM_FOR_TOPIC_STAGE_SUCCESS));
         return response;
     }
 
-    @Cacheable(value = "InfoClientGetUser", unless = "#result == null", key = "{ #userUUID}")
+    @Cacheable(value = "InfoClientGetUser", key = "{ #userUUID}", sync = true)
     public UserDto getUser(UUID userUUID) {
         UserDto userDto = restHelper.get(serviceBaseURL, String.format("/user/%s", userUUID), UserDto.class);
         log.info("Got User for UUID {}", userUUID, value(EVENT, INFO_CLIENT_GET_USER_SUCESS));
         return userDto;
     }
 
-    @Cacheable(value = "InfoClientGetUserForTeam", unless = "#result == null", key = "{ #teamUUID, #userUUID}")
+    /**
+     * Resolves several users at once, reading the InfoClientGetUser cache first and fetching each missing user on
+     * its own through that cache. The info service has no lookup for several users by UUID, and the full user list
+     * is far too large to download for a handful of users.
+     */
+    public Map<UUID, UserDto> getUsers(Set<UUID> userUUIDs) {
+        Map<UUID, UserDto> users = new HashMap<>();
+        Cache userCache = cacheManager.getCache("InfoClientGetUser");
+        Set<UUID> misses = readCached(userCache, userUUIDs, List::of, users);
+
+        for (UUID userUUID : misses) {
+            Supplier<UserDto> loader = () -> restHelper.get(serviceBaseURL, String.format("/user/%s", userUUID), UserDto.class);
+            UserDto user = userCache != null ? loadCached(userCache, List.of(userUUID), loader) : loader.get();
+            if (user != null) {
+                users.put(userUUID, user);
+            }
+        }
+        log.info("Got {} of {} users, fetching {}", users.size(), userUUIDs.size(), misses.size(), value(EVENT, INFO_CLIENT_GET_USER_SUCESS));
+        return users;
+    }
+
+    @Cacheable(value = "InfoClientGetUserForTeam", key = "{ #teamUUID, #userUUID}", sync = true)
     public UserDto getUserForTeam(UUID teamUUID, UUID userUUID) {
         UserDto userDto = restHelper.get(serviceBaseURL, String.format("/teams/%s/member/%s", teamUUID, userUUID), UserDto.class);
         log.info("Got User for Team {} for User {}", teamUUID, userUUID, value(EVENT, INFO_CLIENT_GET_USER_SUCESS));
         return userDto;
     }
 
-    @Cacheable(value = "InfoClientGetCaseDetailsFieldDtos", unless = "#result == null", key = "{ #caseType}")
+    @Cacheable(value = "InfoClientGetCaseDetailsFieldDtos", key = "{ #caseType}", sync = true)
     public List<CaseDetailsFieldDto> getCaseDetailsFieldsByCaseType(String caseType) {
         List<CaseDetailsFieldDto> caseDetailsFieldDtos = restHelper.get(serviceBaseURL, String.format("/caseDetailsFields/%s", caseType), new ParameterizedTypeReference<List<CaseDetailsFieldDto>>() {
         });
@@ -110,5 +179,55 @@ public class InfoClient {
         return caseDetailsFieldDtos;
     }
 
+    /**
+     * Reads the InfoClientGetTeams entry through the cache, so concurrent misses share one call for all teams.
+     */
+    private Set<TeamDto> getAllTeams() {
+        Cache teamsCache = cacheManager.getCache("InfoClientGetTeams");
+        if (teamsCache == null) {
+            return fetchAllTeams();
+        }
+        return loadCached(teamsCache, SimpleKey.EMPTY, this::fetchAllTeams);
+    }
 
-}
\ No newline at end of file
+    private Set<TeamDto> fetchAllTeams() {
+        Set<TeamDto> teams = restHelper.get(serviceBaseURL, "/team", new ParameterizedTypeReference<Set<TeamDto>>() {
+        });
+        log.info("Got {} teams", teams.size(), value(EVENT, INFO_CLIENT_GET_TEAMS_SUCCESS));
+        return teams;
+    }
+
+    /**
+     * Loads through the cache, so concurrent misses for the same key share one call.
+     */
+    static <V> V loadCached(Cache cache, Object key, Supplier<V> loader) {
+        try {
+            return cache.get(key, loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Set<UUID> readCached(Cache cache, Set<UUID> uuids, Function<UUID, Object> key, Map<UUID, V> found) {
+        Set<UUID> misses = new HashSet<>();
+        for (UUID uuid : uuids) {
+            Cache.ValueWrapper cached = cache != null ? cache.get(key.apply(uuid)) : null;
+            if (cached != null && cached.get() != null) {
+                found.put(uuid, (V) cached.get());
+            } else {
+                misses.add(uuid);
+            }
+        }
+        return misses;
+    }
+
+    private static void putCached(Cache cache, Object key, Object value) {
+        if (cache != null) {
+            cache.put(key, value);
+        }
+    }
+}
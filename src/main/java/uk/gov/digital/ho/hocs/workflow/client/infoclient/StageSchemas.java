@@ -0,0 +1,117 @@
+package uk.gov.digital.ho.hocs.workflow.client.infoclient;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.SimpleKey;
+import uk.gov.digital.ho.hocs.workflow.api.dto.SchemaDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles the schemas for a case's stages from the InfoClientGetSchemasForCaseTypeAndStage cache, which holds the
+ * schemas of one (case type, stage type) each. Cache entries therefore grow with the number of stage types rather
+ * than with each distinct stage history, and only the stage types missing from the cache need fetching. A schema is
+ * only ever cached under the stage type it declares, so a case only gets the schemas of the stages it went through;
+ * schemas that declare none of the requested stage types are left out.
+ * <p>
+ * Every entry is loaded through the cache, so concurrent misses share one load and a failed fetch is answered from a
+ * stale entry where there is one. The stage types missing when the schemas were asked for are fetched together, once.
+ */
+class StageSchemas {
+
+    static final String CACHE_NAME = "InfoClientGetSchemasForCaseTypeAndStage";
+
+    private final Cache cache;
+    private final String caseType;
+    private final List<String> stageTypes;
+    private final Function<List<String>, List<SchemaDto>> fetcher;
+    private final List<String> misses = new ArrayList<>();
+    private Map<String, List<SchemaDto>> fetched;
+    private RuntimeException fetchFailure;
+
+    StageSchemas(Cache cache, String caseType, String caseStages, Function<List<String>, List<SchemaDto>> fetcher) {
+        this.cache = cache;
+        this.caseType = caseType;
+        this.fetcher = fetcher;
+        this.stageTypes = Arrays.stream(caseStages.split(","))
+                .map(String::trim)
+                .filter(stageType -> !stageType.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        for (String stageType : stageTypes) {
+            if (isMissing(stageType)) {
+                misses.add(stageType);
+            }
+        }
+    }
+
+    /**
+     * The stage types that need fetching, in the order the case went through them.
+     */
+    List<String> misses() {
+        return misses;
+    }
+
+    /**
+     * The schemas of each stage type in the order the case went through them.
+     */
+    List<SchemaDto> load() {
+        List<SchemaDto> schemas = new ArrayList<>();
+        for (String stageType : stageTypes) {
+            schemas.addAll(load(stageType));
+        }
+        return schemas;
+    }
+
+    private List<SchemaDto> load(String stageType) {
+        if (cache == null) {
+            return fetchMissing().getOrDefault(stageType, List.of());
+        }
+        return InfoClient.loadCached(cache, new SimpleKey(caseType, stageType), () -> {
+            if (misses.contains(stageType)) {
+                return fetchMissing().getOrDefault(stageType, List.of());
+            }
+            // Refreshing an entry that was cached when the schemas were asked for.
+            return group(fetcher.apply(List.of(stageType)), List.of(stageType)).getOrDefault(stageType, List.of());
+        });
+    }
+
+    private boolean isMissing(String stageType) {
+        if (cache == null) {
+            return true;
+        }
+        Cache.ValueWrapper cached = cache.get(new SimpleKey(caseType, stageType));
+        return cached == null || cached.get() == null;
+    }
+
+    private synchronized Map<String, List<SchemaDto>> fetchMissing() {
+        if (fetchFailure != null) {
+            throw fetchFailure;
+        }
+        if (fetched == null) {
+            try {
+                fetched = group(fetcher.apply(misses), misses);
+            } catch (RuntimeException e) {
+                fetchFailure = e;
+                throw e;
+            }
+        }
+        return fetched;
+    }
+
+    private static Map<String, List<SchemaDto>> group(List<SchemaDto> schemas, List<String> requested) {
+        Map<String, List<SchemaDto>> grouped = new HashMap<>();
+        for (SchemaDto schema : schemas) {
+            if (schema.getStageType() != null && requested.contains(schema.getStageType())) {
+                grouped.computeIfAbsent(schema.getStageType(), stageType -> new ArrayList<>()).add(schema);
+            }
+        }
+        grouped.replaceAll((stageType, stageSchemas) -> List.copyOf(stageSchemas));
+        return grouped;
+    }
+}
@@ -0,0 +1,28 @@
+package uk.gov.digital.ho.hocs.workflow.migration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor()
+@Getter
+public class MigrationStreamProgress {
+
+    @JsonProperty("type")
+    private final String type = "progress";
+
+    @JsonProperty("processed")
+    private final long processed;
+
+    @JsonProperty("failed")
+    private final long failed;
+
+    @JsonProperty("checkpoint")
+    private final long checkpoint;
+
+    @JsonProperty("perSecond")
+    private final double perSecond;
+
+    @JsonProperty("complete")
+    private final boolean complete;
+}
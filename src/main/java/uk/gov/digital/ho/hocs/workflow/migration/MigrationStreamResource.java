@@ -0,0 +1,43 @@
+package uk.gov.digital.ho.hocs.workflow.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Streaming versions of the migration endpoints, only available in the migration environment. The request and
+ * response bodies are newline delimited JSON; see {@link MigrationStreamService}.
+ */
+@RestController
+@Slf4j
+@Profile("migration")
+class MigrationStreamResource {
+
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private MigrationStreamService migrationStreamService;
+
+    @Autowired
+    public MigrationStreamResource(MigrationStreamService migrationStreamService) {
+        this.migrationStreamService = migrationStreamService;
+    }
+
+    @PostMapping(value = "migration/case/stream", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+    public void createCases(@RequestParam(value = "skip", defaultValue = "0") long skip, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        migrationStreamService.createCases(request.getInputStream(), response.getOutputStream(), skip);
+    }
+
+    @PostMapping(value = "migration/case/progress/stream", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+    public void progressCases(@RequestParam(value = "skip", defaultValue = "0") long skip, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        migrationStreamService.progressCases(request.getInputStream(), response.getOutputStream(), skip);
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.digital.ho.hocs.workflow.migration;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor()
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MigrationStreamResult {
+
+    static final String OK = "OK";
+    static final String FAILED = "FAILED";
+
+    @JsonProperty("type")
+    private final String type = "result";
+
+    @JsonProperty("line")
+    private final long line;
+
+    @JsonProperty("status")
+    private final String status;
+
+    @JsonProperty("result")
+    private final Object result;
+
+    @JsonProperty("error")
+    private final String error;
+}
@@ -0,0 +1,195 @@
+package uk.gov.digital.ho.hocs.workflow.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * Migrates cases from a stream of newline delimited JSON requests, one case per line, on the migration pool.
+ * A result line is written back for each request as it finishes, and a progress line every few results and at the
+ * end. Progress lines carry a checkpoint: the last line number up to which every line has been processed. A stream
+ * that is interrupted can be resumed by sending it again with that checkpoint as the number of lines to skip.
+ * <p>
+ * Lines are processed concurrently, so each case should appear at most once in a stream.
+ */
+@Service
+@Slf4j
+@Profile("migration")
+public class MigrationStreamService {
+
+    private final MigrationWorkflowService workflowService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter lineWriter;
+    private final Executor migrationExecutor;
+    private final int maxInFlight;
+    private final int reportInterval;
+
+    @Autowired
+    public MigrationStreamService(MigrationWorkflowService workflowService,
+                                  ObjectMapper objectMapper,
+                                  @Qualifier("migrationExecutor") Executor migrationExecutor,
+                                  @Value("${migration.stream.max-in-flight:32}") int maxInFlight,
+                                  @Value("${migration.stream.report-interval:100}") int reportInterval) {
+        this.workflowService = workflowService;
+        this.objectMapper = objectMapper;
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.migrationExecutor = migrationExecutor;
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        this.reportInterval = Math.max(reportInterval, 1);
+    }
+
+    void createCases(InputStream input, OutputStream output, long skip) throws IOException {
+        process(input, output, skip, MigrationCreateCaseRequest.class, workflowService::createCase);
+    }
+
+    void progressCases(InputStream input, OutputStream output, long skip) throws IOException {
+        process(input, output, skip, MigrationProgressCaseRequest.class, request -> workflowService.progressCase(
+                request.getCaseUUID(), request.getType(), request.getData(), request.getSeedData(),
+                request.getCorrespondent(), request.getDraftDocumentUUID(), request.getTopic()));
+    }
+
+    private <T> void process(InputStream input, OutputStream output, long skip, Class<T> type, Function<T, ?> handler) throws IOException {
+        ResultWriter results = new ResultWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), skip);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        log.info("Migration - Processing {} stream from line {}", type.getSimpleName(), skip + 1, value(EVENT, MIGRATION_EVENT));
+
+        long lineNumber = 0;
+        String line;
+        while (!results.isClosed() && (line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber <= skip) {
+                continue;
+            }
+            if (line.isBlank()) {
+                results.ignored(lineNumber);
+                continue;
+            }
+            long current = lineNumber;
+            String content = line;
+            inFlight.acquireUninterruptibly();
+            try {
+                migrationExecutor.execute(() -> {
+                    try {
+                        results.succeeded(current, handler.apply(objectMapper.readValue(content, type)));
+                    } catch (Exception e) {
+                        results.failed(current, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                results.failed(current, e);
+            }
+        }
+
+        inFlight.acquireUninterruptibly(maxInFlight);
+        results.finish();
+    }
+
+    /**
+     * Writes result and progress lines and tracks the checkpoint. Results arrive from the worker threads in any order.
+     */
+    private class ResultWriter {
+
+        private final Writer writer;
+        private final long started = System.nanoTime();
+        private final TreeSet<Long> finishedAhead = new TreeSet<>();
+        private long checkpoint;
+        private long processed;
+        private long failed;
+        private volatile boolean closed;
+
+        private ResultWriter(Writer writer, long skip) {
+            this.writer = writer;
+            this.checkpoint = skip;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        synchronized void ignored(long line) {
+            finished(line);
+        }
+
+        synchronized void succeeded(long line, Object result) {
+            processed++;
+            finished(line);
+            write(new MigrationStreamResult(line, MigrationStreamResult.OK, result, null));
+            reportEveryInterval();
+        }
+
+        synchronized void failed(long line, Exception e) {
+            processed++;
+            failed++;
+            finished(line);
+            log.warn("Migration - Line {} failed: {}", line, e.getMessage(), value(EVENT, MIGRATION_EVENT));
+            write(new MigrationStreamResult(line, MigrationStreamResult.FAILED, null, e.getMessage()));
+            reportEveryInterval();
+        }
+
+        synchronized void finish() {
+            MigrationStreamProgress progress = progress(true);
+            write(progress);
+            log.info("Migration - Stream finished, {} processed, {} failed, checkpoint {}", processed, failed, checkpoint,
+                    value(EVENT, MIGRATION_EVENT));
+        }
+
+        private void finished(long line) {
+            finishedAhead.add(line);
+            while (!finishedAhead.isEmpty() && finishedAhead.first() == checkpoint + 1) {
+                checkpoint = finishedAhead.pollFirst();
+            }
+        }
+
+        private void reportEveryInterval() {
+            if (processed % reportInterval == 0) {
+                write(progress(false));
+            }
+        }
+
+        private MigrationStreamProgress progress(boolean complete) {
+            double seconds = Math.max((System.nanoTime() - started) / 1_000_000_000d, 0.001);
+            return new MigrationStreamProgress(processed, failed, checkpoint, Math.round(processed / seconds * 10) / 10d, complete);
+        }
+
+        private void write(Object line) {
+            if (closed) {
+                return;
+            }
+            try {
+                writer.write(lineWriter.writeValueAsString(line));
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                closed = true;
+                log.warn("Migration - Stream closed by client at checkpoint {}: {}", checkpoint, e.getMessage(), value(EVENT, MIGRATION_EVENT));
+            }
+        }
+    }
+}
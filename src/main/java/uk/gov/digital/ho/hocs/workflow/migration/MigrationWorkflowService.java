@@ -1,5 +1,7 @@
 package uk.gov.digital.ho.hocs.workflow.migration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,6 +15,7 @@ import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
 import uk.gov.digital.ho.hocs.workflow.domain.exception.ApplicationExceptions;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,26 +23,67 @@ import java.util.UUID;
 
 import static net.logstash.logback.argument.StructuredArguments.value;
 import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+import static uk.gov.digital.ho.hocs.workflow.migration.MigrationWorkflowService.Step.*;
 
 @Service
 @Slf4j
 public class MigrationWorkflowService {
 
+    private static final String CASE_TASK_NONE = "None";
+
+    /**
+     * The steps that bring a migrated case up to its caseTask, in order, and the stage that leaves it in. Closed cases,
+     * whose caseTask is "None", are keyed by their markup decision as well.
+     */
+    private static final Map<String, Progression> PROGRESSIONS = progressions();
+    private static final Progression CLOSED = new Progression("Completed");
+    private static final Progression NO_PROGRESSION = new Progression(null);
+
     private final MigrationCaseworkClient migrationCaseworkClient;
     private final DocumentClient documentClient;
     private final InfoClient infoClient;
     private final CamundaClient camundaClient;
+    private final MeterRegistry meterRegistry;
 
 
     @Autowired
     public MigrationWorkflowService(MigrationCaseworkClient migrationCaseworkClient,
                                     DocumentClient documentClient,
                                     InfoClient infoClient,
-                                    CamundaClient camundaClient) {
+                                    CamundaClient camundaClient,
+                                    MeterRegistry meterRegistry) {
         this.migrationCaseworkClient = migrationCaseworkClient;
         this.documentClient = documentClient;
         this.infoClient = infoClient;
         this.camundaClient = camundaClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private static Map<String, Progression> progressions() {
+        Map<String, Progression> progressions = new HashMap<>();
+        progressions.put("Create case", new Progression("data input"));
+        Progression markUp = new Progression("Mark up", DATA_INPUT);
+        progressions.put("Mark up", markUp);
+        progressions.put("QA case", markUp);
+        progressions.put("QA", new Progression("NRN", DATA_INPUT, NRN_MARKUP));
+        progressions.put("Transfer", new Progression("OGD", DATA_INPUT, OGD_MARKUP));
+        Progression initialDraft = new Progression("Initial Draft", DATA_INPUT, MARKUP);
+        progressions.put("Amend response", initialDraft);
+        progressions.put("Draft response", initialDraft);
+        progressions.put("QA review", new Progression("QA Response", DATA_INPUT, MARKUP, INITIAL_DRAFT));
+        Progression privateOffice = new Progression("Private Office", DATA_INPUT, MARKUP, INITIAL_DRAFT, QA_RESPONSE);
+        progressions.put("HS Private Office approval", privateOffice);
+        progressions.put("Private Office approval", privateOffice);
+        Progression ministerSignOff = new Progression("Minister Sign Off", DATA_INPUT, MARKUP, INITIAL_DRAFT, QA_RESPONSE, PRIVATE_OFFICE_SIGN_OFF);
+        progressions.put("Home Sec's sign-off", ministerSignOff);
+        progressions.put("Minister's sign-off", ministerSignOff);
+        progressions.put("Dispatch response", new Progression("Dispatch", DATA_INPUT, MARKUP, INITIAL_DRAFT, QA_RESPONSE, PRIVATE_OFFICE_SIGN_OFF, MINISTER_SIGN_OFF));
+        Progression dispatched = new Progression("Completed", DATA_INPUT, MARKUP, INITIAL_DRAFT, QA_RESPONSE, PRIVATE_OFFICE_SIGN_OFF, MINISTER_SIGN_OFF, DISPATCH);
+        progressions.put(CASE_TASK_NONE + "/PR", dispatched);
+        progressions.put(CASE_TASK_NONE + "/FAQ", dispatched);
+        progressions.put(CASE_TASK_NONE + "/NRN", new Progression("Completed", DATA_INPUT, NRN_MARKUP, NRN_CONFIRMATION));
+        progressions.put(CASE_TASK_NONE + "/OGD", new Progression("Completed", DATA_INPUT, OGD_MARKUP, OGD_CONFIRMATION));
+        return Map.copyOf(progressions);
     }
 
     MigrationCreateCaseResponse createCase(MigrationCreateCaseRequest request) {
@@ -84,120 +128,105 @@ public class MigrationWorkflowService {
 
     MigrationProgressCaseResponse progressCase(UUID caseUUID, String caseDataType, Map<String, String> data, Map<String, String> seedData, List<MigrationCorrespondent> correspondents, UUID draftDocumentUUID, UUID topicUUID) {
         log.info("Migration - Progress Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        MigrationProgressCaseResponse migrationProgressCaseResponse = new MigrationProgressCaseResponse();
-        UUID stageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
-        UUID primaryCorrespondentUUID = null;
+        CaseProgress progress = new CaseProgress(caseUUID, caseDataType, data, draftDocumentUUID);
+        UUID stageUUID = stageUUID(progress);
 
         if (correspondents != null) {
             for (MigrationCorrespondent correspondent : correspondents) {
                 if (correspondent.getType() != null) {
                     correspondent.setUuid(saveCorrespondent(caseUUID, stageUUID, correspondent));
                     if (correspondent.getIsPrimary() == true) {
-                        primaryCorrespondentUUID = correspondent.getUuid();
+                        progress.primaryCorrespondentUUID = correspondent.getUuid();
                     }
                 }
             }
         }
-        if (primaryCorrespondentUUID != null) {
-            log.info("Migration - Primary Correspondent {} for Case: '{}'", primaryCorrespondentUUID, caseUUID, value(EVENT, MIGRATION_EVENT));
-            migrationCaseworkClient.updatePrimaryCorrespondent(caseUUID, stageUUID, primaryCorrespondentUUID);
+        if (progress.primaryCorrespondentUUID != null) {
+            log.info("Migration - Primary Correspondent {} for Case: '{}'", progress.primaryCorrespondentUUID, caseUUID, value(EVENT, MIGRATION_EVENT));
+            migrationCaseworkClient.updatePrimaryCorrespondent(caseUUID, stageUUID, progress.primaryCorrespondentUUID);
         }
-        UUID returnedTopicUUID = null;
         if (topicUUID != null) {
             log.info("Migration - primary Topic {} for Case: '{}'", topicUUID, caseUUID, value(EVENT, MIGRATION_EVENT));
-            returnedTopicUUID = migrationCaseworkClient.addTopic(caseUUID, stageUUID, topicUUID);
-            migrationCaseworkClient.updatePrimaryTopic(caseUUID, stageUUID, returnedTopicUUID);
+            progress.topicUUID = migrationCaseworkClient.addTopic(caseUUID, stageUUID, topicUUID);
+            migrationCaseworkClient.updatePrimaryTopic(caseUUID, stageUUID, progress.topicUUID);
         }
 // Set Response Channel to Letter if null
         if (data.get("ResponseChannel") == null) {
             data.replace("ResponseChannel", "LETTER");
         }
 
-
-        if (data.get("caseTask").equals("Create case")) {
-            /* Complete nothing */
-            migrationProgressCaseResponse.setStage("data input");
-        }
-        if (data.get("caseTask").equals("Mark up") || data.get("caseTask").equals("QA case")) {
-            /* Complete data input*/
-            completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-            migrationProgressCaseResponse.setStage("Mark up");
-        }
-        if (data.get("caseTask").equals("QA")) {
-            /*start nrn*/
-            completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-            startNRNMarkup(data, caseUUID);
-            migrationProgressCaseResponse.setStage("NRN");
+        Progression progression = progressionFor(data);
+        for (Step step : progression.steps) {
+            runStep(step, progress);
         }
-        if (data.get("caseTask").equals("Transfer")) {
-            /* start OGD*/
-            completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-            startOGDMarkup(data, caseUUID);
-            migrationProgressCaseResponse.setStage("OGD");
-        }
-        if (data.get("caseTask").equals("Amend response") || data.get("caseTask").equals("Draft response")) {
-            /* Complete markUp*/
-            completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-            completeMarkup(data, caseUUID, returnedTopicUUID, caseDataType);
-            migrationProgressCaseResponse.setStage("Initial Draft");
-        }
-        if (data.get("caseTask").equals("QA review")) {
-            /* Complete initial draft*/
-            completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-            completeMarkup(data, caseUUID, returnedTopicUUID, caseDataType);
-            completeInitialDraft(data, caseUUID, draftDocumentUUID, caseDataType);
-            migrationProgressCaseResponse.setStage("QA Response");
-        }
-        if (data.get("caseTask").equals("HS Private Office approval") || data.get("caseTask").equals("Private Office approval")) {
-            /* Complete QA response */
-            completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-            completeMarkup(data, caseUUID, returnedTopicUUID, caseDataType);
-            completeInitialDraft(data, caseUUID, draftDocumentUUID, caseDataType);
-            completeQAResponse(caseUUID);
-            migrationProgressCaseResponse.setStage("Private Office");
-        }
-        if (data.get("caseTask").equals("Home Sec's sign-off") || data.get("caseTask").equals("Minister's sign-off")) {
-            /* Complete Private Office */
-            completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-            completeMarkup(data, caseUUID, returnedTopicUUID, caseDataType);
-            completeInitialDraft(data, caseUUID, draftDocumentUUID, caseDataType);
-            completeQAResponse(caseUUID);
-            completePrivateOfficeSignoff(caseUUID, caseDataType);
-            migrationProgressCaseResponse.setStage("Minister Sign Off");
-        }
-        if (data.get("caseTask").equals("Dispatch response")) {
-            /* Complete Minister sign off*/
-            completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-            completeMarkup(data, caseUUID, returnedTopicUUID, caseDataType);
-            completeInitialDraft(data, caseUUID, draftDocumentUUID, caseDataType);
-            completeQAResponse(caseUUID);
-            completePrivateOfficeSignoff(caseUUID, caseDataType);
-            completeMinisterSignOff(caseUUID, caseDataType);
-            migrationProgressCaseResponse.setStage("Dispatch");
+        return new MigrationProgressCaseResponse(progression.stage);
+    }
+
+    private static Progression progressionFor(Map<String, String> data) {
+        String caseTask = data.get("caseTask");
+        if (CASE_TASK_NONE.equals(caseTask)) {
+            return PROGRESSIONS.getOrDefault(CASE_TASK_NONE + "/" + data.get("MarkupDecision"), CLOSED);
         }
-        if (data.get("caseTask").equals("None")) {
-            /* Complete Dispatch*/
-            if (data.get("MarkupDecision").equals("PR") || data.get("MarkupDecision").equals("FAQ")) {
-                completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-                completeMarkup(data, caseUUID, returnedTopicUUID, caseDataType);
-                completeInitialDraft(data, caseUUID, draftDocumentUUID, caseDataType);
-                completeQAResponse(caseUUID);
-                completePrivateOfficeSignoff(caseUUID, caseDataType);
-                completeMinisterSignOff(caseUUID, caseDataType);
-                completeDispatch(data, caseUUID, caseDataType);
-            } else if (data.get("MarkupDecision").equals("NRN")) {
-                completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-                startNRNMarkup(data, caseUUID);
-                completeNRNConfirmation(data, caseUUID);
-            } else if (data.get("MarkupDecision").equals("OGD")) {
-                completeDataInput(data, caseUUID, stageUUID, primaryCorrespondentUUID, seedData, caseDataType);
-                startOGDMarkup(data, caseUUID);
-                completeOGDConfirmation(data, caseUUID);
+        return caseTask != null ? PROGRESSIONS.getOrDefault(caseTask, NO_PROGRESSION) : NO_PROGRESSION;
+    }
+
+    private void runStep(Step step, CaseProgress progress) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            switch (step) {
+                case DATA_INPUT:
+                    completeDataInput(progress);
+                    break;
+                case MARKUP:
+                    completeMarkup(progress);
+                    break;
+                case NRN_MARKUP:
+                    startNRNMarkup(progress);
+                    break;
+                case NRN_CONFIRMATION:
+                    completeNRNConfirmation(progress);
+                    break;
+                case OGD_MARKUP:
+                    startOGDMarkup(progress);
+                    break;
+                case OGD_CONFIRMATION:
+                    completeOGDConfirmation(progress);
+                    break;
+                case INITIAL_DRAFT:
+                    completeInitialDraft(progress);
+                    break;
+                case QA_RESPONSE:
+                    completeQAResponse(progress);
+                    break;
+                case PRIVATE_OFFICE_SIGN_OFF:
+                    completePrivateOfficeSignoff(progress);
+                    break;
+                case MINISTER_SIGN_OFF:
+                    completeMinisterSignOff(progress);
+                    break;
+                case DISPATCH:
+                    completeDispatch(progress);
+                    break;
             }
-            migrationProgressCaseResponse.setStage("Completed");
+        } finally {
+            sample.stop(Timer.builder("migration.step")
+                    .description("Time taken by each step of progressing a migrated case")
+                    .tag("step", step.name().toLowerCase())
+                    .register(meterRegistry));
+            // each step moves the case on, so the next step looks up the stage it was left in
+            progress.stageUUID = null;
         }
+    }
 
-        return migrationProgressCaseResponse;
+    /**
+     * The case's current stage is read from its STAGE process in the engine, falling back to the casework service.
+     */
+    private UUID stageUUID(CaseProgress progress) {
+        if (progress.stageUUID == null) {
+            UUID stageUUID = camundaClient.getActiveStageUUID(progress.caseUUID);
+            progress.stageUUID = stageUUID != null ? stageUUID : migrationCaseworkClient.getStageUUID(progress.caseUUID);
+        }
+        return progress.stageUUID;
     }
 
     UUID saveCorrespondent(UUID caseUUID, UUID stageUUID, MigrationCorrespondent correspondent) {
@@ -236,9 +265,12 @@ public class MigrationWorkflowService {
         }
     }
 
-    private void completeDataInput(Map<String, String> data, UUID caseUUID, UUID stageUUID, UUID primaryCorrespondentUUID, Map<String, String> seedData, String caseDataType) {
+    private void completeDataInput(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
+        Map<String, String> data = progress.data;
+        UUID stageUUID = stageUUID(progress);
         log.info("Migration - Data Input for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        if (caseDataType.equals("DTEN")) {
+        if (progress.caseDataType.equals("DTEN")) {
             Map<String, String> DTENData = new HashMap<>();
             DTENData.put("DCU_DTEN_INITIAL_DRAFT_DEADLINE", data.get("DCU_DTEN_INITIAL_DRAFT_DEADLINE"));
             DTENData.put("DCU_DTEN_DISPATCH_DEADLINE", data.get("DCU_DTEN_DISPATCH_DEADLINE"));
@@ -254,14 +286,17 @@ public class MigrationWorkflowService {
         migrationCaseworkClient.updateCase(caseUUID, stageUUID, dataInputData);
         camundaClient.completeTask(stageUUID, dataInputData);
         Map<String, String> correspondentData = new HashMap<>();
-        correspondentData.put("Correspondents", String.valueOf(primaryCorrespondentUUID));
+        correspondentData.put("Correspondents", String.valueOf(progress.primaryCorrespondentUUID));
         migrationCaseworkClient.updateCase(caseUUID, stageUUID, correspondentData);
         camundaClient.completeTask(stageUUID, correspondentData);
     }
 
-    private void completeMarkup(Map<String, String> data, UUID caseUUID, UUID returnedTopicUUID, String caseDataType) {
+    private void completeMarkup(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
+        Map<String, String> data = progress.data;
+        String caseDataType = progress.caseDataType;
         log.info("Migration - Markup for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        UUID markUpStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+        UUID markUpStageUUID = stageUUID(progress);
 
         String markupDecision = String.valueOf(data.get("MarkupDecision"));
         migrationCaseworkClient.assignToMe(caseUUID, markUpStageUUID);
@@ -270,13 +305,13 @@ public class MigrationWorkflowService {
         migrationCaseworkClient.updateCase(caseUUID, markUpStageUUID, markupData);
         camundaClient.completeTask(markUpStageUUID, markupData);
         Map<String, String> topicData = new HashMap<>();
-        topicData.put("Topics", String.valueOf(returnedTopicUUID));
+        topicData.put("Topics", String.valueOf(progress.topicUUID));
         migrationCaseworkClient.updateCase(caseUUID, markUpStageUUID, topicData);
         camundaClient.completeTask(markUpStageUUID, topicData);
         if (!"TRO".equals(caseDataType) || "PR".equals(markupDecision)) {
             Map<String, String> teamsForTopic = new HashMap<>();
-            TeamDto draftingTeam = infoClient.getTeamForTopicAndStage(caseUUID, returnedTopicUUID, "DCU_MIN_INITIAL_DRAFT");
-            TeamDto pOTeam = infoClient.getTeamForTopicAndStage(caseUUID, returnedTopicUUID, "DCU_MIN_PRIVATE_OFFICE");
+            TeamDto draftingTeam = infoClient.getTeamForTopicAndStage(caseUUID, progress.topicUUID, "DCU_MIN_INITIAL_DRAFT");
+            TeamDto pOTeam = infoClient.getTeamForTopicAndStage(caseUUID, progress.topicUUID, "DCU_MIN_PRIVATE_OFFICE");
             teamsForTopic.put("DraftingTeamUUID", draftingTeam.getUuid().toString());
             teamsForTopic.put("DraftingTeamName", draftingTeam.getDisplayName());
             teamsForTopic.put("POTeamUUID", pOTeam.getUuid().toString());
@@ -286,9 +321,11 @@ public class MigrationWorkflowService {
         }
     }
 
-    private void startNRNMarkup(Map<String, String> data, UUID caseUUID) {
+    private void startNRNMarkup(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
+        Map<String, String> data = progress.data;
         log.info("Migration - NRN Markup for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        UUID markUpStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+        UUID markUpStageUUID = stageUUID(progress);
 
         migrationCaseworkClient.assignToMe(caseUUID, markUpStageUUID);
         Map<String, String> markupData = new HashMap<>();
@@ -301,9 +338,10 @@ public class MigrationWorkflowService {
         camundaClient.completeTask(markUpStageUUID, nrnData);
     }
 
-    private void completeNRNConfirmation(Map<String, String> data, UUID caseUUID) {
+    private void completeNRNConfirmation(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
         log.info("Migration - NRN Confirmation for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        UUID nrnConfirmationStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+        UUID nrnConfirmationStageUUID = stageUUID(progress);
 
         migrationCaseworkClient.assignToMe(caseUUID, nrnConfirmationStageUUID);
         Map<String, String> nrnConfirmationData = new HashMap<>();
@@ -313,9 +351,11 @@ public class MigrationWorkflowService {
         camundaClient.completeTask(nrnConfirmationStageUUID, nrnConfirmationData);
     }
 
-    private void startOGDMarkup(Map<String, String> data, UUID caseUUID) {
+    private void startOGDMarkup(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
+        Map<String, String> data = progress.data;
         log.info("Migration - OGD Markup for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        UUID ogdmarkUpStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+        UUID ogdmarkUpStageUUID = stageUUID(progress);
 
         migrationCaseworkClient.assignToMe(caseUUID, ogdmarkUpStageUUID);
         Map<String, String> markupData = new HashMap<>();
@@ -329,10 +369,12 @@ public class MigrationWorkflowService {
         camundaClient.completeTask(ogdmarkUpStageUUID, ogdData);
     }
 
-    private void completeOGDConfirmation(Map<String, String> data, UUID caseUUID) {
+    private void completeOGDConfirmation(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
+        Map<String, String> data = progress.data;
 
         log.info("Migration - OGD Confirmation for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        UUID ogdConfirmationStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+        UUID ogdConfirmationStageUUID = stageUUID(progress);
 
         migrationCaseworkClient.assignToMe(caseUUID, ogdConfirmationStageUUID);
         Map<String, String> ogdConfirmationData = new HashMap<>();
@@ -343,9 +385,12 @@ public class MigrationWorkflowService {
         camundaClient.completeTask(ogdConfirmationStageUUID, ogdConfirmationData);
     }
 
-    private void completeInitialDraft(Map<String, String> data, UUID caseUUID, UUID documentUUID, String caseDataType) {
+    private void completeInitialDraft(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
+        Map<String, String> data = progress.data;
+        String caseDataType = progress.caseDataType;
         log.info("Migration - Initial Draft for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        UUID initialDraftStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+        UUID initialDraftStageUUID = stageUUID(progress);
         migrationCaseworkClient.assignToMe(caseUUID, initialDraftStageUUID);
         Map<String, String> teamAnswerData = new HashMap<>();
         teamAnswerData.put("InitialDraftDecision", "ACCEPT");
@@ -358,7 +403,7 @@ public class MigrationWorkflowService {
             camundaClient.completeTask(initialDraftStageUUID, responseData);
         }
         Map<String, String> draftDocumentData = new HashMap<>();
-        draftDocumentData.put("DraftDocuments", String.valueOf(documentUUID));
+        draftDocumentData.put("DraftDocuments", String.valueOf(progress.draftDocumentUUID));
         migrationCaseworkClient.updateCase(caseUUID, initialDraftStageUUID, draftDocumentData);
         camundaClient.completeTask(initialDraftStageUUID, draftDocumentData);
 
@@ -369,9 +414,10 @@ public class MigrationWorkflowService {
 
     }
 
-    private void completeQAResponse(UUID caseUUID) {
+    private void completeQAResponse(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
         log.info("Migration - QA Response for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        UUID qaResponseStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+        UUID qaResponseStageUUID = stageUUID(progress);
         migrationCaseworkClient.assignToMe(caseUUID, qaResponseStageUUID);
         Map<String, String> qaResponseData = new HashMap<>();
         qaResponseData.put("QAResponseDecision", "ACCEPT");
@@ -379,10 +425,12 @@ public class MigrationWorkflowService {
         camundaClient.completeTask(qaResponseStageUUID, qaResponseData);
     }
 
-    private void completePrivateOfficeSignoff(UUID caseUUID, String caseDataType) {
+    private void completePrivateOfficeSignoff(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
+        String caseDataType = progress.caseDataType;
         log.info("Migration - Private Office Signoff for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
         if (caseDataType.equals("MIN") || caseDataType.equals("DTEN")) {
-            UUID privateOfficeSignOffStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+            UUID privateOfficeSignOffStageUUID = stageUUID(progress);
             migrationCaseworkClient.assignToMe(caseUUID, privateOfficeSignOffStageUUID);
             Map<String, String> privateOfficeResponseData = new HashMap<>();
             privateOfficeResponseData.put("PrivateOfficeDecision", "ACCEPT");
@@ -391,10 +439,12 @@ public class MigrationWorkflowService {
         }
     }
 
-    private void completeMinisterSignOff(UUID caseUUID, String caseDataType) {
+    private void completeMinisterSignOff(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
+        String caseDataType = progress.caseDataType;
         log.info("Migration - Minister Signoff for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
         if (caseDataType.equals("MIN")) {
-            UUID ministerSignOffStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+            UUID ministerSignOffStageUUID = stageUUID(progress);
             migrationCaseworkClient.assignToMe(caseUUID, ministerSignOffStageUUID);
             Map<String, String> ministerResponseData = new HashMap<>();
             ministerResponseData.put("MinisterSignOffDecision", "ACCEPT");
@@ -403,9 +453,12 @@ public class MigrationWorkflowService {
         }
     }
 
-    private void completeDispatch(Map<String, String> data, UUID caseUUID, String caseDataType) {
+    private void completeDispatch(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
+        Map<String, String> data = progress.data;
+        String caseDataType = progress.caseDataType;
         log.info("Migration - Dispatch for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        UUID dispatchStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+        UUID dispatchStageUUID = stageUUID(progress);
         migrationCaseworkClient.assignToMe(caseUUID, dispatchStageUUID);
         Map<String, String> dispatchData = new HashMap<>();
         dispatchData.put("DispatchDecision", "ACCEPT");
@@ -414,16 +467,62 @@ public class MigrationWorkflowService {
         migrationCaseworkClient.updateCase(caseUUID, dispatchStageUUID, dispatchData);
         camundaClient.completeTask(dispatchStageUUID, dispatchData);
         if (data.get("CopyNumberTen").equals("true") && ((caseDataType.equals("MIN")) || (caseDataType.equals("TRO")))) {
-            completeCopyNumberTen(caseUUID);
+            progress.stageUUID = null;
+            completeCopyNumberTen(progress);
         }
     }
 
-    private void completeCopyNumberTen(UUID caseUUID) {
+    private void completeCopyNumberTen(CaseProgress progress) {
+        UUID caseUUID = progress.caseUUID;
         log.info("Migration - Copy to Number Ten for Case: '{}'", caseUUID, value(EVENT, MIGRATION_EVENT));
-        UUID copyToNoTenStageUUID = migrationCaseworkClient.getStageUUID(caseUUID);
+        UUID copyToNoTenStageUUID = stageUUID(progress);
         migrationCaseworkClient.assignToMe(caseUUID, copyToNoTenStageUUID);
         Map<String, String> copyToNoTenData = new HashMap<>();
         migrationCaseworkClient.updateCase(caseUUID, copyToNoTenStageUUID, copyToNoTenData);
         camundaClient.completeTask(copyToNoTenStageUUID, copyToNoTenData);
     }
+
+    enum Step {
+        DATA_INPUT,
+        MARKUP,
+        NRN_MARKUP,
+        NRN_CONFIRMATION,
+        OGD_MARKUP,
+        OGD_CONFIRMATION,
+        INITIAL_DRAFT,
+        QA_RESPONSE,
+        PRIVATE_OFFICE_SIGN_OFF,
+        MINISTER_SIGN_OFF,
+        DISPATCH
+    }
+
+    private static class Progression {
+        private final String stage;
+        private final List<Step> steps;
+
+        private Progression(String stage, Step... steps) {
+            this.stage = stage;
+            this.steps = Arrays.asList(steps);
+        }
+    }
+
+    /**
+     * What the steps of one progression share: the case, its data and the stage it is currently in.
+     */
+    private static class CaseProgress {
+        private final UUID caseUUID;
+        private final String caseDataType;
+        private final Map<String, String> data;
+        private final UUID draftDocumentUUID;
+        private UUID primaryCorrespondentUUID;
+        private UUID topicUUID;
+        private UUID stageUUID;
+
+        private CaseProgress(UUID caseUUID, String caseDataType, Map<String, String> data, UUID draftDocumentUUID) {
+            this.caseUUID = caseUUID;
+            this.caseDataType = caseDataType;
+            this.data = data;
+            this.draftDocumentUUID = draftDocumentUUID;
+        }
+    }
 }
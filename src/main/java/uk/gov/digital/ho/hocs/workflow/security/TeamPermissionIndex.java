@@ -0,0 +1,117 @@
+package uk.gov.digital.ho.hocs.workflow.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.workflow.application.RequestData;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.InfoClient;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.PermissionDto;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.*;
+
+/**
+ * Team permissions keyed by team UUID, with each team's highest access level per case type worked out up front.
+ * The index is rebuilt in the background on a fixed schedule and swapped in whole, so permission checks only ever
+ * read a complete snapshot. Only the very first check blocks, if it arrives before the initial load. Scheduled
+ * refreshes call info-service as this service, with their own correlation id.
+ */
+@Slf4j
+@Component
+public class TeamPermissionIndex {
+
+    private final InfoClient infoClient;
+
+    private volatile Map<UUID, TeamPermissions> teams;
+
+    @Autowired
+    public TeamPermissionIndex(InfoClient infoClient) {
+        this.infoClient = infoClient;
+    }
+
+    @Scheduled(initialDelayString = "${security.team-index.initial-delay:0}", fixedDelayString = "${security.team-index.refresh-interval:300000}")
+    public void refresh() {
+        RequestData.runAsService(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh team permissions, keeping {} indexed teams: {}", teams == null ? 0 : teams.size(), e.getMessage(), value(EVENT, CACHE_PRIME_FAILED));
+            }
+        });
+    }
+
+    Set<PermissionDto> getPermissions(Set<UUID> teamUUIDs) {
+        Map<UUID, TeamPermissions> index = index();
+        Set<PermissionDto> permissions = new HashSet<>();
+        for (UUID teamUUID : teamUUIDs) {
+            TeamPermissions team = index.get(teamUUID);
+            if (team != null) {
+                permissions.addAll(team.permissions);
+            }
+        }
+        return permissions;
+    }
+
+    Map<String, AccessLevel> getMaxAccessLevels(Set<UUID> teamUUIDs) {
+        Map<UUID, TeamPermissions> index = index();
+        Map<String, AccessLevel> maxAccessLevels = new HashMap<>();
+        for (UUID teamUUID : teamUUIDs) {
+            TeamPermissions team = index.get(teamUUID);
+            if (team != null) {
+                team.maxAccessLevels.forEach((caseType, accessLevel) -> maxAccessLevels.merge(caseType, accessLevel, TeamPermissionIndex::max));
+            }
+        }
+        return maxAccessLevels;
+    }
+
+    private Map<UUID, TeamPermissions> index() {
+        Map<UUID, TeamPermissions> current = teams;
+        if (current == null) {
+            synchronized (this) {
+                if (teams == null) {
+                    load();
+                }
+                current = teams;
+            }
+        }
+        return current;
+    }
+
+    private void load() {
+        Set<TeamDto> teamDtos = infoClient.refreshTeams();
+        Map<UUID, TeamPermissions> index = new HashMap<>();
+        for (TeamDto teamDto : teamDtos) {
+            index.computeIfAbsent(teamDto.getUuid(), k -> new TeamPermissions()).add(teamDto.getPermissionDtos());
+        }
+        teams = Collections.unmodifiableMap(index);
+        log.info("Indexed permissions for {} teams", index.size(), value(EVENT, TEAM_PERMISSION_INDEX_REFRESHED));
+    }
+
+    private static AccessLevel max(AccessLevel a, AccessLevel b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static class TeamPermissions {
+        private final Set<PermissionDto> permissions = new HashSet<>();
+        private final Map<String, AccessLevel> maxAccessLevels = new HashMap<>();
+
+        private void add(Set<PermissionDto> permissionDtos) {
+            if (permissionDtos == null) {
+                return;
+            }
+            for (PermissionDto permission : permissionDtos) {
+                permissions.add(permission);
+                maxAccessLevels.merge(permission.getCaseTypeCode(), permission.getAccessLevel(), TeamPermissionIndex::max);
+            }
+        }
+    }
+}
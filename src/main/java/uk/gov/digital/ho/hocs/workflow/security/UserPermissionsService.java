@@ -4,9 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import uk.gov.digital.ho.hocs.workflow.application.RequestData;
-import uk.gov.digital.ho.hocs.workflow.client.infoclient.InfoClient;
 import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.PermissionDto;
-import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
 import java.nio.BufferUnderflowException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -17,12 +15,14 @@ import static uk.gov.digital.ho.hocs.workflow.application.LogEvent.SECURITY_UNAU
 public class UserPermissionsService {
 
     private RequestData requestData;
-    private InfoClient infoClient;
+    private TeamPermissionIndex teamPermissionIndex;
+    private UserSecurityContext userSecurityContext;
 
     @Autowired
-    public UserPermissionsService(RequestData requestData, InfoClient infoClient) {
+    public UserPermissionsService(RequestData requestData, TeamPermissionIndex teamPermissionIndex, UserSecurityContext userSecurityContext) {
         this.requestData = requestData;
-        this.infoClient = infoClient;
+        this.teamPermissionIndex = teamPermissionIndex;
+        this.userSecurityContext = userSecurityContext;
     }
 
     public UUID getUserId() {
@@ -30,19 +30,20 @@ public class UserPermissionsService {
     }
 
     public AccessLevel getMaxAccessLevel(String caseType) {
-        Set<PermissionDto> permissionDtos = getUserPermission();
-        Optional<PermissionDto> maxPermission = permissionDtos.stream()
-                .filter(e-> e.getCaseTypeCode().equals(caseType))
-                .max(Comparator.comparing(e -> e.getAccessLevel()));
-
-        maxPermission.ifPresent(p -> log.info("Max permission case type: {}, permission: {}", p.getCaseTypeCode(), p.getAccessLevel().toString()));
-        return maxPermission.orElseThrow(
-                () -> new SecurityExceptions.PermissionCheckException("No permissions found for case type", SECURITY_UNAUTHORISED)
-        ).getAccessLevel();
+        AccessLevel maxAccessLevel = getMaxAccessLevels().get(caseType);
+        if (maxAccessLevel == null) {
+            throw new SecurityExceptions.PermissionCheckException("No permissions found for case type", SECURITY_UNAUTHORISED);
+        }
+        log.info("Max permission case type: {}, permission: {}", caseType, maxAccessLevel.toString());
+        return maxAccessLevel;
     }
 
 
     public Set<UUID> getUserTeams() {
+        return userSecurityContext.getUserTeams(this::decodeUserTeams);
+    }
+
+    private Set<UUID> decodeUserTeams() {
         String[] groups = requestData.groupsArray();
         Set<UUID> userTeams = Arrays.stream(groups)
                 .map(group -> getUUIDFromBase64(group))
@@ -52,13 +53,15 @@ public class UserPermissionsService {
             userTeams.forEach(t -> log.debug("User team: {}", t));
         }
         log.info("Found {} User teams", userTeams.size());
-        return userTeams;
+        return Collections.unmodifiableSet(userTeams);
+    }
+
+    private Map<String, AccessLevel> getMaxAccessLevels() {
+        return userSecurityContext.getMaxAccessLevels(() -> Collections.unmodifiableMap(teamPermissionIndex.getMaxAccessLevels(getUserTeams())));
     }
 
     public Set<String> getUserCaseTypes() {
-        Set<String> userCaseTypes = getUserPermission().stream()
-                .map(p -> p.getCaseTypeCode())
-                .collect(Collectors.toSet());
+        Set<String> userCaseTypes = getMaxAccessLevels().keySet();
         if(log.isDebugEnabled()) {
             userCaseTypes.forEach(c -> log.debug("User case type: {}", c));
         }
@@ -67,21 +70,16 @@ public class UserPermissionsService {
     }
 
     Set<PermissionDto> getUserPermission() {
-        Set<TeamDto> teamDtos = infoClient.getTeams();
-        Set<UUID> userTeams = getUserTeams();
-        Set<PermissionDto> set = teamDtos.stream()
-                .filter(t -> userTeams.contains(t.getUuid()))
-                .flatMap(t -> t.getPermissionDtos().stream())
-                .collect(Collectors.toSet());
+        Set<PermissionDto> set = teamPermissionIndex.getPermissions(getUserTeams());
         log.info("{} User permissions", set.size());
 
         return set;
     }
 
     public Set<String> getCaseTypesIfUserTeamIsCaseTypeAdmin() {
-        return getUserPermission().stream()
-                .filter(permission -> permission.getAccessLevel() == AccessLevel.CASE_ADMIN)
-                .map(PermissionDto::getCaseTypeCode)
+        return getMaxAccessLevels().entrySet().stream()
+                .filter(permission -> permission.getValue() == AccessLevel.CASE_ADMIN)
+                .map(Map.Entry::getKey)
                 .collect(Collectors.toSet());
     }
 
@@ -0,0 +1,60 @@
+package uk.gov.digital.ho.hocs.workflow.security;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Holds the caller's decoded teams and access levels for the lifetime of one HTTP request, so the authorisation and
+ * allocation aspects share a single decode of X-Auth-Groups. Outside a request nothing is held and every call
+ * computes afresh.
+ */
+@Component
+public class UserSecurityContext implements HandlerInterceptor {
+
+    private static final ThreadLocal<RequestSecurity> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        CURRENT.set(new RequestSecurity());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        CURRENT.remove();
+    }
+
+    Set<UUID> getUserTeams(Supplier<Set<UUID>> decoder) {
+        RequestSecurity current = CURRENT.get();
+        if (current == null) {
+            return decoder.get();
+        }
+        if (current.userTeams == null) {
+            current.userTeams = decoder.get();
+        }
+        return current.userTeams;
+    }
+
+    Map<String, AccessLevel> getMaxAccessLevels(Supplier<Map<String, AccessLevel>> loader) {
+        RequestSecurity current = CURRENT.get();
+        if (current == null) {
+            return loader.get();
+        }
+        if (current.maxAccessLevels == null) {
+            current.maxAccessLevels = loader.get();
+        }
+        return current.maxAccessLevels;
+    }
+
+    private static class RequestSecurity {
+        private Set<UUID> userTeams;
+        private Map<String, AccessLevel> maxAccessLevels;
+    }
+}
@@ -0,0 +1,90 @@
+package uk.gov.digital.ho.hocs.workflow;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.digital.ho.hocs.workflow.application.IdempotencyKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BpmnIdempotencyAspectTest {
+
+    @Mock
+    private ExecutionEntity execution;
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private Signature signature;
+
+    private BpmnIdempotencyAspect bpmnIdempotencyAspect;
+
+    @Before
+    public void setup() {
+        bpmnIdempotencyAspect = new BpmnIdempotencyAspect();
+    }
+
+    @After
+    public void tearDown() {
+        if (Context.getBpmnExecutionContext() != null) {
+            Context.removeExecutionContext();
+        }
+        IdempotencyKey.restore(null);
+    }
+
+    @Test
+    public void shouldHaveNoScopeOutsideAnExecution() {
+        assertThat(BpmnIdempotencyAspect.scope("updateCase")).isNull();
+    }
+
+    @Test
+    public void shouldBuildTheSameScopeEachTimeTheActivityRuns() {
+        givenExecution();
+
+        String first = BpmnIdempotencyAspect.scope("updateCase");
+
+        assertThat(first).isEqualTo("case1|process1|ServiceTask_1|updateCase");
+        assertThat(BpmnIdempotencyAspect.scope("updateCase")).isEqualTo(first);
+        assertThat(BpmnIdempotencyAspect.scope("createCaseNote")).isNotEqualTo(first);
+    }
+
+    @Test
+    public void shouldRunBpmnServiceCallInItsScopeAndRestoreThePreviousOne() throws Throwable {
+        givenExecution();
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getName()).thenReturn("updateCase");
+        when(joinPoint.proceed()).thenAnswer(invocation -> IdempotencyKey.current());
+        IdempotencyKey.enter("outer");
+
+        Object scopeDuringCall = bpmnIdempotencyAspect.withIdempotencyScope(joinPoint);
+
+        assertThat(scopeDuringCall).isEqualTo("case1|process1|ServiceTask_1|updateCase");
+        assertThat(IdempotencyKey.current()).isEqualTo("outer");
+    }
+
+    @Test
+    public void shouldRunCallOutsideAnExecutionWithoutAScope() throws Throwable {
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getName()).thenReturn("updateCase");
+        when(joinPoint.proceed()).thenAnswer(invocation -> IdempotencyKey.current());
+
+        assertThat(bpmnIdempotencyAspect.withIdempotencyScope(joinPoint)).isNull();
+    }
+
+    private void givenExecution() {
+        when(execution.getBusinessKey()).thenReturn("case1");
+        when(execution.getProcessInstanceId()).thenReturn("process1");
+        when(execution.getActivityId()).thenReturn("ServiceTask_1");
+        Context.setExecutionContext(execution);
+    }
+}
@@ -44,7 +44,7 @@ public class BpmnServiceTest {
 
     @Before
     public void setup() {
-        bpmnService = new BpmnService(caseworkClient, camundaClient, infoClient);
+        bpmnService = new BpmnService(caseworkClient, camundaClient, infoClient, new CaseDataWriteBuffer(caseworkClient));
     }
 
     @Test
@@ -0,0 +1,170 @@
+package uk.gov.digital.ho.hocs.workflow;
+
+import org.camunda.bpm.engine.impl.cfg.TransactionContext;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.digital.ho.hocs.workflow.application.IdempotencyKey;
+import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.CaseworkClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CaseDataWriteBufferTest {
+
+    @Mock
+    private CaseworkClient caseworkClient;
+
+    @Mock
+    private CommandContext commandContext;
+
+    @Mock
+    private TransactionContext transactionContext;
+
+    private CaseDataWriteBuffer caseDataWriteBuffer;
+
+    private UUID caseUUID = UUID.randomUUID();
+    private UUID stageUUID = UUID.randomUUID();
+
+    @Before
+    public void setup() {
+        caseDataWriteBuffer = new CaseDataWriteBuffer(caseworkClient);
+    }
+
+    @After
+    public void tearDown() {
+        if (Context.getCommandContext() != null) {
+            Context.removeCommandContext();
+        }
+        IdempotencyKey.restore(null);
+    }
+
+    @Test
+    public void shouldWriteThroughOutsideOfACommand() {
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+
+        verify(caseworkClient).updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+        verifyNoMoreInteractions(caseworkClient);
+    }
+
+    @Test
+    public void shouldMergeUpdatesIntoOneWriteOnCommit() {
+        when(commandContext.getTransactionContext()).thenReturn(transactionContext);
+        Context.setCommandContext(commandContext);
+
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key1", "value1", "key2", "value2"));
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key2", "updated", "key3", "value3"));
+        verifyZeroInteractions(caseworkClient);
+
+        ArgumentCaptor<TransactionListener> committing = ArgumentCaptor.forClass(TransactionListener.class);
+        verify(transactionContext).addTransactionListener(eq(TransactionState.COMMITTING), committing.capture());
+        committing.getValue().execute(commandContext);
+
+        verify(caseworkClient).updateCase(caseUUID, stageUUID, Map.of("key1", "value1", "key2", "updated", "key3", "value3"));
+        verifyNoMoreInteractions(caseworkClient);
+    }
+
+    @Test
+    public void shouldWriteBufferedUpdatesOnFlush() {
+        when(commandContext.getTransactionContext()).thenReturn(transactionContext);
+        Context.setCommandContext(commandContext);
+
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+        caseDataWriteBuffer.flush();
+
+        ArgumentCaptor<TransactionListener> committing = ArgumentCaptor.forClass(TransactionListener.class);
+        verify(transactionContext).addTransactionListener(eq(TransactionState.COMMITTING), committing.capture());
+        committing.getValue().execute(commandContext);
+
+        verify(caseworkClient, times(1)).updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+        verifyNoMoreInteractions(caseworkClient);
+    }
+
+    @Test
+    public void shouldKeepTheOrderOfWritesAcrossStages() {
+        when(commandContext.getTransactionContext()).thenReturn(transactionContext);
+        Context.setCommandContext(commandContext);
+        UUID otherStageUUID = UUID.randomUUID();
+
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+        caseDataWriteBuffer.updateCase(caseUUID, otherStageUUID, Map.of("key1", "value2"));
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key1", "value3"));
+        caseDataWriteBuffer.flush(caseUUID);
+
+        InOrder inOrder = inOrder(caseworkClient);
+        inOrder.verify(caseworkClient).updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+        inOrder.verify(caseworkClient).updateCase(caseUUID, otherStageUUID, Map.of("key1", "value2"));
+        inOrder.verify(caseworkClient).updateCase(caseUUID, stageUUID, Map.of("key1", "value3"));
+        verifyNoMoreInteractions(caseworkClient);
+    }
+
+    @Test
+    public void shouldOnlyFlushTheRequestedCase() {
+        when(commandContext.getTransactionContext()).thenReturn(transactionContext);
+        Context.setCommandContext(commandContext);
+        UUID otherCaseUUID = UUID.randomUUID();
+
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+        caseDataWriteBuffer.updateCase(otherCaseUUID, stageUUID, Map.of("key1", "value2"));
+        caseDataWriteBuffer.flush(caseUUID);
+
+        verify(caseworkClient).updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+        verifyNoMoreInteractions(caseworkClient);
+    }
+
+    @Test
+    public void shouldDiscardBufferedUpdatesOnRollback() {
+        when(commandContext.getTransactionContext()).thenReturn(transactionContext);
+        Context.setCommandContext(commandContext);
+
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+
+        ArgumentCaptor<TransactionListener> rolledBack = ArgumentCaptor.forClass(TransactionListener.class);
+        verify(transactionContext).addTransactionListener(eq(TransactionState.ROLLED_BACK), rolledBack.capture());
+        rolledBack.getValue().execute(commandContext);
+        Context.removeCommandContext();
+        caseDataWriteBuffer.flush();
+
+        verify(caseworkClient, never()).updateCase(any(), any(), any());
+    }
+
+    @Test
+    public void shouldSendEachBufferedWriteInTheScopeItWasMadeIn() {
+        when(commandContext.getTransactionContext()).thenReturn(transactionContext);
+        Context.setCommandContext(commandContext);
+        Map<Map<String, String>, String> scopes = new HashMap<>();
+        doAnswer(invocation -> scopes.put(invocation.getArgument(2), IdempotencyKey.current()))
+                .when(caseworkClient).updateCase(eq(caseUUID), eq(stageUUID), any());
+
+        String previous = IdempotencyKey.enter("case1|process1|ServiceTask_1|updateCase");
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key1", "value1"));
+        IdempotencyKey.restore(previous);
+        previous = IdempotencyKey.enter("case1|process1|ServiceTask_2|updateCase");
+        caseDataWriteBuffer.updateCase(caseUUID, stageUUID, Map.of("key2", "value2"));
+        IdempotencyKey.restore(previous);
+        IdempotencyKey.enter("case1|process1|ServiceTask_3|createCaseNote");
+        caseDataWriteBuffer.flush(caseUUID);
+
+        assertThat(scopes).containsOnly(
+                entry(Map.of("key1", "value1"), "case1|process1|ServiceTask_1|updateCase"),
+                entry(Map.of("key2", "value2"), "case1|process1|ServiceTask_2|updateCase"));
+        assertThat(IdempotencyKey.current()).isEqualTo("case1|process1|ServiceTask_3|createCaseNote");
+    }
+}
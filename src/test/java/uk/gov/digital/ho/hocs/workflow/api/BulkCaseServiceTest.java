@@ -0,0 +1,125 @@
+package uk.gov.digital.ho.hocs.workflow.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.digital.ho.hocs.workflow.api.dto.BulkCaseResult;
+import uk.gov.digital.ho.hocs.workflow.api.dto.CreateBulkCaseJobResponse;
+import uk.gov.digital.ho.hocs.workflow.api.dto.DocumentSummary;
+import uk.gov.digital.ho.hocs.workflow.api.dto.GetBulkCaseJobResponse;
+import uk.gov.digital.ho.hocs.workflow.client.camundaclient.CamundaClient;
+import uk.gov.digital.ho.hocs.workflow.domain.exception.ApplicationExceptions;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkCaseServiceTest {
+
+    @Mock
+    private WorkflowService workflowService;
+
+    @Mock
+    private CamundaClient camundaClient;
+
+    private BulkCaseService bulkCaseService;
+
+    private final UUID userUUID = UUID.randomUUID();
+    private final LocalDate dateReceived = LocalDate.now();
+    private final DocumentSummary doc1 = new DocumentSummary("Doc1.txt", "ORIGINAL", "location1");
+    private final DocumentSummary doc2 = new DocumentSummary("Doc2.txt", "ORIGINAL", "location2");
+    private final PreparedCase case1 = new PreparedCase(UUID.randomUUID(), "MIN/0000001/20", Map.of("CaseReference", "MIN/0000001/20"));
+    private final PreparedCase case2 = new PreparedCase(UUID.randomUUID(), "MIN/0000002/20", Map.of("CaseReference", "MIN/0000002/20"));
+
+    @Before
+    public void setup() {
+        bulkCaseService = new BulkCaseService(workflowService, camundaClient, Runnable::run, "workflow-1", 60000);
+    }
+
+    @Test
+    public void shouldCreateCasesAndStartThem() {
+        when(workflowService.prepareCase("MIN", dateReceived, List.of(doc1), userUUID)).thenReturn(case1);
+        when(workflowService.prepareCase("MIN", dateReceived, List.of(doc2), userUUID)).thenReturn(case2);
+
+        CreateBulkCaseJobResponse response = bulkCaseService.createCases("MIN", dateReceived, List.of(doc1, doc2), userUUID);
+        GetBulkCaseJobResponse job = bulkCaseService.getJob(response.getJobId(), 0, userUUID);
+
+        assertThat(response.getCount()).isEqualTo(2);
+        assertThat(response.getInstance()).isEqualTo("workflow-1");
+        assertThat(job.getInstance()).isEqualTo("workflow-1");
+        assertThat(job.getStatus()).isEqualTo(GetBulkCaseJobResponse.COMPLETE);
+        assertThat(job.getCreated()).isEqualTo(2);
+        assertThat(job.getFailed()).isZero();
+        assertThat(job.getResults()).extracting(BulkCaseResult::getUuid).containsExactlyInAnyOrder(case1.getCaseUUID(), case2.getCaseUUID());
+        verify(camundaClient).startCase(case1.getCaseUUID(), "MIN", case1.getSeedData());
+        verify(camundaClient).startCase(case2.getCaseUUID(), "MIN", case2.getSeedData());
+        verifyNoMoreInteractions(camundaClient);
+    }
+
+    @Test
+    public void shouldReportCasesThatCouldNotBeCreated() {
+        when(workflowService.prepareCase("MIN", dateReceived, List.of(doc1), userUUID))
+                .thenThrow(new ApplicationExceptions.EntityCreationException("Failed to start case, invalid caseUUID!", null));
+        when(workflowService.prepareCase("MIN", dateReceived, List.of(doc2), userUUID)).thenReturn(case2);
+
+        CreateBulkCaseJobResponse response = bulkCaseService.createCases("MIN", dateReceived, List.of(doc1, doc2), userUUID);
+        GetBulkCaseJobResponse job = bulkCaseService.getJob(response.getJobId(), 0, userUUID);
+
+        assertThat(job.getCreated()).isEqualTo(1);
+        assertThat(job.getFailed()).isEqualTo(1);
+        assertThat(job.getResults()).filteredOn(result -> result.getIndex() == 0)
+                .extracting(BulkCaseResult::getStatus, BulkCaseResult::getDisplayName, BulkCaseResult::getError)
+                .containsExactly(tuple(BulkCaseResult.FAILED, "Doc1.txt", "Failed to start case, invalid caseUUID!"));
+        verify(camundaClient).startCase(case2.getCaseUUID(), "MIN", case2.getSeedData());
+        verifyNoMoreInteractions(camundaClient);
+    }
+
+    @Test
+    public void shouldNotRetryCaseThatFailedToStart() {
+        when(workflowService.prepareCase("MIN", dateReceived, List.of(doc1), userUUID)).thenReturn(case1);
+        when(workflowService.prepareCase("MIN", dateReceived, List.of(doc2), userUUID)).thenReturn(case2);
+        doThrow(new IllegalStateException("No process definition")).when(camundaClient).startCase(case1.getCaseUUID(), "MIN", case1.getSeedData());
+
+        CreateBulkCaseJobResponse response = bulkCaseService.createCases("MIN", dateReceived, List.of(doc1, doc2), userUUID);
+        GetBulkCaseJobResponse job = bulkCaseService.getJob(response.getJobId(), 0, userUUID);
+
+        assertThat(job.getCreated()).isEqualTo(1);
+        assertThat(job.getFailed()).isEqualTo(1);
+        assertThat(job.getResults()).filteredOn(result -> BulkCaseResult.FAILED.equals(result.getStatus()))
+                .extracting(BulkCaseResult::getUuid).containsExactly(case1.getCaseUUID());
+        verify(camundaClient).startCase(case1.getCaseUUID(), "MIN", case1.getSeedData());
+        verify(camundaClient).startCase(case2.getCaseUUID(), "MIN", case2.getSeedData());
+        verifyNoMoreInteractions(camundaClient);
+    }
+
+    @Test
+    public void shouldOnlyReturnResultsAfterTheGivenPosition() {
+        when(workflowService.prepareCase("MIN", dateReceived, List.of(doc1), userUUID)).thenReturn(case1);
+        when(workflowService.prepareCase("MIN", dateReceived, List.of(doc2), userUUID)).thenReturn(case2);
+
+        CreateBulkCaseJobResponse response = bulkCaseService.createCases("MIN", dateReceived, List.of(doc1, doc2), userUUID);
+
+        assertThat(bulkCaseService.getJob(response.getJobId(), 1, userUUID).getResults()).hasSize(1);
+        assertThat(bulkCaseService.getJob(response.getJobId(), 5, userUUID).getResults()).isEmpty();
+    }
+
+    @Test
+    public void shouldNotReturnAnotherUsersJob() {
+        when(workflowService.prepareCase("MIN", dateReceived, List.of(doc1), userUUID)).thenReturn(case1);
+
+        CreateBulkCaseJobResponse response = bulkCaseService.createCases("MIN", dateReceived, List.of(doc1), userUUID);
+
+        assertThatThrownBy(() -> bulkCaseService.getJob(response.getJobId(), 0, UUID.randomUUID()))
+                .isInstanceOf(ApplicationExceptions.EntityNotFoundException.class)
+                .hasMessageContaining("workflow-1");
+    }
+}
@@ -23,11 +23,14 @@ public class WorkflowResourceTest {
     @Mock
     private WorkflowService workflowService;
 
+    @Mock
+    private BulkCaseService bulkCaseService;
+
     private WorkflowResource workflowResource;
 
     @Before
     public void beforeTest() {
-        workflowResource = new WorkflowResource(workflowService);
+        workflowResource = new WorkflowResource(workflowService, bulkCaseService);
     }
 
     @Test
@@ -162,6 +165,30 @@ public class WorkflowResourceTest {
     }
 
 
+    @Test
+    public void createBulkCaseJob() {
+
+        UUID jobId = UUID.randomUUID();
+        UUID userUUID = UUID.randomUUID();
+        String caseType = "type1";
+        LocalDate dateReceived = LocalDate.now();
+        List<DocumentSummary> documents = List.of(new DocumentSummary("Doc1.txt", "FINAL", "locationUrl"));
+        CreateCaseRequest request = new CreateCaseRequest(caseType, dateReceived, documents);
+
+        when(bulkCaseService.createCases(caseType, dateReceived, documents, userUUID)).thenReturn(new CreateBulkCaseJobResponse(jobId, 1, "workflow-1"));
+
+        ResponseEntity<CreateBulkCaseJobResponse> result = workflowResource.createCaseBulkJob(request, userUUID);
+
+        assertThat(result.getStatusCodeValue()).isEqualTo(202);
+        assertThat(result.getBody().getJobId()).isEqualTo(jobId);
+        assertThat(result.getBody().getCount()).isEqualTo(1);
+
+        verify(bulkCaseService).createCases(caseType, dateReceived, documents, userUUID);
+        verifyNoMoreInteractions(bulkCaseService);
+        verifyZeroInteractions(workflowService);
+
+    }
+
     @Test
     public void getCase(){
         UUID caseUUID = UUID.randomUUID();
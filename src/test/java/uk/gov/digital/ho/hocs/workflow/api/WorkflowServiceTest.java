@@ -1,5 +1,6 @@
 package uk.gov.digital.ho.hocs.workflow.api;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -9,6 +10,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.client.HttpClientErrorException;
 import uk.gov.digital.ho.hocs.workflow.api.dto.*;
 import uk.gov.digital.ho.hocs.workflow.client.camundaclient.CamundaClient;
+import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.AsyncCaseworkClient;
 import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.CaseworkClient;
 import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.dto.GetAllStagesForCaseResponse;
 import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.dto.GetCaseworkCaseDataResponse;
@@ -18,8 +20,12 @@ import uk.gov.digital.ho.hocs.workflow.client.documentclient.DocumentClient;
 import uk.gov.digital.ho.hocs.workflow.client.infoclient.InfoClient;
 import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.CaseDetailsFieldDto;
 import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.UserDto;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -33,12 +39,17 @@ public class WorkflowServiceTest {
     @Mock
     private CaseworkClient caseworkClient;
 
+    @Mock
+    private AsyncCaseworkClient asyncCaseworkClient;
+
     @Mock
     private DocumentClient documentClient;
 
     @Mock
     private InfoClient infoClient;
 
+    private SimpleMeterRegistry meterRegistry;
+
     private WorkflowService workflowService;
 
     private final String testFieldName = "field_name";
@@ -46,11 +57,15 @@ public class WorkflowServiceTest {
 
     @Before
     public void beforeTest() {
+        meterRegistry = new SimpleMeterRegistry();
         workflowService = new WorkflowService(
                 caseworkClient,
+                asyncCaseworkClient,
                 documentClient,
                 infoClient,
-                camundaClient);
+                camundaClient,
+                Runnable::run,
+                meterRegistry);
     }
 
     @Test
@@ -76,7 +91,7 @@ public class WorkflowServiceTest {
         when(teamDto.getDisplayName()).thenReturn("teamName");
         UUID uuid = UUID.fromString("11111111-1111-1111-1111-111111111111");
         assertThat(uuid).isNotNull();
-        when(infoClient.getTeam(uuid)).thenReturn(teamDto);
+        when(infoClient.getTeams(Set.of(uuid))).thenReturn(Map.of(uuid, teamDto));
 
         Map<String, String> dataMapResult = workflowService.convertDataToSchema(schemaDtos, dataMap);
 
@@ -84,7 +99,7 @@ public class WorkflowServiceTest {
         assertThat(dataMapResult.size()).isEqualTo(1);
         assertThat(dataMapResult.get("uuid")).isEqualTo("teamName");
 
-        verify(infoClient).getTeam(uuid);
+        verify(infoClient).getTeams(Set.of(uuid));
         // assert nothing else happened
         verifyNoMoreInteractions(caseworkClient, camundaClient, infoClient, documentClient);
 
@@ -98,27 +113,95 @@ public class WorkflowServiceTest {
         Map<String, String> dataMap = new HashMap<>();
         dataMap.put(testFieldName, testDocumentUuid.toString());
 
-        when(documentClient.getDocumentName(testDocumentUuid)).thenReturn("Document Name");
+        when(documentClient.getDocumentNames(Set.of(testDocumentUuid))).thenReturn(Map.of(testDocumentUuid, "Document Name"));
 
         Map<String, String> dataMapResult = workflowService.convertDataToSchema(schemaDtos, dataMap);
 
         assertThat(dataMapResult).isNotNull();
         assertThat(dataMapResult.size()).isOne();
         assertThat(dataMapResult.get(testFieldName)).isEqualTo("Document Name");
-        verify(documentClient).getDocumentName(testDocumentUuid);
+        verify(documentClient).getDocumentNames(Set.of(testDocumentUuid));
+
+        verifyNoMoreInteractions(caseworkClient, camundaClient, infoClient, documentClient);
+
+    }
+
+    @Test
+    public void convertDataToSchema_resolvesLookupsOnExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        workflowService = new WorkflowService(caseworkClient, asyncCaseworkClient, documentClient, infoClient, camundaClient, executor, new SimpleMeterRegistry());
+
+        UUID teamUUID = UUID.randomUUID();
+        FieldDto teamField = new FieldDto(null, "team", null, "dropdown", null, Map.of("choices", "TEAMS"), true, true);
+        FieldDto documentField = new FieldDto(null, testFieldName, null, "entity-list", null, Map.of("entity", "document"), true, true);
+        SchemaDto schemaDto = new SchemaDto(UUID.randomUUID(), null, null, null, null, true, List.of(teamField, documentField), null, null);
+
+        Map<String, String> dataMap = new HashMap<>();
+        dataMap.put("team", teamUUID.toString());
+        dataMap.put(testFieldName, testDocumentUuid.toString());
 
+        TeamDto teamDto = mock(TeamDto.class);
+        when(teamDto.getDisplayName()).thenReturn("teamName");
+        when(infoClient.getTeams(Set.of(teamUUID))).thenReturn(Map.of(teamUUID, teamDto));
+        when(documentClient.getDocumentNames(Set.of(testDocumentUuid))).thenReturn(Map.of(testDocumentUuid, "Document Name"));
+
+        try {
+            Map<String, String> dataMapResult = workflowService.convertDataToSchema(List.of(schemaDto), dataMap);
+
+            assertThat(dataMapResult.get("team")).isEqualTo("teamName");
+            assertThat(dataMapResult.get(testFieldName)).isEqualTo("Document Name");
+        } finally {
+            executor.shutdown();
+        }
+
+        verify(infoClient).getTeams(Set.of(teamUUID));
+        verify(documentClient).getDocumentNames(Set.of(testDocumentUuid));
         verifyNoMoreInteractions(caseworkClient, camundaClient, infoClient, documentClient);
+    }
 
+    @Test
+    public void convertDataToSchema_batchesLookupsPerEntityType() {
+        UUID teamUUID1 = UUID.randomUUID();
+        UUID teamUUID2 = UUID.randomUUID();
+        UUID userUUID = UUID.randomUUID();
+        FieldDto teamField1 = new FieldDto(null, "team1", null, "dropdown", null, Map.of("choices", "TEAMS"), true, true);
+        FieldDto teamField2 = new FieldDto(null, "team2", null, "dropdown", null, Map.of("choices", "TEAMS"), true, true);
+        FieldDto userField = new FieldDto(null, "user", null, "dropdown", null, Map.of("choices", "USERS"), true, true);
+        SchemaDto schemaDto1 = new SchemaDto(UUID.randomUUID(), null, null, null, null, true, List.of(teamField1, userField), null, null);
+        SchemaDto schemaDto2 = new SchemaDto(UUID.randomUUID(), null, null, null, null, true, List.of(teamField2, teamField1), null, null);
+
+        Map<String, String> dataMap = new HashMap<>();
+        dataMap.put("team1", teamUUID1.toString());
+        dataMap.put("team2", teamUUID2.toString());
+        dataMap.put("user", userUUID.toString());
+
+        TeamDto teamDto1 = mock(TeamDto.class);
+        when(teamDto1.getDisplayName()).thenReturn("team one");
+        TeamDto teamDto2 = mock(TeamDto.class);
+        when(teamDto2.getDisplayName()).thenReturn("team two");
+        UserDto userDto = new UserDto("user", "First", "Last", "email");
+        when(infoClient.getTeams(Set.of(teamUUID1, teamUUID2))).thenReturn(Map.of(teamUUID1, teamDto1, teamUUID2, teamDto2));
+        when(infoClient.getUsers(Set.of(userUUID))).thenReturn(Map.of(userUUID, userDto));
+
+        Map<String, String> dataMapResult = workflowService.convertDataToSchema(List.of(schemaDto1, schemaDto2), dataMap);
+
+        assertThat(dataMapResult.get("team1")).isEqualTo("team one");
+        assertThat(dataMapResult.get("team2")).isEqualTo("team two");
+        assertThat(dataMapResult.get("user")).isEqualTo("First Last (email)");
+
+        verify(infoClient).getTeams(Set.of(teamUUID1, teamUUID2));
+        verify(infoClient).getUsers(Set.of(userUUID));
+        verifyNoMoreInteractions(caseworkClient, camundaClient, infoClient, documentClient);
     }
 
     @Test
-    public void convertDataToSchema_documentNameNotFoundException() {
+    public void convertDataToSchema_documentNameNotFound() {
         List<SchemaDto> schemaDtos = setupTestSchemas();
 
         Map<String, String> dataMap = new HashMap<>();
         dataMap.put(testFieldName, testDocumentUuid.toString());
 
-        when(documentClient.getDocumentName(testDocumentUuid)).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        when(documentClient.getDocumentNames(Set.of(testDocumentUuid))).thenReturn(Map.of());
 
 
         Map<String, String> dataMapResult = workflowService.convertDataToSchema(schemaDtos, dataMap);
@@ -127,7 +210,7 @@ public class WorkflowServiceTest {
         assertThat(dataMapResult.size()).isOne();
         assertThat(dataMapResult.get(testFieldName)).isEqualTo("Document not found");
 
-        verify(documentClient).getDocumentName(testDocumentUuid);
+        verify(documentClient).getDocumentNames(Set.of(testDocumentUuid));
         verifyNoMoreInteractions(caseworkClient, camundaClient, infoClient, documentClient);
 
     }
@@ -139,7 +222,7 @@ public class WorkflowServiceTest {
         Map<String, String> dataMap = new HashMap<>();
         dataMap.put(testFieldName, testDocumentUuid.toString());
 
-        when(documentClient.getDocumentName(testDocumentUuid)).thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN));
+        when(documentClient.getDocumentNames(Set.of(testDocumentUuid))).thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN));
 
         Map<String, String> dataMapResult = workflowService.convertDataToSchema(schemaDtos, dataMap);
 
@@ -147,7 +230,7 @@ public class WorkflowServiceTest {
         assertThat(dataMapResult.size()).isOne();
         assertThat(dataMapResult.get(testFieldName)).isEqualTo("Document not found");
 
-        verify(documentClient).getDocumentName(testDocumentUuid);
+        verify(documentClient).getDocumentNames(Set.of(testDocumentUuid));
         verifyNoMoreInteractions(caseworkClient, camundaClient, infoClient, documentClient);
 
     }
@@ -254,8 +337,8 @@ public class WorkflowServiceTest {
 
         SchemaDto schemaDto = SchemaDtoBuilder.aSchemaDto().withFields(List.of(fieldDtoA, fieldDtoB)).build();
 
-        when(caseworkClient.getFullCase(caseUUID)).thenReturn(getCaseworkCaseDataResponse);
-        when(caseworkClient.getAllStagesForCase(caseUUID)).thenReturn(allStagesForCaseResponse);
+        when(asyncCaseworkClient.getFullCase(caseUUID)).thenReturn(CompletableFuture.completedFuture(getCaseworkCaseDataResponse));
+        when(asyncCaseworkClient.getAllStagesForCase(caseUUID)).thenReturn(CompletableFuture.completedFuture(allStagesForCaseResponse));
         when(infoClient.getCaseDetailsFieldsByCaseType(caseType)).thenReturn(List.of(caseDetailsFieldDtoA, caseDetailsFieldDtoB));
         when(infoClient.getSchemasForCaseTypeAndStages(caseType, caseStages)).thenReturn(List.of(schemaDto));
 
@@ -277,11 +360,11 @@ public class WorkflowServiceTest {
         assertThat(result.getData().get(nameA)).isEqualTo("value1");
         assertThat(result.getData().get(nameB)).isEqualTo("value2");
 
-        verify(caseworkClient).getFullCase(caseUUID);
-        verify(caseworkClient).getAllStagesForCase(caseUUID);
+        verify(asyncCaseworkClient).getFullCase(caseUUID);
+        verify(asyncCaseworkClient).getAllStagesForCase(caseUUID);
         verify(infoClient).getCaseDetailsFieldsByCaseType(caseType);
         verify(infoClient).getSchemasForCaseTypeAndStages(caseType, caseStages);
-        verifyNoMoreInteractions(caseworkClient, camundaClient, infoClient, documentClient);
+        verifyNoMoreInteractions(caseworkClient, asyncCaseworkClient, camundaClient, infoClient, documentClient);
     }
 
     @Test
@@ -326,8 +409,8 @@ public class WorkflowServiceTest {
         schemaDtos.add(schemaDto1);
         schemaDtos.add(schemaDto2);
 
-        when(caseworkClient.getFullCase(caseUUID)).thenReturn(getCaseworkCaseDataResponse);
-        when(caseworkClient.getAllStagesForCase(caseUUID)).thenReturn(allStagesForCaseResponse);
+        when(asyncCaseworkClient.getFullCase(caseUUID)).thenReturn(CompletableFuture.completedFuture(getCaseworkCaseDataResponse));
+        when(asyncCaseworkClient.getAllStagesForCase(caseUUID)).thenReturn(CompletableFuture.completedFuture(allStagesForCaseResponse));
         when(infoClient.getSchemasForCaseTypeAndStages(caseType, allCaseStages)).thenReturn(schemaDtos);
 
         GetCaseResponse result = workflowService.getAllCaseStages(caseUUID);
@@ -342,10 +425,13 @@ public class WorkflowServiceTest {
         assertThat(result.getData().get(nameA)).isEqualTo("value1");
         assertThat(result.getData().get(nameB)).isEqualTo("value2");
 
-        verify(caseworkClient).getFullCase(caseUUID);
-        verify(caseworkClient).getAllStagesForCase(caseUUID);
+        verify(asyncCaseworkClient).getFullCase(caseUUID);
+        verify(asyncCaseworkClient).getAllStagesForCase(caseUUID);
         verify(infoClient).getSchemasForCaseTypeAndStages(caseType, allCaseStages);
-        verifyNoMoreInteractions(caseworkClient, camundaClient, infoClient, documentClient);
+        verifyNoMoreInteractions(caseworkClient, asyncCaseworkClient, camundaClient, infoClient, documentClient);
+
+        assertThat(meterRegistry.get("workflow.case.view").tags("view", "all-stages", "phase", "case").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("workflow.case.view").tags("view", "all-stages", "phase", "case-stages").timer().count()).isEqualTo(1);
     }
 
     private List<SchemaDto> setupTestSchemas() {
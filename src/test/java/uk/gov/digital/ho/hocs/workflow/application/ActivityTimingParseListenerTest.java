@@ -0,0 +1,72 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ActivityTimingParseListenerTest {
+
+    @Mock
+    private DelegateExecution execution;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ActivityTimingParseListener listener;
+
+    private ActivityTimingEndpoint endpoint;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new ActivityTimingParseListener(true, meterRegistry);
+        endpoint = new ActivityTimingEndpoint(meterRegistry, 20);
+    }
+
+    @Test
+    public void shouldRecordDurationByProcessActivityAndType() {
+        when(execution.getId()).thenReturn("execution1");
+        listener.onActivityStarted(execution, "ServiceTask_1");
+        listener.onActivityEnded(execution, "MPAM", "ServiceTask_1", "serviceTask");
+
+        assertThat(meterRegistry.get("camunda.activity.duration")
+                .tag("process", "MPAM")
+                .tag("activity", "ServiceTask_1")
+                .tag("type", "serviceTask")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldIgnoreActivityEndedWithoutStart() {
+        when(execution.getId()).thenReturn("execution1");
+        listener.onActivityEnded(execution, "MPAM", "ServiceTask_1", "serviceTask");
+
+        assertThat(meterRegistry.find("camunda.activity.duration").timer()).isNull();
+    }
+
+    @Test
+    public void shouldListSlowestActivitiesFirst() {
+        meterRegistry.timer("camunda.activity.duration", "process", "MPAM", "activity", "Fast", "type", "serviceTask")
+                .record(Duration.ofMillis(10));
+        meterRegistry.timer("camunda.activity.duration", "process", "WCS", "activity", "Slow", "type", "serviceTask")
+                .record(Duration.ofMillis(500));
+        meterRegistry.timer("camunda.activity.duration", "process", "MPAM", "activity", "Medium", "type", "exclusiveGateway")
+                .record(Duration.ofMillis(100));
+
+        List<ActivityTimingEndpoint.ActivityTiming> slowest = endpoint.slowest(2, null);
+
+        assertThat(slowest).extracting("process", "activity", "type")
+                .containsExactly(tuple("WCS", "Slow", "serviceTask"), tuple("MPAM", "Medium", "exclusiveGateway"));
+    }
+}
@@ -0,0 +1,176 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.impl.cfg.TransactionContext;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutorContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slf4j.MDC;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncContinuationParseListenerTest {
+
+    @Mock
+    private DelegateExecution execution;
+
+    @Mock
+    private CommandContext commandContext;
+
+    @Mock
+    private TransactionContext transactionContext;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AsyncContinuationParseListener listener;
+
+    private final Map<String, Object> variables = new HashMap<>();
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = listener(meterRegistry);
+        lenient().doAnswer(invocation -> variables.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(execution).setVariableLocal(anyString(), any());
+        lenient().when(execution.getVariable(anyString())).thenAnswer(invocation -> variables.get(invocation.<String>getArgument(0)));
+        lenient().doAnswer(invocation -> variables.remove(invocation.<String>getArgument(0)))
+                .when(execution).removeVariable(anyString());
+    }
+
+    private static AsyncContinuationParseListener listener(SimpleMeterRegistry meterRegistry) {
+        return new AsyncContinuationParseListener(true, new String[]{"ServiceTask_1"}, new String[0], true, meterRegistry, new ObjectMapper());
+    }
+
+    @After
+    public void tearDown() {
+        MDC.clear();
+        Context.removeJobExecutorContext();
+        if (Context.getCommandContext() != null) {
+            Context.removeCommandContext();
+        }
+    }
+
+    @Test
+    public void shouldRecordLatencyAndRestoreRequestDataWhenContinuationStarts() {
+        MDC.put(RequestData.CORRELATION_ID_HEADER, "correlation1");
+        MDC.put(RequestData.USER_ID_HEADER, "user1");
+        listener.onContinuationScheduled(execution, "ServiceTask_1");
+        MDC.clear();
+        when(execution.getCurrentActivityId()).thenReturn("ServiceTask_1");
+        Context.setJobExecutorContext(new JobExecutorContext());
+
+        listener.onContinuationStarted(execution);
+
+        assertThat(meterRegistry.get("camunda.async.continuation.latency").tag("activity", "ServiceTask_1").timer().count()).isEqualTo(1);
+        assertThat(MDC.get(RequestData.CORRELATION_ID_HEADER)).isEqualTo("correlation1");
+        assertThat(MDC.get(RequestData.USER_ID_HEADER)).isEqualTo("user1");
+    }
+
+    @Test
+    public void shouldReplaceRequestDataLeftByAnEarlierJob() {
+        MDC.put(RequestData.CORRELATION_ID_HEADER, "correlation1");
+        MDC.put(RequestData.USER_ID_HEADER, "user1");
+        listener.onContinuationScheduled(execution, "ServiceTask_1");
+        MDC.put(RequestData.CORRELATION_ID_HEADER, "correlation2");
+        MDC.put(RequestData.USER_ID_HEADER, "user2");
+        MDC.put(RequestData.GROUP_HEADER, "groups2");
+        when(execution.getCurrentActivityId()).thenReturn("ServiceTask_1");
+        Context.setJobExecutorContext(new JobExecutorContext());
+
+        listener.onContinuationStarted(execution);
+
+        assertThat(MDC.get(RequestData.CORRELATION_ID_HEADER)).isEqualTo("correlation1");
+        assertThat(MDC.get(RequestData.USER_ID_HEADER)).isEqualTo("user1");
+        assertThat(MDC.get(RequestData.GROUP_HEADER)).isNull();
+    }
+
+    @Test
+    public void shouldRestoreRequestDataForContinuationScheduledOnAnotherInstance() {
+        MDC.put(RequestData.CORRELATION_ID_HEADER, "correlation1");
+        MDC.put(RequestData.USER_ID_HEADER, "user1");
+        MDC.put(RequestData.GROUP_HEADER, "groups1");
+        listener.onContinuationScheduled(execution, "ServiceTask_1");
+        MDC.clear();
+        MDC.put(RequestData.USER_ID_HEADER, "user2");
+        when(execution.getCurrentActivityId()).thenReturn("ServiceTask_1");
+        Context.setJobExecutorContext(new JobExecutorContext());
+        SimpleMeterRegistry otherMeterRegistry = new SimpleMeterRegistry();
+
+        listener(otherMeterRegistry).onContinuationStarted(execution);
+
+        assertThat(otherMeterRegistry.get("camunda.async.continuation.latency").tag("activity", "ServiceTask_1").timer().count()).isEqualTo(1);
+        assertThat(MDC.get(RequestData.CORRELATION_ID_HEADER)).isEqualTo("correlation1");
+        assertThat(MDC.get(RequestData.USER_ID_HEADER)).isEqualTo("user1");
+        assertThat(MDC.get(RequestData.GROUP_HEADER)).isEqualTo("groups1");
+        assertThat(variables).isEmpty();
+    }
+
+    @Test
+    public void shouldClearRequestDataForContinuationScheduledWithoutAny() {
+        MDC.put(RequestData.USER_ID_HEADER, "user2");
+        when(execution.getCurrentActivityId()).thenReturn("ServiceTask_1");
+        Context.setJobExecutorContext(new JobExecutorContext());
+
+        listener.onContinuationStarted(execution);
+
+        assertThat(meterRegistry.find("camunda.async.continuation.latency").timer()).isNull();
+        assertThat(MDC.get(RequestData.USER_ID_HEADER)).isNull();
+    }
+
+    @Test
+    public void shouldClearRequestDataWhenTheJobTransactionEnds() {
+        listener.onContinuationScheduled(execution, "ServiceTask_1");
+        when(execution.getCurrentActivityId()).thenReturn("ServiceTask_1");
+        when(commandContext.getTransactionContext()).thenReturn(transactionContext);
+        Context.setCommandContext(commandContext);
+        Context.setJobExecutorContext(new JobExecutorContext());
+        listener.onContinuationStarted(execution);
+        MDC.put(RequestData.USER_ID_HEADER, "user1");
+
+        ArgumentCaptor<TransactionListener> committed = ArgumentCaptor.forClass(TransactionListener.class);
+        verify(transactionContext).addTransactionListener(eq(TransactionState.COMMITTED), committed.capture());
+        committed.getValue().execute(commandContext);
+
+        assertThat(MDC.get(RequestData.USER_ID_HEADER)).isNull();
+    }
+
+    @Test
+    public void shouldLeaveRequestDataAloneOutsideTheJobExecutor() {
+        MDC.put(RequestData.USER_ID_HEADER, "user1");
+        when(execution.getCurrentActivityId()).thenReturn("ServiceTask_1");
+
+        listener.onContinuationStarted(execution);
+
+        assertThat(MDC.get(RequestData.USER_ID_HEADER)).isEqualTo("user1");
+    }
+
+    @Test
+    public void shouldRecordEachContinuationOnce() {
+        listener.onContinuationScheduled(execution, "ServiceTask_1");
+        when(execution.getCurrentActivityId()).thenReturn("ServiceTask_1");
+
+        listener.onContinuationStarted(execution);
+        listener.onContinuationStarted(execution);
+
+        assertThat(meterRegistry.get("camunda.async.continuation.latency").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,133 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncRestHelperTest {
+
+    private static final String CASE_SERVICE = "http://localhost:8082";
+    private static final String CASE_UUID = "14915b78-6977-42db-b343-0915a7f412a1";
+
+    @Mock
+    private RequestData requestData;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private List<ClientRequest> requests;
+
+    private Queue<Mono<ClientResponse>> responses;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        requests = new ArrayList<>();
+        responses = new LinkedList<>();
+    }
+
+    @Test
+    public void shouldRetryGetOnServerErrorUntilItSucceeds() {
+        when(requestData.userId()).thenReturn("user");
+        responses.add(response(HttpStatus.BAD_GATEWAY, ""));
+        responses.add(response(HttpStatus.OK, "case"));
+
+        assertThat(asyncRestHelper(10).get(CASE_SERVICE, "/case/" + CASE_UUID, String.class).join()).isEqualTo("case");
+
+        assertThat(requests).hasSize(2);
+        assertThat(requests).allSatisfy(request -> {
+            assertThat(request.url().toString()).isEqualTo(CASE_SERVICE + "/case/" + CASE_UUID);
+            assertThat(request.headers().getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Basic dXNlcjpwYXNz");
+            assertThat(request.headers().getFirst(RequestData.USER_ID_HEADER)).isEqualTo("user");
+        });
+        assertThat(meterRegistry.get("downstream.requests").tags("downstream", "case-service", "uri", "/case/{}", "outcome", "SERVER_ERROR", "attempt", "1")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("downstream.requests").tags("outcome", "SUCCESS", "attempt", "2").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("downstream.requests.retries").tag("method", "GET").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldSendTheSameIdempotencyKeyOnEveryAttempt() {
+        responses.add(Mono.error(new ConnectException("Connection refused")));
+        responses.add(response(HttpStatus.OK, "created"));
+
+        String previous = IdempotencyKey.enter("job-1");
+        String expectedKey;
+        AsyncRestHelper asyncRestHelper = asyncRestHelper(10);
+        CompletableFuture<String> result;
+        try {
+            expectedKey = IdempotencyKey.forRequest(HttpMethod.POST, "/case");
+            result = asyncRestHelper.post(CASE_SERVICE, "/case", "request", String.class);
+        } finally {
+            IdempotencyKey.restore(previous);
+        }
+
+        assertThat(result.join()).isEqualTo("created");
+        assertThat(requests).hasSize(2);
+        assertThat(requests).allSatisfy(request ->
+                assertThat(request.headers().getFirst(IdempotencyKey.HEADER)).isEqualTo(expectedKey));
+    }
+
+    @Test
+    public void shouldNotRetryPostThatMayHaveBeenSent() {
+        responses.add(Mono.error(new IOException("Connection reset")));
+
+        assertThatThrownBy(() -> asyncRestHelper(10).post(CASE_SERVICE, "/case", "request", String.class).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(ResourceAccessException.class);
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    public void shouldNotSendCallsTheBulkheadRejects() {
+        assertThatThrownBy(() -> asyncRestHelper(0).get(CASE_SERVICE, "/case/" + CASE_UUID, String.class).join())
+                .hasCauseInstanceOf(DownstreamGuard.CallRejectedException.class);
+
+        assertThat(requests).isEmpty();
+        assertThat(meterRegistry.get("downstream.requests").tags("outcome", "REJECTED", "attempt", "1").timer().count()).isEqualTo(1);
+    }
+
+    private static Mono<ClientResponse> response(HttpStatus status, String body) {
+        return Mono.just(ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, "text/plain")
+                .body(body)
+                .build());
+    }
+
+    private AsyncRestHelper asyncRestHelper(int maxConcurrent) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    return responses.remove();
+                })
+                .build();
+        DownstreamGuard downstreamGuard = new DownstreamGuard(Map.of(CASE_SERVICE, "case-service"), Map.of("case-service", maxConcurrent),
+                0, 5, 1000, meterRegistry, System::currentTimeMillis);
+        return new AsyncRestHelper(webClient, "user:pass", requestData, downstreamGuard, 3, 0, 0, 1000, meterRegistry);
+    }
+}
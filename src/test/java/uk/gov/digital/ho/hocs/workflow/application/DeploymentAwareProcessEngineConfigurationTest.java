@@ -0,0 +1,134 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.repository.Deployment;
+import org.camunda.bpm.engine.repository.DeploymentBuilder;
+import org.camunda.bpm.engine.repository.DeploymentQuery;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeploymentAwareProcessEngineConfigurationTest {
+
+    @Mock
+    private ProcessEngine processEngine;
+
+    @Mock
+    private RepositoryService repositoryService;
+
+    @Mock
+    private DeploymentQuery deploymentQuery;
+
+    @Mock
+    private Deployment latestDeployment;
+
+    private DeploymentAwareProcessEngineConfiguration configuration;
+
+    private Resource[] resources = {resource("STAGE.bpmn", "<stage/>"), resource("MPAM.bpmn", "<mpam/>")};
+
+    private String fingerprint = DeploymentAwareProcessEngineConfiguration.fingerprint(
+            DeploymentAwareProcessEngineConfiguration.readResources(resources));
+
+    @Before
+    public void setup() {
+        configuration = new DeploymentAwareProcessEngineConfiguration();
+        configuration.setDeploymentResources(resources);
+    }
+
+    @Test
+    public void shouldSkipDeploymentWhenLatestDeploymentMatches() {
+        stubLatestDeployment(fingerprint);
+
+        configuration.autoDeployResources(processEngine);
+
+        verify(repositoryService, never()).createDeployment();
+    }
+
+    @Test
+    public void shouldDeployUnderTheSameNameWhenFingerprintDiffers() {
+        stubLatestDeployment("previous");
+        DeploymentBuilder deploymentBuilder = stubDeployment();
+
+        configuration.autoDeployResources(processEngine);
+
+        verify(deploymentBuilder).enableDuplicateFiltering(true);
+        verify(deploymentBuilder).name("SpringAutoDeployment");
+        verify(deploymentBuilder).addInputStream(eq("MPAM.bpmn"), any());
+        verify(deploymentBuilder).addInputStream(eq("STAGE.bpmn"), any());
+        verify(deploymentBuilder).addString(DeploymentAwareProcessEngineConfiguration.FINGERPRINT_RESOURCE, fingerprint);
+        verify(deploymentBuilder).deploy();
+    }
+
+    @Test
+    public void shouldDeployWhenLatestDeploymentHasNoFingerprint() {
+        stubLatestDeployment(null);
+        DeploymentBuilder deploymentBuilder = stubDeployment();
+
+        configuration.autoDeployResources(processEngine);
+
+        verify(deploymentBuilder).addString(DeploymentAwareProcessEngineConfiguration.FINGERPRINT_RESOURCE, fingerprint);
+        verify(deploymentBuilder).deploy();
+        verify(repositoryService, never()).getResourceAsStream(any(), any());
+    }
+
+    @Test
+    public void fingerprintShouldIgnoreResourceOrderButNotContent() {
+        Resource[] reordered = {resources[1], resources[0]};
+        Resource[] changed = {resource("STAGE.bpmn", "<stage/>"), resource("MPAM.bpmn", "<mpam changed/>")};
+
+        String fingerprint = DeploymentAwareProcessEngineConfiguration.fingerprint(DeploymentAwareProcessEngineConfiguration.readResources(resources));
+
+        assertThat(DeploymentAwareProcessEngineConfiguration.fingerprint(DeploymentAwareProcessEngineConfiguration.readResources(reordered)))
+                .isEqualTo(fingerprint);
+        assertThat(DeploymentAwareProcessEngineConfiguration.fingerprint(DeploymentAwareProcessEngineConfiguration.readResources(changed)))
+                .isNotEqualTo(fingerprint);
+    }
+
+    private void stubLatestDeployment(String deployedFingerprint) {
+        when(processEngine.getRepositoryService()).thenReturn(repositoryService);
+        when(repositoryService.createDeploymentQuery()).thenReturn(deploymentQuery);
+        when(deploymentQuery.deploymentName("SpringAutoDeployment")).thenReturn(deploymentQuery);
+        when(deploymentQuery.orderByDeploymentTime()).thenReturn(deploymentQuery);
+        when(deploymentQuery.desc()).thenReturn(deploymentQuery);
+        when(deploymentQuery.listPage(0, 1)).thenReturn(List.of(latestDeployment));
+        when(latestDeployment.getId()).thenReturn("deployment1");
+        if (deployedFingerprint == null) {
+            when(repositoryService.getDeploymentResourceNames("deployment1")).thenReturn(List.of("MPAM.bpmn"));
+        } else {
+            when(repositoryService.getDeploymentResourceNames("deployment1"))
+                    .thenReturn(List.of("MPAM.bpmn", DeploymentAwareProcessEngineConfiguration.FINGERPRINT_RESOURCE));
+            when(repositoryService.getResourceAsStream("deployment1", DeploymentAwareProcessEngineConfiguration.FINGERPRINT_RESOURCE))
+                    .thenReturn(new ByteArrayInputStream(deployedFingerprint.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    private DeploymentBuilder stubDeployment() {
+        DeploymentBuilder deploymentBuilder = mock(DeploymentBuilder.class, RETURNS_SELF);
+        when(repositoryService.createDeployment()).thenReturn(deploymentBuilder);
+        doReturn(latestDeployment).when(deploymentBuilder).deploy();
+        return deploymentBuilder;
+    }
+
+    private static Resource resource(String filename, String content) {
+        return new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+}
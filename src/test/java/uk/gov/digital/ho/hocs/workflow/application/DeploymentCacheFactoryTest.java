@@ -0,0 +1,70 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.commons.utils.cache.Cache;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeploymentCacheFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DeploymentCacheFactory cacheFactory;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cacheFactory = new DeploymentCacheFactory(2, 3, 1, meterRegistry);
+    }
+
+    @Test
+    public void shouldReturnNullBeforeAnythingIsCached() {
+        Cache<String, ProcessDefinitionEntity> cache = cacheFactory.createCache(1000);
+
+        assertThat(cache.get("MPAM:1:1")).isNull();
+        assertThat(cache.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void shouldReportProcessDefinitionCacheHitsAndMisses() {
+        Cache<String, ProcessDefinitionEntity> cache = cacheFactory.createCache(1000);
+        ProcessDefinitionEntity definition = new ProcessDefinitionEntity();
+
+        cache.put("MPAM:1:1", definition);
+
+        assertThat(cache.get("MPAM:1:1")).isSameAs(definition);
+        assertThat(cache.get("WCS:1:1")).isNull();
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "camunda.process-definitions").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "camunda.process-definitions").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldBoundProcessDefinitionCacheToItsOwnSize() {
+        Cache<String, ProcessDefinitionEntity> cache = cacheFactory.createCache(1000);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("MPAM:" + i + ":1", new ProcessDefinitionEntity());
+        }
+        cache.get("MPAM:0:1");
+
+        assertThat(cache.size()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void shouldRemoveAndClearEntries() {
+        Cache<String, ProcessDefinitionEntity> cache = cacheFactory.createCache(1000);
+        cache.put("MPAM:1:1", new ProcessDefinitionEntity());
+        cache.put("WCS:1:1", new ProcessDefinitionEntity());
+
+        cache.remove("MPAM:1:1");
+        assertThat(cache.keySet()).containsExactly("WCS:1:1");
+
+        cache.clear();
+        assertThat(cache.get("WCS:1:1")).isNull();
+    }
+}
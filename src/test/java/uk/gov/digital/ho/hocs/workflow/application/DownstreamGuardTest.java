@@ -0,0 +1,161 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DownstreamGuardTest {
+
+    private static final String CASE_SERVICE = "http://localhost:8082";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AtomicLong now;
+
+    private DownstreamGuard downstreamGuard;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong();
+        downstreamGuard = new DownstreamGuard(Map.of(CASE_SERVICE, "case-service"), Map.of("case-service", 1),
+                0, 2, 1000, meterRegistry, now::get);
+    }
+
+    @Test
+    public void shouldOpenCircuitAfterConsecutiveFailures() {
+        fail();
+        fail();
+
+        assertThatThrownBy(() -> downstreamGuard.call(CASE_SERVICE, () -> "ok"))
+                .isInstanceOf(DownstreamGuard.CallRejectedException.class);
+        assertThat(meterRegistry.get("downstream.calls.rejected").tag("reason", "circuit_open").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("downstream.circuit.state").tag("downstream", "case-service").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCloseCircuitWhenTrialCallSucceeds() {
+        fail();
+        fail();
+        now.set(1000);
+
+        assertThat(downstreamGuard.call(CASE_SERVICE, () -> "ok")).isEqualTo("ok");
+
+        assertThat(meterRegistry.get("downstream.circuit.state").gauge().value()).isEqualTo(0);
+        assertThat(meterRegistry.get("downstream.circuit.transitions").tag("from", "half_open").tag("to", "closed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReopenCircuitWhenTrialCallFails() {
+        fail();
+        fail();
+        now.set(1000);
+        fail();
+
+        assertThatThrownBy(() -> downstreamGuard.call(CASE_SERVICE, () -> "ok"))
+                .isInstanceOf(DownstreamGuard.CallRejectedException.class);
+    }
+
+    @Test
+    public void shouldAllowAnotherTrialCallWhenTrialCallThrowsError() {
+        fail();
+        fail();
+        now.set(1000);
+
+        assertThatThrownBy(() -> downstreamGuard.call(CASE_SERVICE, () -> {
+            throw new AssertionError("trial");
+        })).isInstanceOf(AssertionError.class);
+
+        assertThat(downstreamGuard.call(CASE_SERVICE, () -> "ok")).isEqualTo("ok");
+        assertThat(meterRegistry.get("downstream.circuit.state").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotCountClientErrorsAsFailures() {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> downstreamGuard.call(CASE_SERVICE, () -> {
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+            })).isInstanceOf(HttpClientErrorException.class);
+        }
+
+        assertThat(downstreamGuard.call(CASE_SERVICE, () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    public void shouldFailWhenDownstreamsShareABaseUrl() {
+        assertThatThrownBy(() -> DownstreamGuard.names(CASE_SERVICE, "http://localhost:8085", CASE_SERVICE))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("case-service and document-service");
+        assertThat(DownstreamGuard.names(CASE_SERVICE, "http://localhost:8085", "http://localhost:8083"))
+                .containsOnly(Map.entry(CASE_SERVICE, "case-service"), Map.entry("http://localhost:8085", "info-service"),
+                        Map.entry("http://localhost:8083", "document-service"));
+    }
+
+    @Test
+    public void shouldRejectCallsWhenBulkheadIsFull() throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread inFlight = new Thread(() -> downstreamGuard.call(CASE_SERVICE, () -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "ok";
+        }));
+        inFlight.start();
+        entered.await();
+
+        assertThatThrownBy(() -> downstreamGuard.call(CASE_SERVICE, () -> "ok"))
+                .isInstanceOf(DownstreamGuard.CallRejectedException.class);
+        assertThat(meterRegistry.get("downstream.calls.rejected").tag("reason", "bulkhead_full").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        inFlight.join();
+        assertThat(downstreamGuard.call(CASE_SERVICE, () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    public void shouldHoldBulkheadUntilAsyncCallCompletes() {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = downstreamGuard.callAsync(CASE_SERVICE, () -> response);
+
+        assertThat(downstreamGuard.callAsync(CASE_SERVICE, () -> CompletableFuture.completedFuture("ok")))
+                .hasFailedWithThrowableThat().isInstanceOf(DownstreamGuard.CallRejectedException.class);
+        assertThat(meterRegistry.get("downstream.calls.rejected").tag("reason", "bulkhead_full").counter().count()).isEqualTo(1);
+
+        response.complete("ok");
+        assertThat(inFlight.join()).isEqualTo("ok");
+        assertThat(downstreamGuard.callAsync(CASE_SERVICE, () -> CompletableFuture.completedFuture("ok")).join()).isEqualTo("ok");
+    }
+
+    @Test
+    public void shouldOpenCircuitAfterConsecutiveAsyncFailures() {
+        for (int i = 0; i < 2; i++) {
+            assertThat(downstreamGuard.callAsync(CASE_SERVICE, () -> CompletableFuture.failedFuture(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))))
+                    .hasFailedWithThrowableThat().isInstanceOf(HttpServerErrorException.class);
+        }
+
+        assertThatThrownBy(() -> downstreamGuard.call(CASE_SERVICE, () -> "ok"))
+                .isInstanceOf(DownstreamGuard.CallRejectedException.class);
+        assertThat(meterRegistry.get("downstream.circuit.state").tag("downstream", "case-service").gauge().value()).isEqualTo(2);
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> downstreamGuard.call(CASE_SERVICE, () -> {
+            throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+        })).isInstanceOf(HttpServerErrorException.class);
+    }
+}
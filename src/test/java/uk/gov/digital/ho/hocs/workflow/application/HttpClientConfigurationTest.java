@@ -0,0 +1,42 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpClientConfigurationTest {
+
+    private static final Map<String, Integer> MAX_PER_ROUTE = Map.of("case-service", 100, "info-service", 50, "document-service", 50);
+
+    @Test
+    public void shouldGiveEachDownstreamItsOwnRoute() {
+        Map<HttpRoute, HttpClientConfiguration.RouteLimit> routes = HttpClientConfiguration.routes(baseUrls(
+                "http://casework:8080", "http://info:8080", "http://documents:8080"), MAX_PER_ROUTE);
+
+        assertThat(routes).hasSize(3);
+        assertThat(routes.get(HttpClientConfiguration.routeFor("http://info:8080")).maxPerRoute).isEqualTo(50);
+    }
+
+    @Test
+    public void shouldAddUpLimitsOfDownstreamsSharingARoute() {
+        Map<HttpRoute, HttpClientConfiguration.RouteLimit> routes = HttpClientConfiguration.routes(baseUrls(
+                "http://gateway:8080/case", "http://gateway:8080/info", "http://documents:8080"), MAX_PER_ROUTE);
+
+        assertThat(routes).hasSize(2);
+        HttpClientConfiguration.RouteLimit shared = routes.get(HttpClientConfiguration.routeFor("http://gateway:8080"));
+        assertThat(shared.maxPerRoute).isEqualTo(150);
+        assertThat(shared.downstreams).isEqualTo("case-service+info-service");
+    }
+
+    private static Map<String, String> baseUrls(String caseService, String infoService, String documentService) {
+        Map<String, String> baseUrls = new LinkedHashMap<>();
+        baseUrls.put("case-service", caseService);
+        baseUrls.put("info-service", infoService);
+        baseUrls.put("document-service", documentService);
+        return baseUrls;
+    }
+}
@@ -0,0 +1,46 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdempotencyKeyTest {
+
+    @After
+    public void tearDown() {
+        IdempotencyKey.restore(null);
+    }
+
+    @Test
+    public void shouldHaveNoKeyOutsideAScope() {
+        assertThat(IdempotencyKey.forRequest(HttpMethod.POST, "/case/1/note")).isNull();
+    }
+
+    @Test
+    public void shouldDeriveTheSameKeyForTheSameScopeAndRequest() {
+        IdempotencyKey.enter("case1|process1|ServiceTask_1|createCaseNote");
+        String first = IdempotencyKey.forRequest(HttpMethod.POST, "/case/1/note");
+
+        IdempotencyKey.enter("case1|process1|ServiceTask_1|createCaseNote");
+
+        assertThat(IdempotencyKey.forRequest(HttpMethod.POST, "/case/1/note")).isEqualTo(first);
+        assertThat(IdempotencyKey.forRequest(HttpMethod.PUT, "/case/1/note")).isNotEqualTo(first);
+        assertThat(IdempotencyKey.forRequest(HttpMethod.POST, "/case/1/stage")).isNotEqualTo(first);
+    }
+
+    @Test
+    public void shouldRestoreThePreviousScope() {
+        String outer = IdempotencyKey.enter("outer");
+        String outerKey = IdempotencyKey.forRequest(HttpMethod.POST, "/case");
+
+        String previous = IdempotencyKey.enter("inner");
+        assertThat(IdempotencyKey.forRequest(HttpMethod.POST, "/case")).isNotEqualTo(outerKey);
+        IdempotencyKey.restore(previous);
+
+        assertThat(IdempotencyKey.forRequest(HttpMethod.POST, "/case")).isEqualTo(outerKey);
+        IdempotencyKey.restore(outer);
+        assertThat(IdempotencyKey.forRequest(HttpMethod.POST, "/case")).isNull();
+    }
+}
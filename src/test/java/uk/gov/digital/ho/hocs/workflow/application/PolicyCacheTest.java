@@ -0,0 +1,178 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PolicyCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AtomicLong now;
+
+    private AtomicInteger loads;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong(1000);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldCacheNegativeResultsForNegativeTtl() {
+        PolicyCache cache = cache(new CachePolicy(100, 0, 60000, 0, 0, 1000, 0));
+
+        assertThat(cache.get("key", () -> load(null))).isNull();
+        assertThat(cache.get("key", () -> load(null))).isNull();
+        now.addAndGet(1000);
+        assertThat(cache.get("key", () -> load(null))).isNull();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void shouldNotCacheNegativeResultsWithoutNegativeTtl() {
+        PolicyCache cache = cache(new CachePolicy(100, 0, 60000, 0, 0, 0, 0));
+
+        cache.get("key", () -> load(List.of()));
+        cache.get("key", () -> load(List.of()));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void shouldServeStaleEntryWhenReloadFails() {
+        PolicyCache cache = cache(new CachePolicy(100, 0, 1000, 0, 0, 0, 5000));
+        cache.get("key", () -> load("value"));
+        now.addAndGet(2000);
+
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.get("key", () -> fail())).isEqualTo("value");
+        assertThat(meterRegistry.get("cache.stale.served").tag("cache", "test").counter().count()).isEqualTo(1);
+
+        now.addAndGet(5000);
+        assertThatThrownBy(() -> cache.get("key", () -> fail())).isInstanceOf(Cache.ValueRetrievalException.class);
+    }
+
+    @Test
+    public void shouldRefreshAheadWhileServingCurrentEntry() {
+        PolicyCache cache = cache(new CachePolicy(100, 0, 60000, 0, 1000, 0, 0));
+        cache.get("key", () -> load("first"));
+        now.addAndGet(1000);
+
+        assertThat(cache.get("key", () -> load("second"))).isEqualTo("first");
+        assertThat(cache.get("key", () -> load("third"))).isEqualTo("second");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void shouldRecordHitsMissesAndLoads() {
+        PolicyCache cache = cache(new CachePolicy(100, 0, 60000, 0, 0, 0, 0));
+
+        cache.get("key", () -> load("value"));
+        cache.get("key", () -> load("value"));
+
+        com.github.benmanes.caffeine.cache.Cache<?, ?> store = (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+        assertThat(store.stats().hitCount()).isEqualTo(1);
+        assertThat(store.stats().missCount()).isEqualTo(1);
+        assertThat(store.stats().loadSuccessCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentMissesIntoOneLoad() throws Exception {
+        PolicyCache cache = cache(new CachePolicy(100, 0, 60000, 0, 0, 0, 0));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> cache.get("key", () -> {
+                loading.countDown();
+                release.await();
+                return load("value");
+            }));
+            loading.await();
+            Future<Object> waiter = executor.submit(() -> cache.get("key", () -> load("other")));
+            while (meterRegistry.get("cache.loads.waiting").gauge().value() < 1) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.loads.coalesced").tag("cache", "test").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.loads.waiting").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldShareFailedLoadWithWaiters() throws Exception {
+        PolicyCache cache = cache(new CachePolicy(100, 0, 60000, 0, 0, 0, 0));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> cache.get("key", () -> {
+                loading.countDown();
+                release.await();
+                return fail();
+            }));
+            loading.await();
+            Future<Object> waiter = executor.submit(() -> cache.get("key", () -> load("other")));
+            while (meterRegistry.get("cache.loads.waiting").gauge().value() < 1) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(Cache.ValueRetrievalException.class);
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(Cache.ValueRetrievalException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    public void shouldResolvePolicyFromCacheThenDefaultProperties() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("cache.default.max-size", "500")
+                .withProperty("cache.default.negative-ttl", "10")
+                .withProperty("cache.InfoClientGetUserForTeam.negative-ttl", "60000");
+
+        CachePolicy policy = CachePolicy.resolve(environment, "InfoClientGetUserForTeam");
+
+        assertThat(policy.getMaxSize()).isEqualTo(500);
+        assertThat(policy.getNegativeTtl()).isEqualTo(60000);
+        assertThat(policy.getExpireAfterWrite()).isEqualTo(3600000);
+    }
+
+    private PolicyCache cache(CachePolicy policy) {
+        return new PolicyCache("test", policy, Runnable::run, meterRegistry, now::get);
+    }
+
+    private Object load(Object value) {
+        loads.incrementAndGet();
+        return value;
+    }
+
+    private Object fail() {
+        throw new IllegalStateException("info-service unavailable");
+    }
+}
@@ -0,0 +1,119 @@
+package uk.gov.digital.ho.hocs.workflow.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RestHelperTest {
+
+    private static final String CASE_SERVICE = "http://localhost:8082";
+    private static final String CASE_UUID = "14915b78-6977-42db-b343-0915a7f412a1";
+    private static final String STAGE_UUID = "e05b6b1a-9b0b-4c0e-8e2e-3b0e8c6d3a55";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private RequestData requestData;
+
+    @Test
+    public void shouldTemplateIdentifiersInUrl() {
+        assertThat(RestHelper.uriTemplate(String.format("/case/%s/stage/%s/data", CASE_UUID, STAGE_UUID)))
+                .isEqualTo("/case/{}/stage/{}/data");
+        assertThat(RestHelper.uriTemplate(String.format("/case/%s/data/%s", CASE_UUID, "RefType")))
+                .isEqualTo("/case/{}/data/{}");
+        assertThat(RestHelper.uriTemplate(String.format("/team/case/%s/topic/%s/stage/%s", CASE_UUID, STAGE_UUID, "DCU_MIN_MARKUP")))
+                .isEqualTo("/team/case/{}/topic/{}/stage/{}");
+        assertThat(RestHelper.uriTemplate("/caseType/shortCode/a1")).isEqualTo("/caseType/shortCode/{}");
+        assertThat(RestHelper.uriTemplate("/team")).isEqualTo("/team");
+    }
+
+    @Test
+    public void shouldTemplateQueryParameterValues() {
+        assertThat(RestHelper.uriTemplate(String.format("/case/%s/?full=true", CASE_UUID))).isEqualTo("/case/{}/?full={}");
+        assertThat(RestHelper.uriTemplate(String.format("/schema/caseType/%s?stages=%s", "MIN", "DCU_MIN_MARKUP,DCU_MIN_QA")))
+                .isEqualTo("/schema/caseType/{}?stages={}");
+    }
+
+    @Test
+    public void shouldClassifyOutcomes() {
+        assertThat(RestHelper.outcome(new HttpClientErrorException(HttpStatus.NOT_FOUND))).isEqualTo("CLIENT_ERROR");
+        assertThat(RestHelper.outcome(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))).isEqualTo("SERVER_ERROR");
+        assertThat(RestHelper.outcome(new DownstreamGuard.CallRejectedException("case-service unavailable"))).isEqualTo("REJECTED");
+        assertThat(RestHelper.outcome(new ResourceAccessException("timeout"))).isEqualTo("IO_ERROR");
+    }
+
+    @Test
+    public void shouldOnlyRetryPostsThatWereNeverSent() {
+        assertThat(RestHelper.isRetryable(new ResourceAccessException("refused", new ConnectException()), false)).isTrue();
+        assertThat(RestHelper.isRetryable(new ResourceAccessException("timeout", new SocketTimeoutException()), false)).isFalse();
+        assertThat(RestHelper.isRetryable(new HttpServerErrorException(HttpStatus.BAD_GATEWAY), false)).isFalse();
+    }
+
+    @Test
+    public void shouldRetryIdempotentCallsOnServerAndIoErrorsOnly() {
+        assertThat(RestHelper.isRetryable(new ResourceAccessException("timeout", new SocketTimeoutException()), true)).isTrue();
+        assertThat(RestHelper.isRetryable(new HttpServerErrorException(HttpStatus.BAD_GATEWAY), true)).isTrue();
+        assertThat(RestHelper.isRetryable(new HttpClientErrorException(HttpStatus.NOT_FOUND), true)).isFalse();
+        assertThat(RestHelper.isRetryable(new DownstreamGuard.CallRejectedException("case-service unavailable"), true)).isFalse();
+    }
+
+    @Test
+    public void shouldBackOffWithinExponentialBounds() {
+        RestHelper restHelper = restHelper(100, 1000);
+
+        assertThat(restHelper.backoff(1)).isBetween(50L, 100L);
+        assertThat(restHelper.backoff(3)).isBetween(200L, 400L);
+        assertThat(restHelper.backoff(10)).isBetween(500L, 1000L);
+    }
+
+    @Test
+    public void shouldRetryGetOnServerErrorUntilItSucceeds() {
+        when(restTemplate.exchange(eq(CASE_SERVICE + "/case/" + CASE_UUID), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))
+                .thenReturn(ResponseEntity.ok("case"));
+
+        assertThat(restHelper(0, 0).get(CASE_SERVICE, "/case/" + CASE_UUID, String.class)).isEqualTo("case");
+
+        verify(restTemplate, times(2)).exchange(eq(CASE_SERVICE + "/case/" + CASE_UUID), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    public void shouldNotRetryPostThatMayHaveBeenSent() {
+        when(restTemplate.exchange(eq(CASE_SERVICE + "/case"), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("timeout", new SocketTimeoutException()));
+
+        assertThatThrownBy(() -> restHelper(0, 0).post(CASE_SERVICE, "/case", "request", String.class))
+                .isInstanceOf(ResourceAccessException.class);
+
+        verify(restTemplate).exchange(eq(CASE_SERVICE + "/case"), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class));
+    }
+
+    private RestHelper restHelper(long initialInterval, long maxInterval) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DownstreamGuard downstreamGuard = new DownstreamGuard(Map.of(CASE_SERVICE, "case-service"), Map.of("case-service", 10),
+                0, 5, 1000, meterRegistry, System::currentTimeMillis);
+        return new RestHelper(restTemplate, "user:pass", requestData, downstreamGuard, 3, initialInterval, maxInterval, meterRegistry);
+    }
+}
@@ -0,0 +1,212 @@
+package uk.gov.digital.ho.hocs.workflow.client.camundaclient;
+
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.DelegateTask;
+import org.camunda.bpm.engine.exception.NullValueException;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.runtime.ProcessInstanceQuery;
+import org.camunda.bpm.engine.runtime.VariableInstance;
+import org.camunda.bpm.engine.runtime.VariableInstanceQuery;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.task.TaskQuery;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CamundaClientTest {
+
+    @Mock
+    private RuntimeService runtimeService;
+
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private TaskQuery taskQuery;
+
+    @Mock
+    private Task task;
+
+    @Mock
+    private VariableInstanceQuery variableInstanceQuery;
+
+    @Mock
+    private VariableInstance variableInstance;
+
+    @Mock
+    private ProcessInstanceQuery processInstanceQuery;
+
+    @Mock
+    private ProcessInstance processInstance;
+
+    private StageTaskIndex stageTaskIndex;
+
+    private CamundaClient camundaClient;
+
+    private UUID stageUUID = UUID.randomUUID();
+
+    @Before
+    public void setup() {
+        stageTaskIndex = new StageTaskIndex(100, 60000, 60000, 60000);
+        camundaClient = new CamundaClient(runtimeService, taskService, stageTaskIndex);
+    }
+
+    @Test
+    public void completeTask_usesIndexedTaskWithoutQuerying() {
+        stageTaskIndex.put(stageUUID, "process1", List.of("task1"));
+
+        camundaClient.completeTask(stageUUID, Map.of("key", "value"));
+
+        verify(taskService).complete("task1", Map.of("key", "value"));
+        verifyNoMoreInteractions(taskService, runtimeService);
+    }
+
+    @Test
+    public void completeTask_queriesAndIndexesTaskWhenStageNotIndexed() {
+        stubTaskQuery();
+        when(taskQuery.list()).thenReturn(List.of(task));
+        when(task.getId()).thenReturn("task1");
+        when(task.getProcessInstanceId()).thenReturn("process1");
+
+        camundaClient.completeTask(stageUUID, Map.of("key", "value"));
+
+        verify(taskService).complete("task1", Map.of("key", "value"));
+        assertThat(stageTaskIndex.get(stageUUID).getProcessInstanceId()).isEqualTo("process1");
+        assertThat(stageTaskIndex.get(stageUUID).getTaskIds()).containsExactly("task1");
+    }
+
+    @Test
+    public void completeTask_queriesAgainWhenIndexedTaskNoLongerExists() {
+        stageTaskIndex.put(stageUUID, "process1", List.of("stale"));
+        doThrow(new NullValueException("Cannot find task with id stale")).when(taskService).complete(eq("stale"), any());
+        stubTaskQuery();
+        when(taskQuery.taskId("stale")).thenReturn(taskQuery);
+        when(taskQuery.count()).thenReturn(0L);
+        when(taskQuery.list()).thenReturn(List.of(task));
+        when(task.getId()).thenReturn("task1");
+        when(task.getProcessInstanceId()).thenReturn("process1");
+
+        camundaClient.completeTask(stageUUID, Map.of("key", "value"));
+
+        verify(taskService).complete("task1", Map.of("key", "value"));
+    }
+
+    @Test
+    public void getStageScreenName_returnsFinishForEndedStageWithoutQuerying() {
+        stageTaskIndex.put(stageUUID, "process1", List.of());
+        stageTaskIndex.onProcessEnded(endedProcess("process1"));
+
+        String screenName = camundaClient.getStageScreenName(stageUUID);
+
+        assertThat(screenName).isEqualTo("FINISH");
+        verifyZeroInteractions(runtimeService, taskService);
+    }
+
+    @Test
+    public void getStageScreenName_usesScreenCapturedWithTaskWithoutQuerying() {
+        DelegateTask created = mock(DelegateTask.class);
+        DelegateExecution execution = mock(DelegateExecution.class);
+        when(created.getExecution()).thenReturn(execution);
+        when(execution.getProcessBusinessKey()).thenReturn(stageUUID.toString());
+        when(created.getProcessInstanceId()).thenReturn("process1");
+        when(created.getId()).thenReturn("task1");
+        when(created.getVariable("screen")).thenReturn("DCU_MARKUP_DECISION");
+        stageTaskIndex.onTaskCreated(created);
+
+        String screenName = camundaClient.getStageScreenName(stageUUID);
+
+        assertThat(screenName).isEqualTo("DCU_MARKUP_DECISION");
+        verifyZeroInteractions(runtimeService, taskService);
+    }
+
+    @Test
+    public void getStageScreenName_readsScreenForIndexedProcessInOneQueryAndCachesIt() {
+        stageTaskIndex.put(stageUUID, "process1", List.of("task1"));
+        when(runtimeService.createVariableInstanceQuery()).thenReturn(variableInstanceQuery);
+        when(variableInstanceQuery.processInstanceIdIn("process1")).thenReturn(variableInstanceQuery);
+        when(variableInstanceQuery.variableName("screen")).thenReturn(variableInstanceQuery);
+        when(variableInstanceQuery.singleResult()).thenReturn(variableInstance);
+        when(variableInstance.getValue()).thenReturn("DCU_MARKUP_DECISION");
+
+        assertThat(camundaClient.getStageScreenName(stageUUID)).isEqualTo("DCU_MARKUP_DECISION");
+        assertThat(camundaClient.getStageScreenName(stageUUID)).isEqualTo("DCU_MARKUP_DECISION");
+
+        verify(runtimeService, times(1)).createVariableInstanceQuery();
+        verifyNoMoreInteractions(runtimeService, taskService);
+        assertThat(stageTaskIndex.get(stageUUID).activeTaskId()).isEqualTo("task1");
+    }
+
+    @Test
+    public void getStageScreenName_queriesForProcessWhenIndexedProcessHasGone() {
+        stageTaskIndex.put(stageUUID, "process1", List.of());
+        VariableInstanceQuery recreatedQuery = mock(VariableInstanceQuery.class);
+        when(runtimeService.createVariableInstanceQuery()).thenReturn(variableInstanceQuery, recreatedQuery);
+        when(variableInstanceQuery.processInstanceIdIn("process1")).thenReturn(variableInstanceQuery);
+        when(variableInstanceQuery.variableName("screen")).thenReturn(variableInstanceQuery);
+        when(variableInstanceQuery.singleResult()).thenReturn(null);
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.processInstanceBusinessKey(stageUUID.toString())).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.singleResult()).thenReturn(processInstance);
+        when(processInstance.getProcessInstanceId()).thenReturn("process2");
+        when(recreatedQuery.processInstanceIdIn("process2")).thenReturn(recreatedQuery);
+        when(recreatedQuery.variableName("screen")).thenReturn(recreatedQuery);
+        when(recreatedQuery.singleResult()).thenReturn(variableInstance);
+        when(variableInstance.getValue()).thenReturn("MPAM_TRIAGE");
+
+        assertThat(camundaClient.getStageScreenName(stageUUID)).isEqualTo("MPAM_TRIAGE");
+        assertThat(stageTaskIndex.get(stageUUID).getProcessInstanceId()).isEqualTo("process2");
+    }
+
+    private void stubTaskQuery() {
+        when(taskService.createTaskQuery()).thenReturn(taskQuery);
+        lenient().when(taskQuery.processInstanceBusinessKey(stageUUID.toString())).thenReturn(taskQuery);
+        lenient().when(taskQuery.orderByTaskCreateTime()).thenReturn(taskQuery);
+        lenient().when(taskQuery.asc()).thenReturn(taskQuery);
+    }
+
+    private DelegateExecution endedProcess(String processInstanceId) {
+        DelegateExecution execution = mock(DelegateExecution.class);
+        when(execution.getProcessBusinessKey()).thenReturn(stageUUID.toString());
+        when(execution.getProcessInstanceId()).thenReturn(processInstanceId);
+        return execution;
+    }
+
+    @Test
+    public void getActiveStageUUID_readsStageUUIDFromTheCasesStageProcess() {
+        UUID caseUUID = UUID.randomUUID();
+        stubStageProcesses(caseUUID, List.of(processInstance));
+        when(processInstance.getId()).thenReturn("stageProcess1");
+        when(runtimeService.getVariable("stageProcess1", "StageUUID")).thenReturn(stageUUID.toString());
+
+        assertThat(camundaClient.getActiveStageUUID(caseUUID)).isEqualTo(stageUUID);
+    }
+
+    @Test
+    public void getActiveStageUUID_returnsNullWhenCaseIsNotInOneStage() {
+        UUID caseUUID = UUID.randomUUID();
+        stubStageProcesses(caseUUID, List.of());
+
+        assertThat(camundaClient.getActiveStageUUID(caseUUID)).isNull();
+        verify(runtimeService, never()).getVariable(any(), any());
+    }
+
+    private void stubStageProcesses(UUID caseUUID, List<ProcessInstance> stages) {
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.processInstanceBusinessKey(caseUUID.toString())).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.processDefinitionKey("STAGE")).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.list()).thenReturn(stages);
+    }
+}
@@ -0,0 +1,138 @@
+package uk.gov.digital.ho.hocs.workflow.client.camundaclient;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.DelegateTask;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StageTaskIndexTest {
+
+    @Mock
+    private DelegateExecution execution;
+
+    private StageTaskIndex stageTaskIndex;
+
+    private UUID stageUUID = UUID.randomUUID();
+
+    @Before
+    public void setup() {
+        stageTaskIndex = new StageTaskIndex(100, 60000, 60000, 60000);
+        when(execution.getProcessBusinessKey()).thenReturn(stageUUID.toString());
+    }
+
+    @Test
+    public void shouldIndexCreatedTasksInOrder() {
+        stageTaskIndex.onTaskCreated(task("task1", "process1"));
+        stageTaskIndex.onTaskCreated(task("task2", "process1"));
+
+        StageTaskIndex.StageEntry entry = stageTaskIndex.get(stageUUID);
+        assertThat(entry.getProcessInstanceId()).isEqualTo("process1");
+        assertThat(entry.getTaskIds()).containsExactly("task1", "task2");
+        assertThat(entry.activeTaskId()).isEqualTo("task1");
+    }
+
+    @Test
+    public void shouldRemoveEndedTask() {
+        DelegateTask task = task("task1", "process1");
+        stageTaskIndex.onTaskCreated(task);
+
+        stageTaskIndex.onTaskEnded(task);
+
+        StageTaskIndex.StageEntry entry = stageTaskIndex.get(stageUUID);
+        assertThat(entry.getProcessInstanceId()).isEqualTo("process1");
+        assertThat(entry.activeTaskId()).isNull();
+    }
+
+    @Test
+    public void shouldMarkStageEndedWhenItsProcessEnds() {
+        stageTaskIndex.put(stageUUID, "process1", List.of());
+        when(execution.getProcessInstanceId()).thenReturn("process1");
+
+        stageTaskIndex.onProcessEnded(execution);
+
+        assertThat(stageTaskIndex.get(stageUUID).isEnded()).isTrue();
+    }
+
+    @Test
+    public void shouldExpireEndedStageAfterEndedTtlEvenWhenRead() {
+        stageTaskIndex = new StageTaskIndex(100, 60000, 60000, 0);
+        stageTaskIndex.put(stageUUID, "process1", List.of());
+        when(execution.getProcessInstanceId()).thenReturn("process1");
+
+        stageTaskIndex.onProcessEnded(execution);
+
+        assertThat(stageTaskIndex.get(stageUUID)).isNull();
+    }
+
+    @Test
+    public void shouldIgnoreEndOfAnotherProcessWithTheSameBusinessKey() {
+        stageTaskIndex.put(stageUUID, "process2", List.of("task1"));
+        when(execution.getProcessInstanceId()).thenReturn("process1");
+
+        stageTaskIndex.onProcessEnded(execution);
+
+        assertThat(stageTaskIndex.get(stageUUID).activeTaskId()).isEqualTo("task1");
+    }
+
+    @Test
+    public void shouldReplaceEntryWhenStageIsRecreated() {
+        stageTaskIndex.put(stageUUID, "process1", List.of("task1"));
+
+        stageTaskIndex.onTaskCreated(task("task2", "process2"));
+
+        StageTaskIndex.StageEntry entry = stageTaskIndex.get(stageUUID);
+        assertThat(entry.getProcessInstanceId()).isEqualTo("process2");
+        assertThat(entry.getTaskIds()).containsExactly("task2");
+    }
+
+    @Test
+    public void shouldCaptureScreenWithCreatedTask() {
+        DelegateTask task = task("task1", "process1");
+        when(task.getVariable("screen")).thenReturn("MARKUP");
+
+        stageTaskIndex.onTaskCreated(task);
+
+        assertThat(stageTaskIndex.get(stageUUID).currentScreen()).isEqualTo("MARKUP");
+    }
+
+    @Test
+    public void shouldDropScreenWhenTaskEnds() {
+        DelegateTask task = task("task1", "process1");
+        when(task.getVariable("screen")).thenReturn("MARKUP");
+        stageTaskIndex.onTaskCreated(task);
+
+        stageTaskIndex.onTaskEnded(task);
+
+        assertThat(stageTaskIndex.get(stageUUID).currentScreen()).isNull();
+    }
+
+    @Test
+    public void shouldExpireScreenAfterTtl() {
+        stageTaskIndex = new StageTaskIndex(100, 60000, 0, 60000);
+        DelegateTask task = task("task1", "process1");
+        when(task.getVariable("screen")).thenReturn("MARKUP");
+
+        stageTaskIndex.onTaskCreated(task);
+
+        assertThat(stageTaskIndex.get(stageUUID).currentScreen()).isNull();
+        assertThat(stageTaskIndex.get(stageUUID).activeTaskId()).isEqualTo("task1");
+    }
+
+    private DelegateTask task(String taskId, String processInstanceId) {
+        DelegateTask task = mock(DelegateTask.class);
+        when(task.getExecution()).thenReturn(execution);
+        when(task.getId()).thenReturn(taskId);
+        lenient().when(task.getProcessInstanceId()).thenReturn(processInstanceId);
+        return task;
+    }
+}
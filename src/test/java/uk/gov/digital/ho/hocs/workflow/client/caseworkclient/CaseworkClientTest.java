@@ -1,5 +1,6 @@
 package uk.gov.digital.ho.hocs.workflow.client.caseworkclient;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -8,6 +9,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import uk.gov.digital.ho.hocs.workflow.application.RestHelper;
 import uk.gov.digital.ho.hocs.workflow.client.caseworkclient.dto.*;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -32,9 +34,16 @@ public class CaseworkClientTest {
     private UUID userUUID = UUID.randomUUID();
     private String stageType = "TypeA";
 
+    private CaseSnapshotCache caseSnapshotCache = new CaseSnapshotCache();
+
     @Before
     public void setup() {
-        caseworkClient = new CaseworkClient(restHelper, caseServiceUrl);
+        caseworkClient = new CaseworkClient(restHelper, caseServiceUrl, caseSnapshotCache);
+    }
+
+    @After
+    public void tearDown() {
+        caseSnapshotCache.afterCompletion(null, null, null, null);
     }
 
     @Test
@@ -188,4 +197,82 @@ public class CaseworkClientTest {
         verify(restHelper).put(eq(caseServiceUrl), eq(expectedUrl), any(UpdateDeadlineForStagesRequest.class), eq(Void.class));
         verifyNoMoreInteractions(restHelper);
     }
+
+    @Test
+    public void getCase_shouldCallRestHelperEveryTimeOutsideOfARequest() {
+        String expectedUrl = String.format("/case/%s", caseUUID);
+        when(restHelper.get(eq(caseServiceUrl), eq(expectedUrl), eq(GetCaseworkCaseDataResponse.class))).thenReturn(caseData());
+
+        caseworkClient.getCase(caseUUID);
+        caseworkClient.getCase(caseUUID);
+
+        verify(restHelper, times(2)).get(eq(caseServiceUrl), eq(expectedUrl), eq(GetCaseworkCaseDataResponse.class));
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    @Test
+    public void getCase_shouldReuseSnapshotWithinARequest() {
+        String expectedUrl = String.format("/case/%s", caseUUID);
+        when(restHelper.get(eq(caseServiceUrl), eq(expectedUrl), eq(GetCaseworkCaseDataResponse.class))).thenReturn(caseData());
+        caseSnapshotCache.preHandle(null, null, null);
+
+        GetCaseworkCaseDataResponse first = caseworkClient.getCase(caseUUID);
+        GetCaseworkCaseDataResponse second = caseworkClient.getCase(caseUUID);
+
+        assertThat(second.getData()).isEqualTo(first.getData());
+        verify(restHelper).get(eq(caseServiceUrl), eq(expectedUrl), eq(GetCaseworkCaseDataResponse.class));
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    @Test
+    public void getCase_shouldNotShareSnapshotDataBetweenCallers() {
+        String expectedUrl = String.format("/case/%s", caseUUID);
+        GetCaseworkCaseDataResponse loaded = caseData();
+        when(restHelper.get(eq(caseServiceUrl), eq(expectedUrl), eq(GetCaseworkCaseDataResponse.class))).thenReturn(loaded);
+        caseSnapshotCache.preHandle(null, null, null);
+
+        GetCaseworkCaseDataResponse first = caseworkClient.getCase(caseUUID);
+        first.getData().put("key", "changed by caller");
+        loaded.getData().put("key", "changed by loader");
+        GetCaseworkCaseDataResponse second = caseworkClient.getCase(caseUUID);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getData().get("key")).isEqualTo("value");
+    }
+
+    @Test
+    public void getCase_shouldPatchSnapshotOnUpdateCase() {
+        String expectedUrl = String.format("/case/%s", caseUUID);
+        when(restHelper.get(eq(caseServiceUrl), eq(expectedUrl), eq(GetCaseworkCaseDataResponse.class))).thenReturn(caseData());
+        caseSnapshotCache.preHandle(null, null, null);
+
+        caseworkClient.getCase(caseUUID);
+        caseworkClient.updateCase(caseUUID, stageUUID, Map.of("key", "updated"));
+        GetCaseworkCaseDataResponse result = caseworkClient.getCase(caseUUID);
+
+        assertThat(result.getData().get("key")).isEqualTo("updated");
+        assertThat(caseworkClient.getDataValue(caseUUID.toString(), "key")).isEqualTo("updated");
+        verify(restHelper).get(eq(caseServiceUrl), eq(expectedUrl), eq(GetCaseworkCaseDataResponse.class));
+        verify(restHelper).put(eq(caseServiceUrl), eq(String.format("/case/%s/stage/%s/data", caseUUID, stageUUID)), any(UpdateCaseworkCaseDataRequest.class), eq(Void.class));
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    @Test
+    public void getCase_shouldRefetchAfterInvalidatingWrite() {
+        String expectedUrl = String.format("/case/%s", caseUUID);
+        when(restHelper.get(eq(caseServiceUrl), eq(expectedUrl), eq(GetCaseworkCaseDataResponse.class))).thenReturn(caseData());
+        caseSnapshotCache.preHandle(null, null, null);
+
+        caseworkClient.getCase(caseUUID);
+        caseworkClient.updateDeadlineDays(caseUUID, stageUUID, 5);
+        caseworkClient.getCase(caseUUID);
+
+        verify(restHelper, times(2)).get(eq(caseServiceUrl), eq(expectedUrl), eq(GetCaseworkCaseDataResponse.class));
+    }
+
+    private GetCaseworkCaseDataResponse caseData() {
+        Map<String, String> data = new HashMap<>();
+        data.put("key", "value");
+        return GetCaseworkCaseDataResponseBuilder.aGetCaseworkCaseDataResponse().withUuid(caseUUID).withData(data).build();
+    }
 }
@@ -0,0 +1,70 @@
+package uk.gov.digital.ho.hocs.workflow.client.documentclient;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import uk.gov.digital.ho.hocs.workflow.application.RestHelper;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DocumentClientTest {
+
+    private DocumentClient documentClient;
+
+    @Mock
+    private RestHelper restHelper;
+
+    private String documentServiceUrl = "http://localhost:8083";
+
+    @Before
+    public void setup() {
+        documentClient = new DocumentClient(restHelper, documentServiceUrl);
+    }
+
+    @Test
+    public void getDocumentNames_singleDocumentNotFoundIsLeftOut() {
+        UUID documentUUID = UUID.randomUUID();
+        when(restHelper.get(documentServiceUrl, String.format("/document/%s/name", documentUUID), String.class))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        Map<UUID, String> result = documentClient.getDocumentNames(Set.of(documentUUID));
+
+        assertThat(result).isEmpty();
+        verify(restHelper).get(documentServiceUrl, String.format("/document/%s/name", documentUUID), String.class);
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    @Test
+    public void getDocumentNames_severalDocumentsAreFetchedOneByOne() {
+        UUID documentUUID1 = UUID.randomUUID();
+        UUID documentUUID2 = UUID.randomUUID();
+        when(restHelper.get(documentServiceUrl, String.format("/document/%s/name", documentUUID1), String.class)).thenReturn("one");
+        when(restHelper.get(documentServiceUrl, String.format("/document/%s/name", documentUUID2), String.class)).thenReturn("two");
+
+        Map<UUID, String> result = documentClient.getDocumentNames(Set.of(documentUUID1, documentUUID2));
+
+        assertThat(result).containsEntry(documentUUID1, "one").containsEntry(documentUUID2, "two");
+        verify(restHelper).get(documentServiceUrl, String.format("/document/%s/name", documentUUID1), String.class);
+        verify(restHelper).get(documentServiceUrl, String.format("/document/%s/name", documentUUID2), String.class);
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    @Test(expected = HttpClientErrorException.class)
+    public void getDocumentNames_otherErrorsAreRethrown() {
+        UUID documentUUID = UUID.randomUUID();
+        when(restHelper.get(documentServiceUrl, String.format("/document/%s/name", documentUUID), String.class))
+                .thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN));
+
+        documentClient.getDocumentNames(Set.of(documentUUID));
+    }
+}
@@ -6,12 +6,16 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.core.ParameterizedTypeReference;
 import uk.gov.digital.ho.hocs.workflow.api.dto.SchemaDto;
 import uk.gov.digital.ho.hocs.workflow.application.RestHelper;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
 import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.UserDto;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -31,7 +35,7 @@ public class InfoClientTest {
 
     @Before
     public void setup() {
-        infoClient = new InfoClient(restHelper, infoServiceUrl);
+        infoClient = new InfoClient(restHelper, infoServiceUrl, new ConcurrentMapCacheManager());
     }
 
     @Test
@@ -64,7 +68,7 @@ public class InfoClientTest {
         String caseStages = "STAGE1,STAGE2";
         String expectedResourcePath = String.format("/schema/caseType/%s?stages=%s", caseType, caseStages);
 
-        SchemaDto schemaDto = new SchemaDto();
+        SchemaDto schemaDto = schema("STAGE1");
 
         when(restHelper.get(eq(infoServiceUrl), eq(expectedResourcePath), any(ParameterizedTypeReference.class)))
                 .thenReturn(List.of(schemaDto));
@@ -75,4 +79,99 @@ public class InfoClientTest {
         verifyNoMoreInteractions(restHelper);
     }
 
+    @Test
+    public void getSchemasForCaseTypeAndStages_fetchesOnlyUncachedStageTypes() {
+        SchemaDto stage1 = schema("STAGE1");
+        SchemaDto stage2 = schema("STAGE2");
+        SchemaDto stage3 = schema("STAGE3");
+        when(restHelper.get(eq(infoServiceUrl), eq("/schema/caseType/MIN?stages=STAGE1,STAGE2"), any(ParameterizedTypeReference.class)))
+                .thenReturn(List.of(stage2, stage1));
+        when(restHelper.get(eq(infoServiceUrl), eq("/schema/caseType/MIN?stages=STAGE3"), any(ParameterizedTypeReference.class)))
+                .thenReturn(List.of(stage3));
+
+        List<SchemaDto> first = infoClient.getSchemasForCaseTypeAndStages("MIN", "STAGE1,STAGE2,STAGE1");
+        List<SchemaDto> second = infoClient.getSchemasForCaseTypeAndStages("MIN", "STAGE2,STAGE3");
+
+        Assert.assertEquals(List.of(stage1, stage2), first);
+        Assert.assertEquals(List.of(stage2, stage3), second);
+        verify(restHelper).get(eq(infoServiceUrl), eq("/schema/caseType/MIN?stages=STAGE1,STAGE2"), any(ParameterizedTypeReference.class));
+        verify(restHelper).get(eq(infoServiceUrl), eq("/schema/caseType/MIN?stages=STAGE3"), any(ParameterizedTypeReference.class));
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    @Test
+    public void getSchemasForCaseTypeAndStages_onlyReturnsSchemasOfTheCasesOwnStages() {
+        SchemaDto stage1 = schema("STAGE1");
+        SchemaDto stage2 = schema("STAGE2");
+        SchemaDto noStage = schema(null);
+        when(restHelper.get(eq(infoServiceUrl), eq("/schema/caseType/MIN?stages=STAGE1"), any(ParameterizedTypeReference.class)))
+                .thenReturn(List.of(stage1, noStage, stage2));
+        when(restHelper.get(eq(infoServiceUrl), eq("/schema/caseType/MIN?stages=STAGE2"), any(ParameterizedTypeReference.class)))
+                .thenReturn(List.of(stage2));
+
+        List<SchemaDto> firstCase = infoClient.getSchemasForCaseTypeAndStages("MIN", "STAGE1");
+        List<SchemaDto> secondCase = infoClient.getSchemasForCaseTypeAndStages("MIN", "STAGE2");
+        List<SchemaDto> firstCaseAgain = infoClient.getSchemasForCaseTypeAndStages("MIN", "STAGE1");
+
+        Assert.assertEquals(List.of(stage1), firstCase);
+        Assert.assertEquals(List.of(stage2), secondCase);
+        Assert.assertEquals(List.of(stage1), firstCaseAgain);
+        verify(restHelper).get(eq(infoServiceUrl), eq("/schema/caseType/MIN?stages=STAGE1"), any(ParameterizedTypeReference.class));
+        verify(restHelper).get(eq(infoServiceUrl), eq("/schema/caseType/MIN?stages=STAGE2"), any(ParameterizedTypeReference.class));
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    @Test
+    public void getTeams_fetchesAllTeamsOnceForSeveralMisses() {
+        TeamDto team1 = new TeamDto("team one", UUID.randomUUID(), true, Set.of());
+        TeamDto team2 = new TeamDto("team two", UUID.randomUUID(), true, Set.of());
+        when(restHelper.get(eq(infoServiceUrl), eq("/team"), any(ParameterizedTypeReference.class)))
+                .thenReturn(Set.of(team1, team2));
+
+        Map<UUID, TeamDto> result = infoClient.getTeams(Set.of(team1.getUuid(), team2.getUuid()));
+        Map<UUID, TeamDto> cachedResult = infoClient.getTeams(Set.of(team1.getUuid(), team2.getUuid()));
+
+        Assert.assertEquals(Map.of(team1.getUuid(), team1, team2.getUuid(), team2), result);
+        Assert.assertEquals(result, cachedResult);
+        verify(restHelper).get(eq(infoServiceUrl), eq("/team"), any(ParameterizedTypeReference.class));
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    @Test
+    public void getTeams_loadsSingleMissThroughTheCache() {
+        UUID teamUUID = UUID.randomUUID();
+        TeamDto team = new TeamDto("team one", teamUUID, true, Set.of());
+        when(restHelper.get(infoServiceUrl, String.format("/team/%s", teamUUID), TeamDto.class)).thenReturn(team);
+
+        Map<UUID, TeamDto> result = infoClient.getTeams(Set.of(teamUUID));
+        Map<UUID, TeamDto> cachedResult = infoClient.getTeams(Set.of(teamUUID));
+
+        Assert.assertEquals(Map.of(teamUUID, team), result);
+        Assert.assertEquals(result, cachedResult);
+        verify(restHelper).get(infoServiceUrl, String.format("/team/%s", teamUUID), TeamDto.class);
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    @Test
+    public void getUsers_fetchesEachMissOnceAndCachesIt() {
+        UUID userUUID1 = UUID.randomUUID();
+        UUID userUUID2 = UUID.randomUUID();
+        UserDto user1 = new UserDto("one", "User", "One", "one@example.com");
+        UserDto user2 = new UserDto("two", "User", "Two", "two@example.com");
+        when(restHelper.get(infoServiceUrl, String.format("/user/%s", userUUID1), UserDto.class)).thenReturn(user1);
+        when(restHelper.get(infoServiceUrl, String.format("/user/%s", userUUID2), UserDto.class)).thenReturn(user2);
+
+        Map<UUID, UserDto> result = infoClient.getUsers(Set.of(userUUID1, userUUID2));
+        Map<UUID, UserDto> cachedResult = infoClient.getUsers(Set.of(userUUID1, userUUID2));
+
+        Assert.assertEquals(Map.of(userUUID1, user1, userUUID2, user2), result);
+        Assert.assertEquals(result, cachedResult);
+        verify(restHelper).get(infoServiceUrl, String.format("/user/%s", userUUID1), UserDto.class);
+        verify(restHelper).get(infoServiceUrl, String.format("/user/%s", userUUID2), UserDto.class);
+        verifyNoMoreInteractions(restHelper);
+    }
+
+    private static SchemaDto schema(String stageType) {
+        return new SchemaDto(UUID.randomUUID(), stageType, stageType + "_FORM", stageType, "Continue", true, List.of(), List.of(), null);
+    }
 }
@@ -0,0 +1,96 @@
+package uk.gov.digital.ho.hocs.workflow.migration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MigrationStreamServiceTest {
+
+    @Mock
+    private MigrationWorkflowService workflowService;
+
+    private ObjectMapper objectMapper;
+
+    private MigrationStreamService migrationStreamService;
+
+    @Before
+    public void setup() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        migrationStreamService = new MigrationStreamService(workflowService, objectMapper, Runnable::run, 4, 2);
+    }
+
+    @Test
+    public void shouldWriteAResultForEachCaseAndAFinalCheckpoint() throws IOException {
+        UUID caseUUID = UUID.randomUUID();
+        when(workflowService.createCase(argThat(request -> request != null && "REF1".equals(request.getCaseReference()))))
+                .thenReturn(new MigrationCreateCaseResponse(caseUUID, "MIN/0000001/20", Map.of()));
+        when(workflowService.createCase(argThat(request -> request != null && "REF2".equals(request.getCaseReference()))))
+                .thenThrow(new IllegalStateException("Casework unavailable"));
+
+        List<JsonNode> lines = createCases("{\"type\":\"MIN\",\"ref\":\"REF1\"}\n\n{\"type\":\"MIN\",\"ref\":\"REF2\"}\n", 0);
+
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0).get("line").asLong()).isEqualTo(1);
+        assertThat(lines.get(0).get("status").asText()).isEqualTo(MigrationStreamResult.OK);
+        assertThat(lines.get(0).get("result").get("uuid").asText()).isEqualTo(caseUUID.toString());
+        assertThat(lines.get(1).get("line").asLong()).isEqualTo(3);
+        assertThat(lines.get(1).get("status").asText()).isEqualTo(MigrationStreamResult.FAILED);
+        assertThat(lines.get(1).get("error").asText()).isEqualTo("Casework unavailable");
+        assertThat(lines.get(2).get("type").asText()).isEqualTo("progress");
+        assertThat(lines.get(3).get("processed").asLong()).isEqualTo(2);
+        assertThat(lines.get(3).get("failed").asLong()).isEqualTo(1);
+        assertThat(lines.get(3).get("checkpoint").asLong()).isEqualTo(3);
+        assertThat(lines.get(3).get("complete").asBoolean()).isTrue();
+    }
+
+    @Test
+    public void shouldSkipLinesUpToTheCheckpoint() throws IOException {
+        when(workflowService.createCase(any())).thenReturn(new MigrationCreateCaseResponse(UUID.randomUUID(), "MIN/0000002/20", Map.of()));
+
+        List<JsonNode> lines = createCases("{\"type\":\"MIN\",\"ref\":\"REF1\"}\n{\"type\":\"MIN\",\"ref\":\"REF2\"}\n", 1);
+
+        verify(workflowService).createCase(argThat(request -> request != null && "REF2".equals(request.getCaseReference())));
+        verifyNoMoreInteractions(workflowService);
+        assertThat(lines.get(0).get("line").asLong()).isEqualTo(2);
+        assertThat(lines.get(lines.size() - 1).get("checkpoint").asLong()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReportLinesThatCannotBeRead() throws IOException {
+        List<JsonNode> lines = createCases("not json\n", 0);
+
+        verifyZeroInteractions(workflowService);
+        assertThat(lines.get(0).get("status").asText()).isEqualTo(MigrationStreamResult.FAILED);
+        assertThat(lines.get(lines.size() - 1).get("checkpoint").asLong()).isEqualTo(1);
+    }
+
+    private List<JsonNode> createCases(String body, long skip) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        migrationStreamService.createCases(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), output, skip);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
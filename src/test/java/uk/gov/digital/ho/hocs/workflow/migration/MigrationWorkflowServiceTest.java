@@ -0,0 +1,106 @@
+package uk.gov.digital.ho.hocs.workflow.migration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.digital.ho.hocs.workflow.client.camundaclient.CamundaClient;
+import uk.gov.digital.ho.hocs.workflow.client.documentclient.DocumentClient;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.InfoClient;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MigrationWorkflowServiceTest {
+
+    @Mock
+    private MigrationCaseworkClient migrationCaseworkClient;
+
+    @Mock
+    private DocumentClient documentClient;
+
+    @Mock
+    private InfoClient infoClient;
+
+    @Mock
+    private CamundaClient camundaClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MigrationWorkflowService migrationWorkflowService;
+
+    private final UUID caseUUID = UUID.randomUUID();
+    private final UUID dataInputStageUUID = UUID.randomUUID();
+    private final UUID markupStageUUID = UUID.randomUUID();
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        migrationWorkflowService = new MigrationWorkflowService(migrationCaseworkClient, documentClient, infoClient, camundaClient, meterRegistry);
+    }
+
+    @Test
+    public void shouldRunEachStepOnceReadingTheNextStageFromTheEngine() {
+        UUID topicUUID = UUID.randomUUID();
+        UUID caseTopicUUID = UUID.randomUUID();
+        TeamDto team = new TeamDto("Team", UUID.randomUUID(), true, Set.of());
+        when(camundaClient.getActiveStageUUID(caseUUID)).thenReturn(dataInputStageUUID, markupStageUUID);
+        when(migrationCaseworkClient.addTopic(caseUUID, dataInputStageUUID, topicUUID)).thenReturn(caseTopicUUID);
+        when(infoClient.getTeamForTopicAndStage(eq(caseUUID), eq(caseTopicUUID), any())).thenReturn(team);
+
+        MigrationProgressCaseResponse response = migrationWorkflowService.progressCase(caseUUID, "MIN",
+                data("Draft response"), Map.of(), null, null, topicUUID);
+
+        assertThat(response.getStage()).isEqualTo("Initial Draft");
+        verify(camundaClient, times(2)).getActiveStageUUID(caseUUID);
+        verify(camundaClient, times(2)).completeTask(eq(dataInputStageUUID), any());
+        verify(camundaClient, times(3)).completeTask(eq(markupStageUUID), any());
+        verify(migrationCaseworkClient, never()).getStageUUID(any());
+        assertThat(meterRegistry.get("migration.step").tag("step", "data_input").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("migration.step").tag("step", "markup").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldAskCaseworkForTheStageWhenTheEngineCannotTell() {
+        when(migrationCaseworkClient.getStageUUID(caseUUID)).thenReturn(dataInputStageUUID);
+
+        MigrationProgressCaseResponse response = migrationWorkflowService.progressCase(caseUUID, "MIN",
+                data("Mark up"), Map.of(), null, null, null);
+
+        assertThat(response.getStage()).isEqualTo("Mark up");
+        verify(migrationCaseworkClient).getStageUUID(caseUUID);
+        verify(camundaClient, times(2)).completeTask(eq(dataInputStageUUID), any());
+    }
+
+    @Test
+    public void shouldLeaveClosedCasesWithAnotherDecisionUnprogressed() {
+        when(camundaClient.getActiveStageUUID(caseUUID)).thenReturn(dataInputStageUUID);
+        Map<String, String> data = data("None");
+        data.put("MarkupDecision", "REJECTED");
+
+        MigrationProgressCaseResponse response = migrationWorkflowService.progressCase(caseUUID, "MIN", data, Map.of(), null, null, null);
+
+        assertThat(response.getStage()).isEqualTo("Completed");
+        verify(camundaClient).getActiveStageUUID(caseUUID);
+        verifyNoMoreInteractions(camundaClient);
+    }
+
+    private static Map<String, String> data(String caseTask) {
+        Map<String, String> data = new HashMap<>();
+        data.put("caseTask", caseTask);
+        data.put("MarkupDecision", "PR");
+        data.put("CopyNumberTen", "false");
+        return data;
+    }
+}
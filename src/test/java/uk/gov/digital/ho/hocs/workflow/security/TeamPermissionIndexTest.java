@@ -0,0 +1,81 @@
+package uk.gov.digital.ho.hocs.workflow.security;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slf4j.MDC;
+import uk.gov.digital.ho.hocs.workflow.application.RequestData;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.InfoClient;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.PermissionDto;
+import uk.gov.digital.ho.hocs.workflow.client.infoclient.dto.TeamDto;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TeamPermissionIndexTest {
+
+    @Mock
+    private InfoClient infoClient;
+
+    private TeamPermissionIndex teamPermissionIndex;
+
+    private UUID team1 = UUID.randomUUID();
+    private UUID team2 = UUID.randomUUID();
+
+    @Before
+    public void setup() {
+        teamPermissionIndex = new TeamPermissionIndex(infoClient);
+    }
+
+    @Test
+    public void shouldPrecomputeMaxAccessLevelPerCaseTypeAcrossTeams() {
+        when(infoClient.refreshTeams()).thenReturn(Set.of(
+                new TeamDto("TEAM 1", team1, true, Set.of(new PermissionDto("MIN", AccessLevel.READ), new PermissionDto("TRO", AccessLevel.OWNER))),
+                new TeamDto("TEAM 2", team2, true, Set.of(new PermissionDto("MIN", AccessLevel.WRITE)))));
+
+        Map<String, AccessLevel> maxAccessLevels = teamPermissionIndex.getMaxAccessLevels(Set.of(team1, team2, UUID.randomUUID()));
+
+        assertThat(maxAccessLevels).containsOnly(Map.entry("MIN", AccessLevel.WRITE), Map.entry("TRO", AccessLevel.OWNER));
+        assertThat(teamPermissionIndex.getMaxAccessLevels(Set.of(team1))).containsOnly(Map.entry("MIN", AccessLevel.READ), Map.entry("TRO", AccessLevel.OWNER));
+        verify(infoClient, times(1)).refreshTeams();
+    }
+
+    @Test
+    public void shouldKeepPreviousTeamsWhenRefreshFails() {
+        when(infoClient.refreshTeams())
+                .thenReturn(Set.of(new TeamDto("TEAM 1", team1, true, Set.of(new PermissionDto("MIN", AccessLevel.OWNER)))))
+                .thenThrow(new RuntimeException("info service unavailable"));
+
+        teamPermissionIndex.refresh();
+        teamPermissionIndex.refresh();
+
+        assertThat(teamPermissionIndex.getPermissions(Set.of(team1))).containsOnly(new PermissionDto("MIN", AccessLevel.OWNER));
+        verify(infoClient, times(2)).refreshTeams();
+    }
+
+    @Test
+    public void shouldRefreshAsTheServiceAndRestoreTheThreadContext() {
+        Map<String, String> context = new HashMap<>();
+        when(infoClient.refreshTeams()).thenAnswer(invocation -> {
+            context.putAll(MDC.getCopyOfContextMap());
+            return Set.of();
+        });
+        MDC.put(RequestData.USER_ID_HEADER, "caller");
+
+        teamPermissionIndex.refresh();
+
+        assertThat(context).containsEntry(RequestData.USER_ID_HEADER, RequestData.SERVICE_USER)
+                .containsEntry(RequestData.USERNAME_HEADER, RequestData.SERVICE_USER)
+                .containsKeys(RequestData.CORRELATION_ID_HEADER, RequestData.GROUP_HEADER);
+        assertThat(MDC.get(RequestData.USER_ID_HEADER)).isEqualTo("caller");
+        MDC.clear();
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import uk.gov.digital.ho.hocs.workflow.application.RequestData;
@@ -18,7 +19,7 @@ import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class UserPermissionsServiceTest {
@@ -54,7 +55,7 @@ public class UserPermissionsServiceTest {
                         "/" +  uuid1).split(",");
 
         when(requestData.groupsArray()).thenReturn(groups);
-        service = new UserPermissionsService(requestData, infoClient);
+        service = new UserPermissionsService(requestData, new TeamPermissionIndex(infoClient), new UserSecurityContext());
         assertThat(service.getUserPermission().size()).isEqualTo(3);
     }
 
@@ -69,7 +70,7 @@ public class UserPermissionsServiceTest {
                        ).split(",");
 
         when(requestData.groupsArray()).thenReturn(groups);
-        service = new UserPermissionsService(requestData, infoClient);
+        service = new UserPermissionsService(requestData, new TeamPermissionIndex(infoClient), new UserSecurityContext());
         assertThat(service.getUserPermission().size()).isEqualTo(2);
 
     }
@@ -82,7 +83,7 @@ public class UserPermissionsServiceTest {
                         "/" + uuid1).split(",");
 
         when(requestData.groupsArray()).thenReturn(groups);
-        service = new UserPermissionsService(requestData, infoClient);
+        service = new UserPermissionsService(requestData, new TeamPermissionIndex(infoClient), new UserSecurityContext());
         Set<UUID> teams = service.getUserTeams();
         assertThat(teams).size().isEqualTo(2);
         assertThat(teams).contains(UUID.fromString("1c1e2f17-d5d9-4ff6-a023-6c40d76e1e9d"));
@@ -98,7 +99,7 @@ public class UserPermissionsServiceTest {
                         "/" + uuid1).split(",");
 
         when(requestData.groupsArray()).thenReturn(groups);
-        service = new UserPermissionsService(requestData, infoClient);
+        service = new UserPermissionsService(requestData, new TeamPermissionIndex(infoClient), new UserSecurityContext());
         Set<String> caseTypes = service.getUserCaseTypes();
         assertThat(caseTypes.stream().anyMatch(c -> c.equals("TRO"))).isTrue();
         assertThat(caseTypes.stream().anyMatch(c -> c.equals("MIN"))).isTrue();
@@ -131,14 +132,38 @@ public class UserPermissionsServiceTest {
         );
 
         when(requestData.groupsArray()).thenReturn(groups);
-        when(infoClient.getTeams()).thenReturn(teams);
+        when(infoClient.refreshTeams()).thenReturn(teams);
 
-        service = new UserPermissionsService(requestData, infoClient);
+        service = new UserPermissionsService(requestData, new TeamPermissionIndex(infoClient), new UserSecurityContext());
         Set<String> caseTypes = service.getCaseTypesIfUserTeamIsCaseTypeAdmin();
         assertThat(caseTypes.size()).isEqualTo(1);
         assertThat(caseTypes.contains(caseType1)).isTrue();
     }
 
+    @Test
+    public void shouldDecodeGroupsOncePerRequest() {
+        String[] groups =
+                ("/" + uuid2 + "," +
+                        "/" + uuid1).split(",");
+
+        when(requestData.groupsArray()).thenReturn(groups);
+        UserSecurityContext userSecurityContext = new UserSecurityContext();
+        service = new UserPermissionsService(requestData, new TeamPermissionIndex(infoClient), userSecurityContext);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        userSecurityContext.preHandle(request, response, null);
+        try {
+            assertThat(service.getMaxAccessLevel("MIN")).isEqualTo(AccessLevel.OWNER);
+            assertThat(service.getUserCaseTypes()).containsOnly("MIN", "TRO");
+            assertThat(service.getUserTeams()).hasSize(2);
+        } finally {
+            userSecurityContext.afterCompletion(request, response, null, null);
+        }
+
+        verify(requestData, times(1)).groupsArray();
+    }
+
     private void setupInfoClientMocks() {
 
         Set<TeamDto> teamDtos = new HashSet<>();
@@ -157,6 +182,6 @@ public class UserPermissionsServiceTest {
         TeamDto teamDto3 = new TeamDto("TEAM 3", UUID.fromString("f1825c7d-baff-4c09-8056-2166760ccbd2"), true, new HashSet<>());
         teamDtos.add(teamDto3);
 
-        when(infoClient.getTeams()).thenReturn(teamDtos);
+        when(infoClient.refreshTeams()).thenReturn(teamDtos);
     }
 }
\ No newline at end of file